@@ -0,0 +1,37 @@
+#!/usr/bin/env bash
+#
+# Send layout requests to a running HTTP server (see --serve-http) and print its throughput and latencies.
+# Only needs curl, the requests are sent locally.
+#
+# Usage: scripts/http-load-test.sh [BPMN_FILE] [REQUESTS] [CONCURRENCY] [ACCEPT]
+# The URL of the layout endpoint is read from the URL environment variable, http://localhost:8080/layout by default.
+set -euo pipefail
+
+input=${1:-src/test/resources/bpmn/A.2.0.bpmn.xml}
+requests=${2:-200}
+concurrency=${3:-$(nproc)}
+accept=${4:-application/xml}
+url=${URL:-http://localhost:8080/layout}
+
+results=$(mktemp)
+trap 'rm -f "$results"' EXIT
+
+# one warm-up request, so the JIT compilation of the first layouts is not measured
+curl --silent --show-error --output /dev/null --data-binary "@$input" -H "Accept: $accept" "$url"
+
+start=$(date +%s%N)
+seq "$requests" | xargs -P "$concurrency" -I{} \
+  curl --silent --output /dev/null --write-out '%{http_code} %{time_total}\n' \
+    --data-binary "@$input" -H "Content-Type: application/xml" -H "Accept: $accept" "$url" >> "$results"
+elapsed_ms=$(( ($(date +%s%N) - start) / 1000000 ))
+
+echo "Sent $requests request(s) of $input with $concurrency concurrent connection(s) to $url"
+awk '{ print $1 }' "$results" | sort | uniq -c | awk '{ printf "  status %s: %d\n", $2, $1 }'
+sort -n -k2 "$results" | awk -v elapsed_ms="$elapsed_ms" '
+  $1 == 200 { latencies[++ok] = $2 * 1000 }
+  END {
+    p50 = ok ? latencies[int((ok * 50 + 99) / 100)] : 0
+    p99 = ok ? latencies[int((ok * 99 + 99) / 100)] : 0
+    printf "%d ok in %.1f s: %.1f requests/s, latency p50 %d ms, p99 %d ms\n",
+      ok, elapsed_ms / 1000, ok * 1000 / (elapsed_ms ? elapsed_ms : 1), p50, p99
+  }'
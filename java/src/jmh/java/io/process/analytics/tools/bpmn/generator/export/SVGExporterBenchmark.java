@@ -0,0 +1,134 @@
+/*
+ * Copyright 2026 Bonitasoft S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.process.analytics.tools.bpmn.generator.export;
+
+import static io.process.analytics.tools.bpmn.generator.model.Edge.edge;
+import static io.process.analytics.tools.bpmn.generator.model.Shape.shape;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.process.analytics.tools.bpmn.generator.algo.ShapeLayouter;
+import io.process.analytics.tools.bpmn.generator.converter.AlgoToDisplayModelConverter;
+import io.process.analytics.tools.bpmn.generator.model.Diagram;
+import io.process.analytics.tools.bpmn.generator.model.Grid;
+import io.process.analytics.tools.bpmn.generator.model.display.DisplayEdge;
+import io.process.analytics.tools.bpmn.generator.model.display.DisplayModel;
+import io.process.analytics.tools.bpmn.generator.model.display.PackedDisplayModel;
+
+/**
+ * Export of a generated diagram to SVG, and the formatting of the waypoints compared to the String based one it
+ * replaced. Run with {@code ./mvnw -P benchmark test-compile exec:exec}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SVGExporterBenchmark {
+
+    @Param({"1000", "10000"})
+    private int flowNodes;
+
+    private Grid grid;
+    private Diagram diagram;
+    private PackedDisplayModel packedModel;
+    private DisplayModel model;
+    private final StringBuilder buffer = new StringBuilder();
+    private final SVGExporter svgExporter = new SVGExporter();
+    private final SVGExporter compactSvgExporter = new SVGExporter(true);
+    private final SVGExporter parallelSvgExporter = new SVGExporter(false, ForkJoinPool.commonPool());
+
+    @Setup
+    public void setUp() {
+        // the debug logs of the waypoints computation would be measured too
+        Configurator.setLevel("io.process.analytics.tools.bpmn", Level.WARN);
+        // a sequence of tasks, with an additional edge every 10 tasks so there are splits, joins and bend points
+        Diagram.DiagramBuilder builder = Diagram.builder().shape(shape("task_0"));
+        for (int i = 1; i < flowNodes; i++) {
+            builder.shape(shape("task_" + i)).edge(edge("flow_" + i, "task_" + (i - 1), "task_" + i));
+            if (i % 10 == 0) {
+                builder.edge(edge("shortcut_" + i, "task_" + (i - 3), "task_" + i));
+            }
+        }
+        diagram = builder.build();
+        grid = new ShapeLayouter().layout(diagram);
+        packedModel = new AlgoToDisplayModelConverter().convertToPackedModel(grid, diagram);
+        model = packedModel.toDisplayModel();
+    }
+
+    @Benchmark
+    public String export() {
+        return svgExporter.export(grid, diagram);
+    }
+
+    @Benchmark
+    public void exportToStream() throws IOException {
+        svgExporter.export(grid, diagram, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public void exportInParallelToStream() throws IOException {
+        parallelSvgExporter.export(grid, diagram, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public void exportCompactToStream() throws IOException {
+        compactSvgExporter.export(grid, diagram, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public int formatWayPointsInBuffer() {
+        buffer.setLength(0);
+        for (int edge = 0; edge < packedModel.edgeCount(); edge++) {
+            SVGExporter.appendWayPoints(buffer, packedModel, edge);
+            buffer.append('\n');
+        }
+        return buffer.length();
+    }
+
+    // as done before: a String per point, joined with a stream
+    @Benchmark
+    public int formatWayPointsWithStreams() {
+        buffer.setLength(0);
+        for (DisplayEdge edge : model.edges) {
+            String points = edge.wayPoints.stream()
+                    .map(point -> point.x + "," + point.y)
+                    .collect(Collectors.joining(" "));
+            buffer.append(points).append('\n');
+        }
+        return buffer.length();
+    }
+
+}
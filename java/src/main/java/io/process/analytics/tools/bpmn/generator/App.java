@@ -18,9 +18,17 @@ import static java.lang.String.format;
 import static java.util.Arrays.stream;
 import static java.util.stream.Collectors.joining;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.concurrent.Callable;
 
 import io.process.analytics.tools.bpmn.generator.BPMNLayoutGenerator.ExportType;
@@ -45,13 +53,69 @@ public class App implements Callable<Integer> {
             paramLabel = "TYPE")
     String outputType = "BPMN";
 
+    @Option(names = {"--compact-svg"},
+            description = "Share the SVG styles in CSS classes and draw the arrows with a marker, for a smaller SVG output.")
+    boolean compactSvg;
+    @Option(names = {"--parallel-svg"},
+            description = "Render the SVG elements of large diagrams on all the available cores.")
+    boolean parallelSvg;
+    @Option(names = {"--stream-bpmn-input"},
+            description = "Read the BPMN input with a streaming parser, which only keeps the flow nodes and sequence flows. Only for the SVG and ASCII output types.")
+    boolean streamBpmnInput;
+    @Option(names = {"--stream-bpmn-output"},
+            description = "Write the BPMN diagram with a streaming writer, which uses less memory. Only for the BPMN output type and an output file.")
+    boolean streamBpmnOutput;
+    @Option(names = {"--compact-bpmn"},
+            description = "Write the BPMN output without indentation, for a smaller output.")
+    boolean compactBpmn;
+
     @Option(names = {"-o", "--output"},
-            description = "Output file.",
+            description = "Output file, compressed with gzip when its name ends with .gz.",
             paramLabel = "OUTPUT")
     private File outputFile;
-    @Parameters(arity = "1..2", paramLabel = "INPUT", description = "Input file(s).")
+    @Parameters(arity = "0..2", paramLabel = "INPUT", description = "Input file(s), decompressed when their name ends with .gz.")
     private File[] inputFiles;
 
+    @Option(names = {"--input-dir"},
+            description = "Lay out all the BPMN files of this directory matching the glob, instead of the input file(s).",
+            paramLabel = "DIR")
+    private File inputDir;
+    @Option(names = {"--output-dir"},
+            description = "Directory of the outputs of the input directory, which keep the relative paths of the inputs.",
+            paramLabel = "DIR")
+    private File outputDir;
+    @Option(names = {"--glob"},
+            description = "Files of the input directory to lay out, matched on their relative path. Default: ${DEFAULT-VALUE}.",
+            paramLabel = "GLOB")
+    String glob = "**.{bpmn,bpmn.xml,bpmn.gz,bpmn.xml.gz}";
+    @Option(names = {"--serve-stdio"},
+            description = "Read layout jobs from the standard input, one JSON object per line, and write a JSON result line for each of them to the standard output.")
+    boolean serveStdio;
+    @Option(names = {"--serve-http"},
+            description = "Serve the layouts over HTTP on this port: POST the BPMN or CSV to /layout, the output type is chosen from the Accept header. The metrics are on /metrics.",
+            paramLabel = "PORT")
+    Integer httpPort;
+    @Option(names = {"--http-host"},
+            description = "Host name or address the HTTP server listens on. Default: ${DEFAULT-VALUE}.",
+            paramLabel = "HOST")
+    String httpHost = "localhost";
+    @Option(names = {"--max-request-size"},
+            description = "Maximum size of the HTTP requests, in bytes. Default: ${DEFAULT-VALUE}.",
+            paramLabel = "BYTES")
+    int maxRequestSize = 16 * 1024 * 1024;
+    @Option(names = {"--request-timeout"},
+            description = "Maximum duration of the layout of an HTTP request, in milliseconds. Default: ${DEFAULT-VALUE}.",
+            paramLabel = "MILLIS")
+    long requestTimeout = 30_000;
+    @Option(names = {"--workers"},
+            description = "Number of files of the input directory, jobs of the standard input, or HTTP requests laid out in parallel. Default: the number of cores.",
+            paramLabel = "COUNT")
+    int workers = Runtime.getRuntime().availableProcessors();
+    @Option(names = {"--layout-cache-shapes"},
+            description = "Maximum number of shapes of the process layouts kept by --serve-stdio and --serve-http, so an unchanged process is not laid out again, 0 to disable the cache. Default: ${DEFAULT-VALUE}.",
+            paramLabel = "COUNT")
+    int layoutCacheShapes = 100_000;
+
     public static void main(String[] args) throws Exception {
         int exitCode = runApp(args);
         System.exit(exitCode);
@@ -69,28 +133,76 @@ public class App implements Callable<Integer> {
     public Integer call() {
         try {
             BPMNLayoutGenerator bpmnLayoutGenerator = new BPMNLayoutGenerator();
-            String output;
+            bpmnLayoutGenerator.setCompactSvg(compactSvg);
+            bpmnLayoutGenerator.setParallelSvg(parallelSvg);
+            bpmnLayoutGenerator.setStreamBpmnInput(streamBpmnInput);
+            bpmnLayoutGenerator.setStreamBpmnOutput(streamBpmnOutput);
+            bpmnLayoutGenerator.setCompactBpmn(compactBpmn);
+            bpmnLayoutGenerator.setGzipOutput(outputFile != null && FileUtils.isGzip(outputFile));
+            if (httpPort != null || serveStdio) {
+                // only worth it when the generator lays out several diagrams, a single run lays out each process once
+                bpmnLayoutGenerator.setLayoutCacheShapes(layoutCacheShapes);
+            }
+            if (httpPort != null) {
+                return serveHttp(bpmnLayoutGenerator);
+            }
+            if (serveStdio) {
+                return serveStdio(bpmnLayoutGenerator);
+            }
+            if (inputDir != null) {
+                return runBatch(bpmnLayoutGenerator);
+            }
+            if (inputFiles == null) {
+                System.err.println("Expected an input file, or an input directory with --input-dir");
+                return 2;
+            }
+            Path bpmnFile = null;
+            String nodes = null;
+            String edges = null;
             switch (inputType) {
                 case "BPMN":
                     if (inputFiles.length != 1) {
                         System.err.println("Expected only one input file to import from BPMN format, got: " + inputType.length());
                     }
-                    output = bpmnLayoutGenerator.generateLayoutFromBPMNSemantic(FileUtils.fileContent(inputFiles[0]), exportType(outputType));
+                    bpmnFile = inputFiles[0].toPath();
+                    // read later, but reported before the other errors
+                    if (Files.notExists(bpmnFile)) {
+                        throw new NoSuchFileException(bpmnFile.toString());
+                    }
                     break;
                 case "CSV":
                     if (inputFiles.length != 2) {
                         System.err.println("Expected 2 input files to import from CSV format, got: " + inputType.length());
                     }
-                    output = bpmnLayoutGenerator.generateLayoutFromCSV(FileUtils.fileContent(inputFiles[0]), FileUtils.fileContent(inputFiles[1]), exportType(outputType));
+                    nodes = FileUtils.fileContent(inputFiles[0]);
+                    edges = FileUtils.fileContent(inputFiles[1]);
                     break;
                 default:
                     System.err.println("Unexpected input type: " + inputType);
                     return 2;
             }
+            if (isInput(outputFile)) {
+                System.err.println("Expected an output file other than the input files, got: " + outputFile);
+                return 2;
+            }
+            ExportType exportType = exportType(outputType);
             if (outputFile != null) {
-                FileUtils.touch(outputFile);
-                Files.write(outputFile.toPath(), output.getBytes());
+                // stream the output to the file, so it is never fully held in memory, the generator compresses it
+                Path input = bpmnFile;
+                String nodesContent = nodes;
+                String edgesContent = edges;
+                FileUtils.writeAtomically(outputFile.toPath(), false, output -> {
+                    if (input != null) {
+                        // parse the bytes of the file, without building its content as a String
+                        bpmnLayoutGenerator.generateLayoutFromBPMNSemantic(input, exportType, output);
+                    } else {
+                        bpmnLayoutGenerator.generateLayoutFromCSV(nodesContent, edgesContent, exportType, output);
+                    }
+                });
             } else {
+                String output = bpmnFile != null
+                        ? bpmnLayoutGenerator.generateLayoutFromBPMNSemantic(FileUtils.fileContent(bpmnFile.toFile()), exportType)
+                        : bpmnLayoutGenerator.generateLayoutFromCSV(nodes, edges, exportType);
                 System.out.println(output);
             }
         } catch (NoSuchFileException e) {
@@ -104,6 +216,60 @@ public class App implements Callable<Integer> {
     }
 
 
+    private boolean isInput(File file) throws IOException {
+        if (file == null || !file.exists()) {
+            return false;
+        }
+        for (File inputFile : inputFiles) {
+            if (Files.isSameFile(inputFile.toPath(), file.toPath())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int serveStdio(BPMNLayoutGenerator bpmnLayoutGenerator) throws Exception {
+        if (workers < 1) {
+            System.err.println("Expected at least one worker to serve the jobs of the standard input");
+            return 2;
+        }
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        PrintStream out = new PrintStream(System.out, true, StandardCharsets.UTF_8);
+        new StdioServer(bpmnLayoutGenerator, workers, in, out).serve();
+        return 0;
+    }
+
+    private int serveHttp(BPMNLayoutGenerator bpmnLayoutGenerator) throws Exception {
+        if (workers < 1 || maxRequestSize < 1 || requestTimeout < 1) {
+            System.err.println("Expected at least one worker, a positive maximum request size and a positive request timeout to serve the layouts over HTTP");
+            return 2;
+        }
+        HttpLayoutServer server = new HttpLayoutServer(bpmnLayoutGenerator, workers, maxRequestSize,
+                Duration.ofMillis(requestTimeout));
+        InetSocketAddress address = server.start(new InetSocketAddress(httpHost, httpPort));
+        // let the requests in progress complete when the JVM is stopped
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> server.stop(1)));
+        System.out.println(format("Serving the layouts on http://%s:%d%s", httpHost, address.getPort(), HttpLayoutServer.LAYOUT_PATH));
+        server.awaitStop();
+        return 0;
+    }
+
+    private int runBatch(BPMNLayoutGenerator bpmnLayoutGenerator) throws Exception {
+        if (outputDir == null || !"BPMN".equals(inputType) || workers < 1) {
+            System.err.println("Expected BPMN input files, an output directory with --output-dir and at least one worker to lay out an input directory");
+            return 2;
+        }
+        ExportType exportType = exportType(outputType);
+        // the BPMN outputs have the names of the inputs
+        if (exportType == ExportType.BPMN && outputDir.exists() && Files.isSameFile(inputDir.toPath(), outputDir.toPath())) {
+            System.err.println("Expected an output directory other than the input directory for the BPMN output type, got: " + outputDir);
+            return 2;
+        }
+        int failures = new BatchLayout(bpmnLayoutGenerator, exportType, workers, System.out)
+                .run(inputDir.toPath(), glob, outputDir.toPath());
+        return failures == 0 ? 0 : 1;
+    }
+
     private ExportType exportType(String arg) {
         try {
             return ExportType.valueOf(arg.toUpperCase());
@@ -1,20 +1,38 @@
 package io.process.analytics.tools.bpmn.generator;
 
 import static io.process.analytics.tools.bpmn.generator.export.BPMNExporter.defaultBpmnExporter;
+import static io.process.analytics.tools.bpmn.generator.internal.BpmnInOut.compactBpmnInOut;
 import static io.process.analytics.tools.bpmn.generator.internal.BpmnInOut.defaultBpmnInOut;
+import static io.process.analytics.tools.bpmn.generator.internal.FileUtils.GZIP_BUFFER_SIZE;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.GZIPOutputStream;
+
+import io.process.analytics.tools.bpmn.generator.algo.ConnectedComponentsLayouter;
+import io.process.analytics.tools.bpmn.generator.algo.ConnectedComponentsLayouter.SortedLayout;
 import io.process.analytics.tools.bpmn.generator.algo.ShapeLayouter;
 import io.process.analytics.tools.bpmn.generator.algo.ShapeSorter;
+import io.process.analytics.tools.bpmn.generator.converter.BpmnStreamToAlgoModelConverter;
 import io.process.analytics.tools.bpmn.generator.converter.BpmnToAlgoModelConverter;
 import io.process.analytics.tools.bpmn.generator.export.ASCIIExporter;
 import io.process.analytics.tools.bpmn.generator.export.SVGExporter;
 import io.process.analytics.tools.bpmn.generator.input.CSVtoBPMN;
 import io.process.analytics.tools.bpmn.generator.internal.BpmnInOut;
+import io.process.analytics.tools.bpmn.generator.internal.FileUtils;
 import io.process.analytics.tools.bpmn.generator.internal.generated.model.TDefinitions;
 import io.process.analytics.tools.bpmn.generator.model.Diagram;
 import io.process.analytics.tools.bpmn.generator.model.Grid;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import lombok.extern.log4j.Log4j2;
 
 @Log4j2
@@ -28,15 +46,63 @@ public class BPMNLayoutGenerator {
     }
 
     protected final BpmnInOut bpmnInOut = defaultBpmnInOut();
+    private final BpmnInOut compactBpmnOut = compactBpmnInOut();
+    private ConnectedComponentsLayouter layouter = newLayouter(0);
+    /**
+     * Share the SVG styles in CSS classes and draw the arrows with a marker, instead of repeating them on each element.
+     */
+    @Setter
+    private boolean compactSvg;
+    /**
+     * Render the flow nodes and edges of large diagrams in parallel when exporting to SVG. The output is the same.
+     */
+    @Setter
+    private boolean parallelSvg;
+    /**
+     * Read the BPMN input with a streaming parser, which only keeps the flow nodes and sequence flows of the processes.
+     * Only used for the SVG and ASCII exports, the BPMN export needs the whole semantic part.
+     */
+    @Setter
+    private boolean streamBpmnInput;
+    /**
+     * Write the generated BPMN diagram with a streaming writer, without building its JAXB objects. Only used when
+     * exporting to a stream. The output is the same.
+     */
+    @Setter
+    private boolean streamBpmnOutput;
+    /**
+     * Write the BPMN export without indentation, which makes large diagrams about a third smaller.
+     */
+    @Setter
+    private boolean compactBpmn;
+    /**
+     * Compress with gzip the exports written to a stream.
+     */
+    @Setter
+    private boolean gzipOutput;
 
 
     /*
        Public methods
      */
 
+    /**
+     * Keep the layouts of the processes, so a process is not laid out again while it doesn't change, e.g. when a
+     * long-lived generator lays out the same collaboration after a change of one of its pools. Disabled by default.
+     *
+     * @param maxShapes maximum number of shapes of the layouts kept, 0 to disable the cache
+     */
+    public void setLayoutCacheShapes(int maxShapes) {
+        layouter = newLayouter(maxShapes);
+    }
+
+    private static ConnectedComponentsLayouter newLayouter(int maxCachedShapes) {
+        return new ConnectedComponentsLayouter(new ShapeSorter(), new ShapeLayouter(), ForkJoinPool.commonPool(),
+                maxCachedShapes);
+    }
+
     public String generateLayoutFromBPMNSemantic(String bpmn, ExportType exportType) {
-        TDefinitions tDefinitions = bpmnInOut.readFromBpmn(bpmn);
-        LayoutSortedDiagram layout = layout(tDefinitions);
+        LayoutSortedDiagram layout = layoutFromBPMNSemantic(bpmn, exportType);
         return export(layout, exportType);
     }
 
@@ -46,22 +112,96 @@ public class BPMNLayoutGenerator {
         return export(layout, exportType);
     }
 
+    /**
+     * Write the generated layout as UTF-8 to the stream, which is flushed but not closed. The SVG export is streamed, so
+     * it is never fully held in memory.
+     */
+    public void generateLayoutFromBPMNSemantic(String bpmn, ExportType exportType, OutputStream output) throws IOException {
+        LayoutSortedDiagram layout = layoutFromBPMNSemantic(bpmn, exportType);
+        export(layout, exportType, output);
+    }
+
+    /**
+     * Parse the bytes of the BPMN file, without building its content as a String. Large files are memory-mapped, and
+     * files whose name ends with .gz are decompressed.
+     *
+     * @see #generateLayoutFromBPMNSemantic(String, ExportType, OutputStream)
+     */
+    public void generateLayoutFromBPMNSemantic(Path bpmn, ExportType exportType, OutputStream output) throws IOException {
+        try (InputStream input = FileUtils.newInputStream(bpmn)) {
+            generateLayoutFromBPMNSemantic(input, exportType, output);
+        }
+    }
+
+    /**
+     * @param bpmn read until its end, its encoding is detected from its content. The stream is not closed.
+     * @see #generateLayoutFromBPMNSemantic(String, ExportType, OutputStream)
+     */
+    public void generateLayoutFromBPMNSemantic(InputStream bpmn, ExportType exportType, OutputStream output) throws IOException {
+        LayoutSortedDiagram layout = layoutFromBPMNSemantic(bpmn, exportType);
+        export(layout, exportType, output);
+    }
+
+    /**
+     * @param bpmn read until its end, the channel is not closed
+     * @see #generateLayoutFromBPMNSemantic(String, ExportType, OutputStream)
+     */
+    public void generateLayoutFromBPMNSemantic(ReadableByteChannel bpmn, ExportType exportType, OutputStream output) throws IOException {
+        generateLayoutFromBPMNSemantic(Channels.newInputStream(bpmn), exportType, output);
+    }
+
+    /**
+     * @see #generateLayoutFromBPMNSemantic(String, ExportType, OutputStream)
+     */
+    public void generateLayoutFromCSV(String nodes, String edges, ExportType exportType, OutputStream output) throws IOException {
+        TDefinitions tDefinitions = new CSVtoBPMN().readFromCSV(nodes, edges);
+        LayoutSortedDiagram layout = layout(tDefinitions);
+        export(layout, exportType, output);
+    }
+
 
     /*
        BPMN --> Diagram
      */
 
+    private LayoutSortedDiagram layoutFromBPMNSemantic(String bpmn, ExportType exportType) {
+        if (readWithStreamParser(exportType)) {
+            log.info("Reading BPMN into internal model");
+            List<Diagram> processDiagrams = new BpmnStreamToAlgoModelConverter().toAlgoModelByProcess(bpmn);
+            log.info("Reading done");
+            // the original definitions are only used by the BPMN export
+            return layout(null, processDiagrams);
+        }
+        return layout(bpmnInOut.readFromBpmn(bpmn));
+    }
+
+    private LayoutSortedDiagram layoutFromBPMNSemantic(InputStream bpmn, ExportType exportType) {
+        if (readWithStreamParser(exportType)) {
+            log.info("Reading BPMN into internal model");
+            List<Diagram> processDiagrams = new BpmnStreamToAlgoModelConverter().toAlgoModelByProcess(bpmn);
+            log.info("Reading done");
+            return layout(null, processDiagrams);
+        }
+        return layout(bpmnInOut.readFromBpmn(bpmn));
+    }
+
+    private boolean readWithStreamParser(ExportType exportType) {
+        return streamBpmnInput && exportType != ExportType.BPMN;
+    }
+
     private LayoutSortedDiagram layout(TDefinitions definitions) {
         log.info("Converting BPMN into internal model");
-        Diagram diagram = new BpmnToAlgoModelConverter().toAlgoModel(definitions);
+        List<Diagram> processDiagrams = new BpmnToAlgoModelConverter().toAlgoModelByProcess(definitions);
         log.info("Conversion done");
+        return layout(definitions, processDiagrams);
+    }
 
-        log.info("Sorting and generating Layout");
-        Diagram sortedDiagram = new ShapeSorter().sort(diagram);
-        Grid grid = new ShapeLayouter().layout(sortedDiagram);
+    private LayoutSortedDiagram layout(TDefinitions definitions, List<Diagram> processDiagrams) {
+        log.info("Sorting and generating Layout of {} process(es)", processDiagrams.size());
+        SortedLayout layout = layouter.layoutInBands(processDiagrams);
         log.info("Sort and Layout done");
 
-        return new LayoutSortedDiagram(definitions, grid, sortedDiagram);
+        return new LayoutSortedDiagram(definitions, layout.getGrid(), layout.getDiagram());
     }
 
 
@@ -79,12 +219,16 @@ public class BPMNLayoutGenerator {
     protected String exportToBpmn(LayoutSortedDiagram diagram) {
         log.info("Exporting to BPMN");
         TDefinitions newDefinitions = defaultBpmnExporter().export(diagram.originalDefinitions, diagram.grid, diagram.diagram);
-        return bpmnInOut.writeToBpmn(newDefinitions);
+        return (compactBpmn ? compactBpmnOut : bpmnInOut).writeToBpmn(newDefinitions);
     }
 
     private String exportToSvg(LayoutSortedDiagram diagram) {
         log.info("Exporting to SVG");
-        return new SVGExporter().export(diagram.getGrid(), diagram.getDiagram());
+        return newSvgExporter().export(diagram.getGrid(), diagram.getDiagram());
+    }
+
+    private SVGExporter newSvgExporter() {
+        return new SVGExporter(compactSvg, parallelSvg ? ForkJoinPool.commonPool() : null);
     }
 
 
@@ -97,6 +241,31 @@ public class BPMNLayoutGenerator {
         };
     }
 
+    private void export(LayoutSortedDiagram layout, ExportType exportType, OutputStream output) throws IOException {
+        if (gzipOutput) {
+            GZIPOutputStream gzip = new GZIPOutputStream(output, GZIP_BUFFER_SIZE);
+            exportUncompressed(layout, exportType, gzip);
+            // the stream is not closed, only the end of the gzip format is written
+            gzip.finish();
+            output.flush();
+        } else {
+            exportUncompressed(layout, exportType, output);
+        }
+    }
+
+    private void exportUncompressed(LayoutSortedDiagram layout, ExportType exportType, OutputStream output) throws IOException {
+        if (exportType == ExportType.SVG) {
+            log.info("Exporting to SVG");
+            newSvgExporter().export(layout.getGrid(), layout.getDiagram(), output);
+        } else if (exportType == ExportType.BPMN && streamBpmnOutput) {
+            log.info("Exporting to BPMN");
+            defaultBpmnExporter().export(layout.originalDefinitions, layout.grid, layout.diagram, !compactBpmn, output);
+        } else {
+            output.write(export(layout, exportType).getBytes(StandardCharsets.UTF_8));
+            output.flush();
+        }
+    }
+
     @RequiredArgsConstructor
     @Getter
     // TODO switch to record
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2026 Bonitasoft S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.process.analytics.tools.bpmn.generator;
+
+import static java.lang.String.format;
+import static java.util.stream.Collectors.toList;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import io.process.analytics.tools.bpmn.generator.BPMNLayoutGenerator.ExportType;
+import io.process.analytics.tools.bpmn.generator.internal.FileUtils;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Lay out the BPMN files of a directory in a single JVM, on a pool of workers sharing the same generator, so the JVM
+ * startup and the initialization of JAXB are only paid once.
+ *
+ * A status line is printed for each file as soon as it is done, then a summary with the throughput and the latencies.
+ * A file that fails is reported and doesn't stop the others.
+ */
+@RequiredArgsConstructor
+class BatchLayout {
+
+    // duration of the files that failed
+    private static final long FAILED = -1;
+
+    private final BPMNLayoutGenerator generator;
+    private final ExportType exportType;
+    private final int workers;
+    private final PrintStream out;
+
+    /**
+     * @param glob matched against the paths of the files relative to the input directory, e.g. <code>*.bpmn</code> for
+     *            the files of the input directory only, or <code>**.bpmn</code> for those of its sub-directories too
+     * @param outputDir the outputs keep the relative paths of the inputs
+     * @return the number of files that failed
+     */
+    int run(Path inputDir, String glob, Path outputDir) throws IOException, InterruptedException {
+        PathMatcher matcher = inputDir.getFileSystem().getPathMatcher("glob:" + glob);
+        List<Path> inputs;
+        try (Stream<Path> files = Files.walk(inputDir)) {
+            inputs = files.filter(Files::isRegularFile)
+                    .map(inputDir::relativize)
+                    .filter(matcher::matches)
+                    .sorted()
+                    .collect(toList());
+        }
+
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        long[] durations = new long[inputs.size()];
+        try {
+            List<Future<Long>> results = new ArrayList<>(inputs.size());
+            for (Path input : inputs) {
+                results.add(executor.submit(() -> layout(inputDir, input, outputDir)));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                durations[i] = results.get(i).get();
+            }
+        } catch (ExecutionException e) {
+            // the failures of the layouts are already caught, so this is unexpected
+            throw new IllegalStateException("Unable to lay out the files", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        long[] succeeded = Arrays.stream(durations).filter(duration -> duration != FAILED).sorted().toArray();
+        int failures = inputs.size() - succeeded.length;
+        double seconds = elapsed / 1e9;
+        out.println(format(Locale.ROOT, "Laid out %d file(s), %d failed, in %.1f s: %.1f files/s, latency p50 %d ms, p99 %d ms",
+                inputs.size(), failures, seconds, inputs.size() / Math.max(seconds, 1e-9),
+                millis(percentile(succeeded, 50)), millis(percentile(succeeded, 99))));
+        return failures;
+    }
+
+    /**
+     * @return the duration of the layout, or {@link #FAILED}
+     */
+    private long layout(Path inputDir, Path input, Path outputDir) {
+        long start = System.nanoTime();
+        Path outputFile = outputDir.resolve(outputPath(input));
+        try {
+            FileUtils.writeAtomically(outputFile, FileUtils.isGzip(outputFile),
+                    output -> generator.generateLayoutFromBPMNSemantic(inputDir.resolve(input), exportType, output));
+            long duration = System.nanoTime() - start;
+            out.println(format("OK     %s (%d ms)", input, millis(duration)));
+            return duration;
+        } catch (Exception e) {
+            out.println(format("FAILED %s: %s", input, describe(e)));
+            return FAILED;
+        }
+    }
+
+    /**
+     * The BPMN output has the name of the input, and is compressed if the input is. The other outputs have the name of
+     * the decompressed input followed by their own extension.
+     */
+    private Path outputPath(Path input) {
+        if (exportType == ExportType.BPMN) {
+            return input;
+        }
+        String name = input.getFileName().toString();
+        if (FileUtils.isGzip(input)) {
+            name = name.substring(0, name.length() - ".gz".length());
+        }
+        return input.resolveSibling(name + (exportType == ExportType.SVG ? ".svg" : ".txt"));
+    }
+
+    // the messages of the wrapping exceptions are usually generic, e.g. "Unable to unmarshal"
+    static String describe(Exception e) {
+        if (e instanceof NoSuchFileException) {
+            return "File not found: " + e.getMessage();
+        }
+        Throwable rootCause = e;
+        while (rootCause.getCause() != null && rootCause.getCause() != rootCause) {
+            rootCause = rootCause.getCause();
+        }
+        if (rootCause == e || rootCause.getMessage() == null) {
+            return String.valueOf(e.getMessage());
+        }
+        return e.getMessage() + ": " + rootCause.getMessage();
+    }
+
+    /**
+     * @param sortedValues in ascending order
+     * @return the nearest-rank percentile, 0 when there is no value
+     */
+    static long percentile(long[] sortedValues, int percent) {
+        if (sortedValues.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percent / 100.0 * sortedValues.length);
+        return sortedValues[Math.max(rank, 1) - 1];
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+}
@@ -0,0 +1,397 @@
+/*
+ * Copyright 2026 Bonitasoft S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.process.analytics.tools.bpmn.generator;
+
+import static java.lang.String.format;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import io.process.analytics.tools.bpmn.generator.BPMNLayoutGenerator.ExportType;
+import io.process.analytics.tools.bpmn.generator.input.InvalidInputException;
+import io.process.analytics.tools.bpmn.generator.internal.JaxbPool;
+import io.process.analytics.tools.bpmn.generator.internal.XmlParser;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Serve the layouts over HTTP, with the HTTP server of the JDK, so it runs without any other dependency.
+ * <ul>
+ *     <li><code>POST /layout</code>: lay out the BPMN of the request body or, when its content type is
+ *     <code>text/csv</code>, the nodes CSV followed by an empty line and the edges CSV. The output type is chosen from the
+ *     Accept header: <code>application/xml</code> (the default) for BPMN, <code>image/svg+xml</code> for SVG and
+ *     <code>text/plain</code> for ASCII</li>
+ *     <li><code>GET /metrics</code>: the counters of the server, in the Prometheus text format</li>
+ * </ul>
+ * At most <code>maxConcurrentLayouts</code> requests are laid out at the same time, the others are rejected with a 503
+ * status rather than queued, so the clients can retry elsewhere. The requests larger than <code>maxRequestSize</code>
+ * are rejected with a 413 status, and those not laid out within <code>requestTimeout</code> get a 504 status. The body
+ * is read once the request got a permit, within the same timeout: the clients that don't send it in time are
+ * disconnected.
+ * <p>
+ * An input that can't be read gets a 400 status with the reason, any other failure a 500 status, and is logged.
+ */
+@Log4j2
+class HttpLayoutServer {
+
+    static final String LAYOUT_PATH = "/layout";
+    static final String METRICS_PATH = "/metrics";
+
+    private static final Map<String, ExportType> MEDIA_TYPES = Map.of(
+            "application/xml", ExportType.BPMN,
+            "text/xml", ExportType.BPMN,
+            "application/bpmn+xml", ExportType.BPMN,
+            "application/*", ExportType.BPMN,
+            "*/*", ExportType.BPMN,
+            "image/svg+xml", ExportType.SVG,
+            "image/*", ExportType.SVG,
+            "text/plain", ExportType.ASCII);
+    private static final Map<ExportType, String> CONTENT_TYPES = Map.of(
+            ExportType.BPMN, "application/xml; charset=UTF-8",
+            ExportType.SVG, "image/svg+xml; charset=UTF-8",
+            ExportType.ASCII, "text/plain; charset=UTF-8");
+    private static final String TEXT = "text/plain; charset=UTF-8";
+
+    private final BPMNLayoutGenerator generator;
+    private final int maxConcurrentLayouts;
+    private final int maxRequestSize;
+    private final Duration requestTimeout;
+
+    private final Semaphore permits;
+    private final ExecutorService executor = newExecutor();
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private HttpServer server;
+
+    // metrics
+    private final Map<Integer, LongAdder> responses = new ConcurrentHashMap<>();
+    private final LongAdder requestBytes = new LongAdder();
+    private final LongAdder uploadTimeouts = new LongAdder();
+    private final LongAdder layouts = new LongAdder();
+    private final LongAdder layoutNanos = new LongAdder();
+
+    /**
+     * @param maxRequestSize in bytes
+     */
+    HttpLayoutServer(BPMNLayoutGenerator generator, int maxConcurrentLayouts, int maxRequestSize, Duration requestTimeout) {
+        this.generator = generator;
+        this.maxConcurrentLayouts = maxConcurrentLayouts;
+        this.maxRequestSize = maxRequestSize;
+        this.requestTimeout = requestTimeout;
+        this.permits = new Semaphore(maxConcurrentLayouts);
+    }
+
+    /**
+     * Use a virtual thread per request when the JVM provides them (Java 21+), otherwise a thread pool. The number of
+     * threads is not the limit of the concurrent layouts: the requests exceeding it are rejected before their body is
+     * read.
+     */
+    private static ExecutorService newExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    /**
+     * @param address the port 0 binds to any free port
+     * @return the address the server is bound to
+     */
+    InetSocketAddress start(InetSocketAddress address) throws IOException {
+        server = HttpServer.create(address, 0);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+        return server.getAddress();
+    }
+
+    /**
+     * @param delaySeconds to let the requests in progress complete
+     */
+    void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdownNow();
+        stopped.countDown();
+    }
+
+    void awaitStop() throws InterruptedException {
+        stopped.await();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getPath();
+            if (LAYOUT_PATH.equals(path)) {
+                if (allowed(exchange, "POST")) {
+                    layout(exchange);
+                }
+            } else if (METRICS_PATH.equals(path)) {
+                if (allowed(exchange, "GET")) {
+                    send(exchange, 200, "text/plain; version=0.0.4; charset=UTF-8", metrics());
+                }
+            } else {
+                send(exchange, 404, TEXT, "Not found: " + path);
+            }
+        }
+    }
+
+    private boolean allowed(HttpExchange exchange, String method) throws IOException {
+        if (method.equals(exchange.getRequestMethod())) {
+            return true;
+        }
+        exchange.getResponseHeaders().set("Allow", method);
+        send(exchange, 405, TEXT, "Expected a " + method + " request");
+        return false;
+    }
+
+    private void layout(HttpExchange exchange) throws IOException {
+        ExportType exportType = exportType(exchange.getRequestHeaders().getFirst("Accept"));
+        if (exportType == null) {
+            send(exchange, 406, TEXT, "Expected an Accept header with application/xml, image/svg+xml or text/plain");
+            return;
+        }
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        boolean csv = contentType != null && contentType.toLowerCase(Locale.ROOT).startsWith("text/csv");
+        String contentLength = exchange.getRequestHeaders().getFirst("Content-Length");
+        long declaredLength = declaredLength(contentLength);
+        if (declaredLength < -1) {
+            send(exchange, 400, TEXT, "Invalid Content-Length: " + contentLength);
+            return;
+        }
+        if (declaredLength > maxRequestSize) {
+            sendTooLarge(exchange);
+            return;
+        }
+        // before reading the body, so the memory held by the bodies is bounded by the permits
+        if (!permits.tryAcquire()) {
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            send(exchange, 503, TEXT, "Already laying out " + maxConcurrentLayouts + " request(s)");
+            return;
+        }
+
+        AtomicBoolean bodyRead = new AtomicBoolean();
+        Future<byte[]> layout;
+        try {
+            layout = executor.submit(() -> {
+                try {
+                    byte[] body = readBody(exchange);
+                    bodyRead.set(true);
+                    if (body == null) {
+                        return null;
+                    }
+                    long start = System.nanoTime();
+                    try {
+                        return layout(body, csv, exportType);
+                    } finally {
+                        layoutNanos.add(System.nanoTime() - start);
+                        layouts.increment();
+                    }
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // the server is stopping
+            permits.release();
+            send(exchange, 503, TEXT, "The server is stopping");
+            return;
+        }
+        try {
+            // the timeout covers the upload of the body too
+            byte[] output = layout.get(requestTimeout.toNanos(), TimeUnit.NANOSECONDS);
+            if (output == null) {
+                sendTooLarge(exchange);
+            } else {
+                send(exchange, 200, CONTENT_TYPES.get(exportType), output);
+            }
+        } catch (TimeoutException e) {
+            if (!bodyRead.get()) {
+                // the JDK server reads what is left of the body before completing a response, so the slow client is
+                // disconnected instead, which also ends the read and releases the permit
+                uploadTimeouts.increment();
+                exchange.close();
+                return;
+            }
+            // the layout can't be interrupted, it goes on and keeps its permit until it is done, so the limit of the
+            // concurrent layouts holds
+            send(exchange, 504, TEXT, "The layout took more than " + requestTimeout.toMillis() + " ms");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (!bodyRead.get()) {
+                send(exchange, 400, TEXT, "Unable to read the request body: " + cause.getMessage());
+            } else if (cause instanceof InvalidInputException) {
+                send(exchange, 400, TEXT, BatchLayout.describe((InvalidInputException) cause));
+            } else {
+                log.error("Unable to lay out the request", cause);
+                send(exchange, 500, TEXT, "Unable to lay out the request, see the logs of the server");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            send(exchange, 503, TEXT, "The server is stopping");
+        }
+    }
+
+    private void sendTooLarge(HttpExchange exchange) throws IOException {
+        send(exchange, 413, TEXT, "Expected a request body of at most " + maxRequestSize + " bytes");
+    }
+
+    /**
+     * @return the length, -1 when it is not declared and -2 when it is not a valid length
+     */
+    static long declaredLength(String contentLength) {
+        if (contentLength == null) {
+            return -1;
+        }
+        try {
+            long length = Long.parseLong(contentLength.trim());
+            return length < 0 ? -2 : length;
+        } catch (NumberFormatException e) {
+            return -2;
+        }
+    }
+
+    /**
+     * @return the body, or null when it is larger than the maximum size
+     */
+    private byte[] readBody(HttpExchange exchange) throws IOException {
+        // the declared length is checked before, the read is limited too as the body may be chunked
+        try (InputStream input = exchange.getRequestBody()) {
+            byte[] body = input.readNBytes(maxRequestSize == Integer.MAX_VALUE ? maxRequestSize : maxRequestSize + 1);
+            if (body.length > maxRequestSize) {
+                return null;
+            }
+            requestBytes.add(body.length);
+            return body;
+        }
+    }
+
+    private byte[] layout(byte[] body, boolean csv, ExportType exportType) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        if (csv) {
+            String[] nodesAndEdges = new String(body, StandardCharsets.UTF_8).split("\\r?\\n\\s*\\r?\\n", 2);
+            if (nodesAndEdges.length != 2) {
+                throw new InvalidInputException("Expected the nodes CSV, an empty line then the edges CSV");
+            }
+            generator.generateLayoutFromCSV(nodesAndEdges[0], nodesAndEdges[1], exportType, output);
+        } else {
+            generator.generateLayoutFromBPMNSemantic(new ByteArrayInputStream(body), exportType, output);
+        }
+        return output.toByteArray();
+    }
+
+    /**
+     * @param accept the media types of the header, possibly with their quality e.g. <code>image/svg+xml;q=0.9</code>
+     * @return the export type of the accepted media type with the highest quality, BPMN without header, or null when
+     * none is supported
+     */
+    static ExportType exportType(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return ExportType.BPMN;
+        }
+        ExportType exportType = null;
+        double bestQuality = 0;
+        for (String mediaRange : accept.split(",")) {
+            String[] parameters = mediaRange.split(";");
+            double quality = 1;
+            for (int i = 1; i < parameters.length; i++) {
+                String parameter = parameters[i].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2));
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            ExportType accepted = MEDIA_TYPES.get(parameters[0].trim().toLowerCase(Locale.ROOT));
+            if (accepted != null && quality > bestQuality) {
+                exportType = accepted;
+                bestQuality = quality;
+            }
+        }
+        return exportType;
+    }
+
+    String metrics() {
+        StringBuilder metrics = new StringBuilder();
+        metrics.append("# TYPE bpmn_layout_http_responses_total counter\n");
+        new TreeMap<>(responses).forEach((status, count) -> metrics.append(
+                format("bpmn_layout_http_responses_total{code=\"%d\"} %d\n", status, count.sum())));
+        metrics.append("# TYPE bpmn_layout_http_request_bytes_total counter\n")
+                .append(format("bpmn_layout_http_request_bytes_total %d\n", requestBytes.sum()));
+        metrics.append("# TYPE bpmn_layout_http_upload_timeouts_total counter\n")
+                .append(format("bpmn_layout_http_upload_timeouts_total %d\n", uploadTimeouts.sum()));
+        metrics.append("# TYPE bpmn_layout_in_progress gauge\n")
+                .append(format("bpmn_layout_in_progress %d\n", maxConcurrentLayouts - permits.availablePermits()));
+        metrics.append("# TYPE bpmn_layout_max_concurrent gauge\n")
+                .append(format("bpmn_layout_max_concurrent %d\n", maxConcurrentLayouts));
+        metrics.append("# TYPE bpmn_layout_duration_seconds summary\n")
+                .append(format("bpmn_layout_duration_seconds_count %d\n", layouts.sum()))
+                .append(format(Locale.ROOT, "bpmn_layout_duration_seconds_sum %.6f\n", layoutNanos.sum() / 1e9));
+        appendPoolMetrics(metrics, "marshaller", XmlParser.marshallerStats());
+        appendPoolMetrics(metrics, "unmarshaller", XmlParser.unmarshallerStats());
+        return metrics.toString();
+    }
+
+    private static void appendPoolMetrics(StringBuilder metrics, String pool, JaxbPool.Stats stats) {
+        metrics.append(format("# TYPE bpmn_layout_jaxb_%s_pool_hits_total counter\n", pool))
+                .append(format("bpmn_layout_jaxb_%s_pool_hits_total %d\n", pool, stats.getHits()))
+                .append(format("# TYPE bpmn_layout_jaxb_%s_pool_misses_total counter\n", pool))
+                .append(format("bpmn_layout_jaxb_%s_pool_misses_total %d\n", pool, stats.getMisses()))
+                .append(format("# TYPE bpmn_layout_jaxb_%s_pool_idle gauge\n", pool))
+                .append(format("bpmn_layout_jaxb_%s_pool_idle %d\n", pool, stats.getIdle()));
+    }
+
+    private void send(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        send(exchange, status, contentType, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void send(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        responses.computeIfAbsent(status, key -> new LongAdder()).increment();
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        // -1: no body, 0 would be a chunked one
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        if (body.length > 0) {
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(body);
+            }
+        }
+    }
+
+}
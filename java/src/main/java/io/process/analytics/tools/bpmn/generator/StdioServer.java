@@ -0,0 +1,182 @@
+/*
+ * Copyright 2026 Bonitasoft S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.process.analytics.tools.bpmn.generator;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import io.process.analytics.tools.bpmn.generator.BPMNLayoutGenerator.ExportType;
+import io.process.analytics.tools.bpmn.generator.internal.FileUtils;
+import io.process.analytics.tools.bpmn.generator.internal.FlatJson;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Lay out the diagrams of the jobs read from an input, one JSON object per line, and write a JSON result line for each
+ * of them, so another process can use a single JVM for all its layouts.
+ *
+ * A job has the following fields, only the input is mandatory:
+ * <ul>
+ *     <li><code>id</code>: returned with the result, to correlate it with its job</li>
+ *     <li><code>inputType</code>: BPMN (default) or CSV</li>
+ *     <li><code>outputType</code>: BPMN (default), SVG or ASCII</li>
+ *     <li><code>input</code> the path of the BPMN file, or <code>content</code> the BPMN itself. For the CSV input type,
+ *     <code>nodes</code> and <code>edges</code> the paths of the CSV files, or <code>nodesContent</code> and
+ *     <code>edgesContent</code> the CSV themselves</li>
+ *     <li><code>output</code>: path of the file to write, compressed when its name ends with .gz. When there is no output
+ *     file, the layout is returned in the <code>result</code> field of the result</li>
+ * </ul>
+ * The result has the <code>id</code> of the job, a <code>status</code> which is ok or error, the <code>output</code>
+ * file or the <code>result</code>, the <code>error</code> message, and the <code>durationMs</code> of the job.
+ *
+ * The jobs are processed on a pool of workers, so the results are written in their order of completion.
+ */
+@RequiredArgsConstructor
+class StdioServer {
+
+    private final BPMNLayoutGenerator generator;
+    private final int workers;
+    private final BufferedReader in;
+    private final PrintStream out;
+
+    /**
+     * Process the jobs until the end of the input, then wait for the running ones to be done.
+     */
+    void serve() throws IOException, InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        // don't read the jobs too far ahead of the workers, which would keep them all in memory
+        Semaphore pendingJobs = new Semaphore(workers * 2);
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                pendingJobs.acquire();
+                String job = line;
+                executor.execute(() -> {
+                    try {
+                        String result = process(job);
+                        synchronized (out) {
+                            out.println(result);
+                            out.flush();
+                        }
+                    } finally {
+                        pendingJobs.release();
+                    }
+                });
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * @return the result line of the job, never failing
+     */
+    String process(String job) {
+        long start = System.nanoTime();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("id", null);
+        try {
+            Map<String, Object> fields = FlatJson.parse(job);
+            result.put("id", fields.get("id"));
+            run(fields, result);
+        } catch (Exception e) {
+            result.put("status", "error");
+            result.put("error", BatchLayout.describe(e));
+        }
+        result.put("durationMs", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return FlatJson.write(result);
+    }
+
+    private void run(Map<String, Object> job, Map<String, Object> result) throws IOException {
+        String inputType = field(job, "inputType", "BPMN").toUpperCase(Locale.ROOT);
+        ExportType exportType = exportType(field(job, "outputType", "BPMN"));
+        String outputFile = field(job, "output", null);
+
+        ByteArrayOutputStream inlineOutput = new ByteArrayOutputStream();
+        if (outputFile == null) {
+            layout(job, inputType, exportType, inlineOutput);
+        } else {
+            Path outputPath = Path.of(outputFile);
+            FileUtils.writeAtomically(outputPath, FileUtils.isGzip(outputPath),
+                    output -> layout(job, inputType, exportType, output));
+        }
+
+        result.put("status", "ok");
+        if (outputFile != null) {
+            result.put("output", outputFile);
+        } else {
+            result.put("result", inlineOutput.toString(StandardCharsets.UTF_8));
+        }
+    }
+
+    private void layout(Map<String, Object> job, String inputType, ExportType exportType, OutputStream output) throws IOException {
+        switch (inputType) {
+            case "BPMN" -> {
+                String content = field(job, "content", null);
+                if (content != null) {
+                    generator.generateLayoutFromBPMNSemantic(content, exportType, output);
+                } else {
+                    generator.generateLayoutFromBPMNSemantic(Path.of(requiredField(job, "input")), exportType, output);
+                }
+            }
+            case "CSV" -> generator.generateLayoutFromCSV(csv(job, "nodes"), csv(job, "edges"), exportType, output);
+            default -> throw new IllegalArgumentException("Unexpected input type: " + inputType);
+        }
+    }
+
+    private static String csv(Map<String, Object> job, String name) throws IOException {
+        String content = field(job, name + "Content", null);
+        return content != null ? content : FileUtils.fileContent(new File(requiredField(job, name)));
+    }
+
+    private static ExportType exportType(String outputType) {
+        try {
+            return ExportType.valueOf(outputType.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unexpected output type: " + outputType);
+        }
+    }
+
+    private static String field(Map<String, Object> job, String name, String defaultValue) {
+        Object value = job.get(name);
+        return value == null ? defaultValue : value.toString();
+    }
+
+    private static String requiredField(Map<String, Object> job, String name) {
+        String value = field(job, name, null);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing field: " + name);
+        }
+        return value;
+    }
+
+}
@@ -0,0 +1,331 @@
+/*
+ * Copyright 2026 Bonitasoft S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.process.analytics.tools.bpmn.generator.algo;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.stream.IntStream;
+
+import io.process.analytics.tools.bpmn.generator.model.Diagram;
+import io.process.analytics.tools.bpmn.generator.model.Edge;
+import io.process.analytics.tools.bpmn.generator.model.Grid;
+import io.process.analytics.tools.bpmn.generator.model.Position;
+import io.process.analytics.tools.bpmn.generator.model.Shape;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Sort and layout a diagram, each group of shapes linked together being handled separately.
+ *
+ * The diagram is split into its weakly connected components. They are sorted and laid out in parallel, then their grids
+ * are stacked vertically in the order of their first shape in the diagram, so the result does not depend on the
+ * scheduling. A diagram made of a single component is sorted and laid out as a whole, in the calling thread.
+ *
+ * Several diagrams, e.g. the processes of a collaboration, can also be laid out together: each one is laid out in
+ * parallel and placed in its own horizontal band. The layouts of these diagrams can be cached, so an unchanged
+ * diagram is not laid out again when one of the others changes. The cache is keyed by a digest of the content of the
+ * diagrams and keeps a copy of their layouts, so neither the diagrams given nor the layouts returned can alter it.
+ */
+@Log4j2
+public class ConnectedComponentsLayouter {
+
+    private final ShapeSorter shapeSorter;
+    private final ShapeLayouter shapeLayouter;
+    private final ForkJoinPool pool;
+    private final LayoutCache cachedLayouts;
+
+    public ConnectedComponentsLayouter() {
+        this(new ShapeSorter(), new ShapeLayouter(), ForkJoinPool.commonPool());
+    }
+
+    public ConnectedComponentsLayouter(ShapeSorter shapeSorter, ShapeLayouter shapeLayouter, ForkJoinPool pool) {
+        this(shapeSorter, shapeLayouter, pool, 0);
+    }
+
+    /**
+     * @param maxCachedShapes maximum number of shapes of the layouts kept in cache by {@link #layoutInBands(List)}, 0 to
+     *            disable the cache
+     */
+    public ConnectedComponentsLayouter(ShapeSorter shapeSorter, ShapeLayouter shapeLayouter, ForkJoinPool pool, int maxCachedShapes) {
+        this.shapeSorter = shapeSorter;
+        this.shapeLayouter = shapeLayouter;
+        this.pool = pool;
+        cachedLayouts = new LayoutCache(maxCachedShapes);
+    }
+
+    /**
+     * Layout each diagram independently and stack them, each one in its own horizontal band.
+     *
+     * @param diagrams to layout, in the order of the bands
+     * @return the shapes and edges of all the diagrams, sorted, and the grid containing all the bands
+     */
+    public SortedLayout layoutInBands(List<Diagram> diagrams) {
+        if (diagrams.size() == 1) {
+            return layoutWithCache(diagrams.get(0));
+        }
+        List<ForkJoinTask<SortedLayout>> tasks = submitLargestFirst(diagrams, ConnectedComponentsLayouter::size, this::layoutWithCache);
+        Diagram.DiagramBuilder sortedDiagram = Diagram.builder();
+        Grid grid = new Grid();
+        for (ForkJoinTask<SortedLayout> task : tasks) {
+            SortedLayout layout = join(task);
+            sortedDiagram.shapes(layout.diagram.getShapes());
+            sortedDiagram.edges(layout.diagram.getEdges());
+            addBelow(grid, layout.grid);
+        }
+        return new SortedLayout(sortedDiagram.build(), grid);
+    }
+
+    private SortedLayout layoutWithCache(Diagram diagram) {
+        if (!cachedLayouts.isEnabled()) {
+            return layout(diagram);
+        }
+        String key = LayoutCache.key(diagram);
+        CachedLayout cachedLayout = cachedLayouts.get(key);
+        if (cachedLayout == null) {
+            SortedLayout layout = layout(diagram);
+            cachedLayouts.put(key, new CachedLayout(layout));
+            return layout;
+        }
+        return cachedLayout.toSortedLayout();
+    }
+
+    public SortedLayout layout(Diagram diagram) {
+        DiagramGraph graph = DiagramGraph.of(diagram);
+        WeaklyConnectedComponents components = WeaklyConnectedComponents.of(graph);
+        List<Component> componentsWithShapes = splitIntoComponents(graph, components);
+        if (componentsWithShapes.size() <= 1) {
+            return layoutComponent(diagram);
+        }
+        log.debug("Laying out {} components", componentsWithShapes.size());
+
+        List<ForkJoinTask<SortedLayout>> tasks = submitLargestFirst(componentsWithShapes, Component::size,
+                component -> layoutComponent(component.diagram));
+
+        Diagram.DiagramBuilder sortedDiagram = Diagram.builder();
+        Edge[] sortedEdges = new Edge[graph.edgeCount()];
+        Grid grid = new Grid();
+        for (int i = 0; i < componentsWithShapes.size(); i++) {
+            Component component = componentsWithShapes.get(i);
+            SortedLayout layout = join(tasks.get(i));
+            sortedDiagram.shapes(layout.diagram.getShapes());
+            Iterator<Edge> edges = layout.diagram.getEdges().iterator();
+            for (int e : component.edges) {
+                sortedEdges[e] = edges.next();
+            }
+            addBelow(grid, layout.grid);
+        }
+        for (int e = 0; e < sortedEdges.length; e++) {
+            // edges between unknown shapes are not part of any laid out component
+            sortedDiagram.edge(sortedEdges[e] == null ? graph.edge(e) : sortedEdges[e]);
+        }
+        return new SortedLayout(sortedDiagram.build(), grid);
+    }
+
+    /**
+     * @return the tasks, in the order of the items
+     */
+    private <T> List<ForkJoinTask<SortedLayout>> submitLargestFirst(List<T> items, ToIntFunction<T> size,
+                                                                   Function<T, SortedLayout> layout) {
+        // start with the largest items, the smallest ones fill the gaps at the end
+        List<ForkJoinTask<SortedLayout>> tasks = new ArrayList<>(Collections.nCopies(items.size(), null));
+        IntStream.range(0, items.size()).boxed()
+                .sorted(Comparator.comparingInt((Integer i) -> size.applyAsInt(items.get(i))).reversed())
+                .forEach(i -> tasks.set(i, pool.submit(() -> layout.apply(items.get(i)))));
+        return tasks;
+    }
+
+    private static void addBelow(Grid grid, Grid gridToAdd) {
+        int firstRow = grid.height();
+        for (Position position : gridToAdd.getPositions()) {
+            grid.add(position.toBuilder().y(position.getY() + firstRow).build());
+        }
+    }
+
+    private static int size(Diagram diagram) {
+        return diagram.getShapes().size() + diagram.getEdges().size();
+    }
+
+    // rethrow the exception of a failed component as is, join would wrap it in a copy
+    private static SortedLayout join(ForkJoinTask<SortedLayout> task) {
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while laying out the diagram", e);
+        }
+    }
+
+    private SortedLayout layoutComponent(Diagram diagram) {
+        Diagram sortedDiagram = shapeSorter.sort(diagram);
+        Grid grid = shapeLayouter.layout(sortedDiagram);
+        return new SortedLayout(sortedDiagram, grid);
+    }
+
+    private static List<Component> splitIntoComponents(DiagramGraph graph, WeaklyConnectedComponents components) {
+        List<List<Integer>> edgesByComponent = new ArrayList<>(components.count());
+        for (int c = 0; c < components.count(); c++) {
+            edgesByComponent.add(new ArrayList<>());
+        }
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            edgesByComponent.get(components.componentOf(graph.from(e))).add(e);
+        }
+
+        List<Component> componentsWithShapes = new ArrayList<>();
+        for (int c = 0; c < components.count(); c++) {
+            List<Shape> shapes = new ArrayList<>();
+            for (int vertex : components.vertices(c)) {
+                if (graph.isShape(vertex)) {
+                    shapes.add(graph.shape(vertex));
+                }
+            }
+            if (!shapes.isEmpty()) {
+                List<Integer> edges = edgesByComponent.get(c);
+                Diagram diagram = Diagram.builder()
+                        .shapes(shapes)
+                        .edges(edges.stream().map(graph::edge).toList())
+                        .build();
+                componentsWithShapes.add(new Component(diagram, edges));
+            }
+        }
+        return componentsWithShapes;
+    }
+
+    @RequiredArgsConstructor
+    private static class Component {
+
+        private final Diagram diagram;
+        // indexes of the edges in the whole diagram
+        private final List<Integer> edges;
+
+        int size() {
+            return ConnectedComponentsLayouter.size(diagram);
+        }
+    }
+
+    /**
+     * Least recently used layouts, up to a total number of shapes.
+     */
+    @RequiredArgsConstructor
+    private static class LayoutCache {
+
+        private final int maxShapes;
+        private final LinkedHashMap<String, CachedLayout> layouts = new LinkedHashMap<>(16, 0.75f, true);
+        private int shapes;
+
+        boolean isEnabled() {
+            return maxShapes > 0;
+        }
+
+        synchronized CachedLayout get(String key) {
+            return layouts.get(key);
+        }
+
+        synchronized void put(String key, CachedLayout layout) {
+            if (layout.shapes.size() > maxShapes) {
+                return;
+            }
+            CachedLayout previous = layouts.put(key, layout);
+            shapes += layout.shapes.size() - (previous == null ? 0 : previous.shapes.size());
+            Iterator<CachedLayout> leastRecentlyUsed = layouts.values().iterator();
+            while (shapes > maxShapes) {
+                shapes -= leastRecentlyUsed.next().shapes.size();
+                leastRecentlyUsed.remove();
+            }
+        }
+
+        /**
+         * @return the SHA-256 digest of the shapes and edges, in their order, which don't change once built
+         */
+        static String key(Diagram diagram) {
+            MessageDigest digest;
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is always available", e);
+            }
+            for (Shape shape : diagram.getShapes()) {
+                update(digest, "shape", shape.getId(), shape.getName(), String.valueOf(shape.getType()),
+                        String.valueOf(shape.isSplitGateway()));
+            }
+            for (Edge edge : diagram.getEdges()) {
+                update(digest, "edge", edge.getId(), edge.getFrom(), edge.getTo(), String.valueOf(edge.isReverted()));
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        }
+
+        private static void update(MessageDigest digest, String... values) {
+            for (String value : values) {
+                // prefixed by their length, so the boundaries between the values are part of the digest
+                byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+                digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(value == null ? -1 : bytes.length).array());
+                digest.update(bytes);
+            }
+        }
+    }
+
+    /**
+     * Copy of a layout, a new diagram and grid are built each time it is used, so the callers can't alter it.
+     */
+    private static class CachedLayout {
+
+        private final List<Shape> shapes;
+        private final List<Edge> edges;
+        private final List<Position> positions;
+
+        CachedLayout(SortedLayout layout) {
+            shapes = List.copyOf(layout.diagram.getShapes());
+            edges = List.copyOf(layout.diagram.getEdges());
+            positions = List.copyOf(layout.grid.getPositions());
+        }
+
+        SortedLayout toSortedLayout() {
+            return new SortedLayout(Diagram.builder().shapes(shapes).edges(edges).build(),
+                    Grid.of(positions.toArray(Position[]::new)));
+        }
+    }
+
+    @RequiredArgsConstructor
+    @Getter
+    public static class SortedLayout {
+
+        private final Diagram diagram;
+        private final Grid grid;
+    }
+
+}
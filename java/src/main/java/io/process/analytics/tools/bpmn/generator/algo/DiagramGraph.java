@@ -0,0 +1,298 @@
+/*
+ * Copyright 2026 Bonitasoft S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.process.analytics.tools.bpmn.generator.algo;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.process.analytics.tools.bpmn.generator.model.Diagram;
+import io.process.analytics.tools.bpmn.generator.model.Edge;
+import io.process.analytics.tools.bpmn.generator.model.Shape;
+
+/**
+ * Compiled form of a {@link Diagram} used by the algorithms of this package.
+ *
+ * Shape ids are mapped to dense vertex numbers, and the edges are stored in compressed sparse row arrays in both
+ * directions (outgoing and incoming edges of a vertex, in the order of the diagram edges). Ids are only used again
+ * when converting back to a {@link Diagram}.
+ *
+ * Vertices are numbered after the shapes of the diagram (a shape id appearing several times is only kept once).
+ * Edges referencing an id that is not a shape of the diagram get an extra vertex which is never part of the shapes.
+ */
+final class DiagramGraph {
+
+    // symbol table, shared by all the graphs derived from the same diagram
+    private final String[] ids;
+    private final Shape[] shapes;
+    private final Edge[] edges;
+
+    private final int[] shapeOrder;
+    private final int[] from;
+    private final int[] to;
+    private final BitSet reverted;
+
+    private final int[] outOffsets;
+    private final int[] outEdges;
+    private final int[] inOffsets;
+    private final int[] inEdges;
+
+    static DiagramGraph of(Diagram diagram) {
+        List<Shape> diagramShapes = diagram.getShapes();
+        Map<String, Integer> index = new HashMap<>();
+        int[] shapeOrder = new int[diagramShapes.size()];
+        int shapeCount = 0;
+        for (Shape shape : diagramShapes) {
+            if (index.putIfAbsent(shape.getId(), shapeCount) == null) {
+                shapeOrder[shapeCount] = shapeCount;
+                shapeCount++;
+            }
+        }
+        Shape[] shapes = new Shape[shapeCount];
+        for (Shape shape : diagramShapes) {
+            int vertex = index.get(shape.getId());
+            if (shapes[vertex] == null) {
+                shapes[vertex] = shape;
+            }
+        }
+
+        Edge[] edges = diagram.getEdges().toArray(new Edge[0]);
+        int[] from = new int[edges.length];
+        int[] to = new int[edges.length];
+        BitSet reverted = new BitSet(edges.length);
+        for (int e = 0; e < edges.length; e++) {
+            from[e] = vertex(index, edges[e].getFrom());
+            to[e] = vertex(index, edges[e].getTo());
+            reverted.set(e, edges[e].isReverted());
+        }
+
+        String[] ids = new String[index.size()];
+        index.forEach((id, vertex) -> ids[vertex] = id);
+        return new DiagramGraph(ids, shapes, edges, Arrays.copyOf(shapeOrder, shapeCount), from, to, reverted);
+    }
+
+    private static int vertex(Map<String, Integer> index, String id) {
+        return index.computeIfAbsent(id, unknownShapeId -> index.size());
+    }
+
+    private DiagramGraph(String[] ids, Shape[] shapes, Edge[] edges, int[] shapeOrder, int[] from, int[] to,
+                         BitSet reverted) {
+        this.ids = ids;
+        this.shapes = shapes;
+        this.edges = edges;
+        this.shapeOrder = shapeOrder;
+        this.from = from;
+        this.to = to;
+        this.reverted = reverted;
+
+        int vertexCount = ids.length;
+        outOffsets = new int[vertexCount + 1];
+        outEdges = new int[edges.length];
+        inOffsets = new int[vertexCount + 1];
+        inEdges = new int[edges.length];
+        fill(from, outOffsets, outEdges);
+        fill(to, inOffsets, inEdges);
+    }
+
+    // counting sort of the edges by vertex, keeping the edges order for a given vertex
+    private static void fill(int[] vertexOfEdge, int[] offsets, int[] edgesOfVertex) {
+        for (int vertex : vertexOfEdge) {
+            offsets[vertex + 1]++;
+        }
+        for (int v = 0; v < offsets.length - 1; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+        int[] next = Arrays.copyOf(offsets, offsets.length - 1);
+        for (int e = 0; e < vertexOfEdge.length; e++) {
+            edgesOfVertex[next[vertexOfEdge[e]]++] = e;
+        }
+    }
+
+    /**
+     * @return a graph with the same vertices and edges, the shapes in the given order and the edges in the given
+     * direction
+     */
+    DiagramGraph with(int[] shapeOrder, int[] from, int[] to, BitSet reverted) {
+        return new DiagramGraph(ids, shapes, edges, shapeOrder, from, to, reverted);
+    }
+
+    Diagram toDiagram() {
+        Diagram.DiagramBuilder diagram = Diagram.builder();
+        for (int vertex : shapeOrder) {
+            diagram.shape(shapes[vertex]);
+        }
+        for (int e = 0; e < edges.length; e++) {
+            Edge edge = edges[e];
+            if (id(from[e]).equals(edge.getFrom()) && id(to[e]).equals(edge.getTo()) && isReverted(e) == edge.isReverted()) {
+                diagram.edge(edge);
+            } else {
+                diagram.edge(edge.toBuilder().from(id(from[e])).to(id(to[e])).reverted(isReverted(e)).build());
+            }
+        }
+        return diagram.build();
+    }
+
+    // vertices
+
+    int vertexCount() {
+        return ids.length;
+    }
+
+    int shapeCount() {
+        return shapeOrder.length;
+    }
+
+    /**
+     * @return the vertex of the shape at the given rank in the diagram shapes
+     */
+    int shapeAt(int rank) {
+        return shapeOrder[rank];
+    }
+
+    int[] shapeOrder() {
+        return shapeOrder.clone();
+    }
+
+    boolean isShape(int vertex) {
+        return vertex < shapes.length;
+    }
+
+    Shape shape(int vertex) {
+        return shapes[vertex];
+    }
+
+    String id(int vertex) {
+        return ids[vertex];
+    }
+
+    // edges
+
+    int edgeCount() {
+        return edges.length;
+    }
+
+    /**
+     * @return the edge of the diagram the graph was built from, in its original direction
+     */
+    Edge edge(int edge) {
+        return edges[edge];
+    }
+
+    int from(int edge) {
+        return from[edge];
+    }
+
+    int to(int edge) {
+        return to[edge];
+    }
+
+    boolean isReverted(int edge) {
+        return reverted.get(edge);
+    }
+
+    boolean hasRevertedEdges() {
+        return !reverted.isEmpty();
+    }
+
+    int[] fromCopy() {
+        return from.clone();
+    }
+
+    int[] toCopy() {
+        return to.clone();
+    }
+
+    BitSet revertedCopy() {
+        return (BitSet) reverted.clone();
+    }
+
+    // adjacency, in the current (possibly reverted) direction of the edges
+
+    int outDegree(int vertex) {
+        return outOffsets[vertex + 1] - outOffsets[vertex];
+    }
+
+    int outEdge(int vertex, int index) {
+        return outEdges[outOffsets[vertex] + index];
+    }
+
+    int inDegree(int vertex) {
+        return inOffsets[vertex + 1] - inOffsets[vertex];
+    }
+
+    int inEdge(int vertex, int index) {
+        return inEdges[inOffsets[vertex] + index];
+    }
+
+    // adjacency, in the original direction of the edges (i.e. before they have been reverted)
+
+    int originalInDegree(int vertex) {
+        int degree = 0;
+        for (int i = inOffsets[vertex]; i < inOffsets[vertex + 1]; i++) {
+            if (!reverted.get(inEdges[i])) {
+                degree++;
+            }
+        }
+        for (int i = outOffsets[vertex]; i < outOffsets[vertex + 1]; i++) {
+            if (reverted.get(outEdges[i])) {
+                degree++;
+            }
+        }
+        return degree;
+    }
+
+    int originalOutDegree(int vertex) {
+        int degree = 0;
+        for (int i = outOffsets[vertex]; i < outOffsets[vertex + 1]; i++) {
+            if (!reverted.get(outEdges[i])) {
+                degree++;
+            }
+        }
+        for (int i = inOffsets[vertex]; i < inOffsets[vertex + 1]; i++) {
+            if (reverted.get(inEdges[i])) {
+                degree++;
+            }
+        }
+        return degree;
+    }
+
+    /**
+     * @return the first edge, in the diagram edges order, going to the vertex in the original direction
+     * @throws IndexOutOfBoundsException if there is no such edge
+     */
+    int firstOriginalInEdge(int vertex) {
+        int first = Integer.MAX_VALUE;
+        for (int i = inOffsets[vertex]; i < inOffsets[vertex + 1]; i++) {
+            if (!reverted.get(inEdges[i])) {
+                first = Math.min(first, inEdges[i]);
+                break;
+            }
+        }
+        for (int i = outOffsets[vertex]; i < outOffsets[vertex + 1]; i++) {
+            if (reverted.get(outEdges[i])) {
+                first = Math.min(first, outEdges[i]);
+                break;
+            }
+        }
+        if (first == Integer.MAX_VALUE) {
+            throw new IndexOutOfBoundsException("No incoming edge for shape " + id(vertex));
+        }
+        return first;
+    }
+
+}
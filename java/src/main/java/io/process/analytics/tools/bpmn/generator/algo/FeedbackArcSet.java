@@ -0,0 +1,231 @@
+/*
+ * Copyright 2026 Bonitasoft S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.process.analytics.tools.bpmn.generator.algo;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Edges to revert so a {@link DiagramGraph} has no cycle, computed with the Eades–Lin–Smyth heuristic.
+ *
+ * Only edges inside a strongly connected component can be part of a cycle, so the heuristic is run on each component
+ * separately. It orders the vertices of the component by repeatedly taking out sinks (placed at the end), sources
+ * (placed at the beginning) and, when there are none, the vertex with the most outgoing minus incoming edges (placed
+ * at the beginning). The edges going backward in this order are the ones to revert. Vertices are kept in buckets by
+ * their outgoing minus incoming edges, so the whole computation is done in O(V+E).
+ *
+ * Self loops can not be removed by reverting them and are ignored.
+ */
+final class FeedbackArcSet {
+
+    private static final int NONE = -1;
+
+    private final DiagramGraph graph;
+    private final StronglyConnectedComponents components;
+
+    // state of the component being ordered, indexed by vertex
+    private final int[] inDegree;
+    private final int[] outDegree;
+    private final boolean[] remaining;
+    private final int[] positionInOrder;
+    private final int[] previousInBucket;
+    private final int[] nextInBucket;
+    private final int[] bucketOfVertex;
+
+    /**
+     * @return the edges to revert, by edge index in the graph
+     */
+    static BitSet of(DiagramGraph graph) {
+        return new FeedbackArcSet(graph).compute();
+    }
+
+    private FeedbackArcSet(DiagramGraph graph) {
+        this.graph = graph;
+        components = StronglyConnectedComponents.of(graph);
+        int vertexCount = graph.vertexCount();
+        inDegree = new int[vertexCount];
+        outDegree = new int[vertexCount];
+        remaining = new boolean[vertexCount];
+        positionInOrder = new int[vertexCount];
+        previousInBucket = new int[vertexCount];
+        nextInBucket = new int[vertexCount];
+        bucketOfVertex = new int[vertexCount];
+    }
+
+    private BitSet compute() {
+        BitSet edgesToRevert = new BitSet(graph.edgeCount());
+        for (int component = 0; component < components.count(); component++) {
+            if (components.size(component) > 1) {
+                int[] order = new ComponentOrder(component).compute();
+                for (int position = 0; position < order.length; position++) {
+                    positionInOrder[order[position]] = position;
+                }
+                for (int vertex : order) {
+                    for (int i = 0; i < graph.outDegree(vertex); i++) {
+                        int edge = graph.outEdge(vertex, i);
+                        int target = graph.to(edge);
+                        if (isInside(component, vertex, target) && positionInOrder[target] < positionInOrder[vertex]) {
+                            edgesToRevert.set(edge);
+                        }
+                    }
+                }
+            }
+        }
+        return edgesToRevert;
+    }
+
+    // edge between 2 distinct vertices of the component
+    private boolean isInside(int component, int source, int target) {
+        return source != target && components.componentOf(target) == component;
+    }
+
+    private final class ComponentOrder {
+
+        private final int component;
+        private final int[] vertices;
+        // vertices by outgoing minus incoming edges, the bucket of a vertex is its difference plus the offset
+        private final int[] bucketHeads;
+        private final int offset;
+        private int maxBucket;
+        private final int[] sinks;
+        private int sinkCount;
+        private final int[] sources;
+        private int sourceCount;
+
+        private ComponentOrder(int component) {
+            this.component = component;
+            vertices = components.vertices(component);
+            int maxDegree = 0;
+            for (int vertex : vertices) {
+                inDegree[vertex] = 0;
+                outDegree[vertex] = 0;
+            }
+            for (int vertex : vertices) {
+                for (int i = 0; i < graph.outDegree(vertex); i++) {
+                    int target = graph.to(graph.outEdge(vertex, i));
+                    if (isInside(component, vertex, target)) {
+                        outDegree[vertex]++;
+                        inDegree[target]++;
+                    }
+                }
+            }
+            for (int vertex : vertices) {
+                maxDegree = Math.max(maxDegree, Math.max(inDegree[vertex], outDegree[vertex]));
+            }
+            offset = maxDegree;
+            bucketHeads = new int[2 * maxDegree + 1];
+            Arrays.fill(bucketHeads, NONE);
+            maxBucket = 0;
+            // a vertex is pushed again each time its degrees change, so the stacks may contain duplicates
+            int pushCount = vertices.length;
+            for (int vertex : vertices) {
+                pushCount += inDegree[vertex] + outDegree[vertex];
+            }
+            sinks = new int[pushCount];
+            sources = new int[pushCount];
+            for (int vertex : vertices) {
+                remaining[vertex] = true;
+                bucketOfVertex[vertex] = NONE;
+                classify(vertex);
+            }
+        }
+
+        private int[] compute() {
+            int[] order = new int[vertices.length];
+            int first = 0;
+            int last = vertices.length;
+            while (first < last) {
+                int vertex;
+                if (sinkCount > 0) {
+                    vertex = sinks[--sinkCount];
+                    if (remaining[vertex]) {
+                        order[--last] = vertex;
+                        remove(vertex);
+                    }
+                } else if (sourceCount > 0) {
+                    vertex = sources[--sourceCount];
+                    if (remaining[vertex]) {
+                        order[first++] = vertex;
+                        remove(vertex);
+                    }
+                } else {
+                    while (bucketHeads[maxBucket] == NONE) {
+                        maxBucket--;
+                    }
+                    vertex = bucketHeads[maxBucket];
+                    order[first++] = vertex;
+                    remove(vertex);
+                }
+            }
+            return order;
+        }
+
+        private void remove(int vertex) {
+            remaining[vertex] = false;
+            unlink(vertex);
+            for (int i = 0; i < graph.outDegree(vertex); i++) {
+                int target = graph.to(graph.outEdge(vertex, i));
+                if (isInside(component, vertex, target) && remaining[target]) {
+                    inDegree[target]--;
+                    classify(target);
+                }
+            }
+            for (int i = 0; i < graph.inDegree(vertex); i++) {
+                int source = graph.from(graph.inEdge(vertex, i));
+                if (isInside(component, vertex, source) && remaining[source]) {
+                    outDegree[source]--;
+                    classify(source);
+                }
+            }
+        }
+
+        private void classify(int vertex) {
+            unlink(vertex);
+            if (outDegree[vertex] == 0) {
+                sinks[sinkCount++] = vertex;
+            } else if (inDegree[vertex] == 0) {
+                sources[sourceCount++] = vertex;
+            } else {
+                int bucket = outDegree[vertex] - inDegree[vertex] + offset;
+                bucketOfVertex[vertex] = bucket;
+                previousInBucket[vertex] = NONE;
+                nextInBucket[vertex] = bucketHeads[bucket];
+                if (bucketHeads[bucket] != NONE) {
+                    previousInBucket[bucketHeads[bucket]] = vertex;
+                }
+                bucketHeads[bucket] = vertex;
+                maxBucket = Math.max(maxBucket, bucket);
+            }
+        }
+
+        private void unlink(int vertex) {
+            int bucket = bucketOfVertex[vertex];
+            if (bucket == NONE) {
+                return;
+            }
+            if (previousInBucket[vertex] == NONE) {
+                bucketHeads[bucket] = nextInBucket[vertex];
+            } else {
+                nextInBucket[previousInBucket[vertex]] = nextInBucket[vertex];
+            }
+            if (nextInBucket[vertex] != NONE) {
+                previousInBucket[nextInBucket[vertex]] = previousInBucket[vertex];
+            }
+            bucketOfVertex[vertex] = NONE;
+        }
+    }
+
+}
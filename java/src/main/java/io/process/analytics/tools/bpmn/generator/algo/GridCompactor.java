@@ -0,0 +1,239 @@
+/*
+ * Copyright 2026 Bonitasoft S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.process.analytics.tools.bpmn.generator.algo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.process.analytics.tools.bpmn.generator.model.Diagram;
+import io.process.analytics.tools.bpmn.generator.model.Edge;
+import io.process.analytics.tools.bpmn.generator.model.Grid;
+import io.process.analytics.tools.bpmn.generator.model.Position;
+
+/**
+ * Make a grid smaller by merging its rows, and optionally its columns, when their shapes don't get too close.
+ *
+ * Each row (or column) is represented by the bitset of the cells it occupies, so checking if a row can be merged into
+ * the next one is a shift-and-AND of their bitsets: a shape must not have any shape in the 3 adjacent cells of the next
+ * row.
+ */
+final class GridCompactor {
+
+    private GridCompactor() {
+    }
+
+    /**
+     * Move each row into the next one when possible, from the top to the bottom of the grid.
+     *
+     * @return a new grid. The positions are in the order of a row by row compaction of the grid: each time a row is
+     * moved into the next one, its positions are removed and added again, then the empty row is removed, which removes
+     * and adds again all the positions below.
+     */
+    static Grid compactRows(Grid grid) {
+        List<Position> positions = grid.getPositions();
+        List<Line> rows = lines(grid.height());
+        for (int i = 0; i < positions.size(); i++) {
+            Position position = positions.get(i);
+            rows.get(position.getY()).add(i, position.getX());
+        }
+
+        // number of rows moved before the row of each position stopped moving: the positions of the last rows have
+        // been put at the end of the order more times
+        int[] moves = new int[positions.size()];
+        int movedRows = 0;
+        // move in which each row was first moved into the next one, if it was
+        int[] firstMoveOfRow = new int[rows.size()];
+        Arrays.fill(firstMoveOfRow, Integer.MAX_VALUE);
+
+        List<Line> compactedRows = new ArrayList<>();
+        Line current = rows.get(0);
+        for (int y = 1; y < rows.size(); y++) {
+            Line next = rows.get(y);
+            if (current.hasCellsNextTo(next)) {
+                current.setAll(moves, movedRows);
+                compactedRows.add(current);
+            } else {
+                movedRows++;
+                firstMoveOfRow[y - 1] = movedRows;
+                next.addAll(current);
+            }
+            current = next;
+        }
+        current.setAll(moves, movedRows);
+        compactedRows.add(current);
+
+        int[] newY = new int[positions.size()];
+        for (int y = 0; y < compactedRows.size(); y++) {
+            Line row = compactedRows.get(y);
+            for (int i = 0; i < row.size; i++) {
+                newY[row.positions[i]] = y;
+            }
+        }
+        // among the positions moved the same number of times, the ones moved with their row are put after the others,
+        // and the earlier their row was first moved, the later they are. The sort is stable, so the others keep their
+        // order
+        Integer[] order = new Integer[positions.size()];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, Comparator.<Integer>comparingInt(i -> moves[i])
+                .thenComparing(i -> firstMoveOfRow[positions.get(i).getY()], Comparator.reverseOrder()));
+        Grid compacted = new Grid();
+        for (int i : order) {
+            Position position = positions.get(i);
+            compacted.add(position.getY() == newY[i] ? position : position.toBuilder().y(newY[i]).build());
+        }
+        return compacted;
+    }
+
+    /**
+     * Move each column into the next one when possible, from the left to the right of the grid. A column is not moved
+     * when one of its shapes is linked to a shape of the next column, so edges still go from a column to another.
+     *
+     * @return a new grid, with the positions in the same order
+     */
+    static Grid compactColumns(Grid grid, Diagram diagram) {
+        List<Position> positions = grid.getPositions();
+        List<Line> columns = lines(grid.width());
+        Map<String, Integer> columnOfShape = new HashMap<>();
+        for (int i = 0; i < positions.size(); i++) {
+            Position position = positions.get(i);
+            columns.get(position.getX()).add(i, position.getY());
+            columnOfShape.putIfAbsent(position.getShape(), position.getX());
+        }
+
+        List<Line> compactedColumns = new ArrayList<>();
+        Line current = columns.get(0);
+        for (int x = 1; x < columns.size(); x++) {
+            Line next = columns.get(x);
+            if (current.hasCellsNextTo(next) || isLinked(current, x, positions, diagram, columnOfShape)) {
+                compactedColumns.add(current);
+            } else {
+                for (int i = 0; i < current.size; i++) {
+                    columnOfShape.put(positions.get(current.positions[i]).getShape(), x);
+                }
+                next.addAll(current);
+            }
+            current = next;
+        }
+        compactedColumns.add(current);
+
+        int[] newX = new int[positions.size()];
+        for (int x = 0; x < compactedColumns.size(); x++) {
+            Line column = compactedColumns.get(x);
+            for (int i = 0; i < column.size; i++) {
+                newX[column.positions[i]] = x;
+            }
+        }
+        Grid compacted = new Grid();
+        for (int i = 0; i < positions.size(); i++) {
+            Position position = positions.get(i);
+            compacted.add(position.getX() == newX[i] ? position : position.toBuilder().x(newX[i]).build());
+        }
+        return compacted;
+    }
+
+    private static boolean isLinked(Line column, int nextColumn, List<Position> positions, Diagram diagram,
+                                    Map<String, Integer> columnOfShape) {
+        for (int i = 0; i < column.size; i++) {
+            String shape = positions.get(column.positions[i]).getShape();
+            for (Edge edge : diagram.getOutgoingEdges(shape)) {
+                if (columnOfShape.getOrDefault(edge.getTo(), -1) == nextColumn) {
+                    return true;
+                }
+            }
+            for (Edge edge : diagram.getIncomingEdges(shape)) {
+                if (columnOfShape.getOrDefault(edge.getFrom(), -1) == nextColumn) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static List<Line> lines(int count) {
+        List<Line> lines = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            lines.add(new Line());
+        }
+        return lines;
+    }
+
+    // a row or a column: the bitset of its occupied cells, and its positions in the order they have been added
+    private static final class Line {
+
+        private long[] cells = new long[1];
+        private int[] positions = new int[4];
+        private int size;
+
+        void add(int position, int cell) {
+            int word = cell >>> 6;
+            if (word >= cells.length) {
+                cells = Arrays.copyOf(cells, Math.max(word + 1, 2 * cells.length));
+            }
+            cells[word] |= 1L << cell;
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, 2 * size);
+            }
+            positions[size++] = position;
+        }
+
+        void addAll(Line line) {
+            if (line.cells.length > cells.length) {
+                cells = Arrays.copyOf(cells, line.cells.length);
+            }
+            for (int word = 0; word < line.cells.length; word++) {
+                cells[word] |= line.cells[word];
+            }
+            if (size + line.size > positions.length) {
+                positions = Arrays.copyOf(positions, Math.max(size + line.size, 2 * positions.length));
+            }
+            System.arraycopy(line.positions, 0, positions, size, line.size);
+            size += line.size;
+        }
+
+        // set the value of the positions of this line
+        void setAll(int[] values, int value) {
+            for (int i = 0; i < size; i++) {
+                values[positions[i]] = value;
+            }
+        }
+
+        /**
+         * @return true if a cell of the other line is at the same index as a cell of this line, or at an adjacent index
+         */
+        boolean hasCellsNextTo(Line other) {
+            int words = Math.min(cells.length + 1, other.cells.length);
+            for (int word = 0; word < words; word++) {
+                long bits = word < cells.length ? cells[word] : 0;
+                long withAdjacentCells = bits | bits << 1 | bits >>> 1;
+                if (word > 0) {
+                    withAdjacentCells |= cells[word - 1] >>> 63;
+                }
+                if (word + 1 < cells.length) {
+                    withAdjacentCells |= cells[word + 1] << 63;
+                }
+                if ((withAdjacentCells & other.cells[word]) != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+}
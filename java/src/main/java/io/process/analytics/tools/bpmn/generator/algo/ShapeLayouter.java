@@ -3,9 +3,6 @@ package io.process.analytics.tools.bpmn.generator.algo;
 import static io.process.analytics.tools.bpmn.generator.export.ASCIIExporter.toAscii;
 import static io.process.analytics.tools.bpmn.generator.model.Position.position;
 
-import java.util.List;
-
-import io.process.analytics.tools.bpmn.generator.model.Edge;
 import io.process.analytics.tools.bpmn.generator.model.Grid;
 import io.process.analytics.tools.bpmn.generator.model.Shape;
 import io.process.analytics.tools.bpmn.generator.model.Position;
@@ -15,19 +12,33 @@ import lombok.extern.log4j.Log4j2;
 @Log4j2
 public class ShapeLayouter {
 
+    private final boolean compactColumns;
+
+    public ShapeLayouter() {
+        this(false);
+    }
+
+    /**
+     * @param compactColumns also merge the columns of the grid when their shapes are not linked and don't get too close
+     */
+    public ShapeLayouter(boolean compactColumns) {
+        this.compactColumns = compactColumns;
+    }
 
     public Grid layout(Diagram diagram) {
+        DiagramGraph graph = DiagramGraph.of(diagram);
         Grid grid = new Grid();
-        for (Shape shape : diagram.getShapes()) {
-            Position positionOfCurrentShape = positionShape(diagram, grid, shape);
+        for (int rank = 0; rank < graph.shapeCount(); rank++) {
+            int shape = graph.shapeAt(rank);
+            Position positionOfCurrentShape = positionShape(graph, grid, shape);
             putOnGrid(grid, positionOfCurrentShape);
             // TODO check usage of supplier, intellij says it is deprecated
-            log.debug("Adding {}:\n{}", shape::getName, () -> toAscii(grid));
-            addRowsWhenShapeIsASplit(diagram, grid, shape, positionOfCurrentShape);
+            log.debug("Adding {}:\n{}", graph.shape(shape)::getName, () -> toAscii(grid));
+            addRowsWhenShapeIsASplit(graph, grid, shape, positionOfCurrentShape);
         }
-        compactGrid(grid);
-        log.debug("After compact grid \n{}", () -> toAscii(grid));
-        return grid;
+        Grid compactedGrid = compactGrid(grid, diagram);
+        log.debug("After compact grid \n{}", () -> toAscii(compactedGrid));
+        return compactedGrid;
     }
 
     private void putOnGrid(Grid grid, Position positionOfCurrentShape) {
@@ -40,11 +51,11 @@ public class ShapeLayouter {
         }
     }
 
-    private void addRowsWhenShapeIsASplit(Diagram diagram, Grid grid, Shape shape, Position positionOfCurrentShape) {
-        List<Edge> outgoingEdges = diagram.getOutgoingEdges(shape.getId());
-        if (outgoingEdges.size() > 1) {
+    private void addRowsWhenShapeIsASplit(DiagramGraph graph, Grid grid, int shape, Position positionOfCurrentShape) {
+        int outgoingEdges = graph.outDegree(shape);
+        if (outgoingEdges > 1) {
             //add rows to place elements of this split
-            int rowsToAddBeforeAndAfter = outgoingEdges.size() / 2;
+            int rowsToAddBeforeAndAfter = outgoingEdges / 2;
             for (int i = 0; i < rowsToAddBeforeAndAfter; i++) {
                 grid.addRowAfter(positionOfCurrentShape.getY());
                 grid.addRowBefore(positionOfCurrentShape.getY());
@@ -52,64 +63,45 @@ public class ShapeLayouter {
         }
     }
 
-    private Position positionShape(Diagram diagram, Grid grid, Shape shape) {
+    private Position positionShape(DiagramGraph graph, Grid grid, int shape) {
         Position positionOfCurrentShape;
-        List<Edge> incomingEdges = diagram.getIncomingEdges(shape.getId());
-        if (incomingEdges.isEmpty()) {
+        int incomingEdges = graph.inDegree(shape);
+        if (incomingEdges == 0) {
             //This is a start node, insert it in a new column
-            positionOfCurrentShape = addStartShape(grid, shape);
-        } else if (incomingEdges.size() == 1) {
+            positionOfCurrentShape = addStartShape(grid, graph.shape(shape));
+        } else if (incomingEdges == 1) {
             //find the previous node position
-            String previousShapeID = incomingEdges.get(0).getFrom();
-            List<Edge> outgoingEdgesOfPreviousShape = diagram.getOutgoingEdges(previousShapeID);
-            if (outgoingEdgesOfPreviousShape.size() == 1) {
-                positionOfCurrentShape = addDirectlyNextTo(grid, shape, previousShapeID);
+            int previousShape = graph.from(graph.inEdge(shape, 0));
+            if (graph.outDegree(previousShape) == 1) {
+                positionOfCurrentShape = addDirectlyNextTo(grid, graph.shape(shape), graph.id(previousShape));
             } else {
-                positionOfCurrentShape = addSplit(grid, shape, previousShapeID, outgoingEdgesOfPreviousShape);
+                positionOfCurrentShape = addSplit(graph, grid, shape, previousShape);
             }
         } else {
-            positionOfCurrentShape = addJoin(grid, shape, incomingEdges);
+            positionOfCurrentShape = addJoin(graph, grid, shape);
         }
         return positionOfCurrentShape;
     }
 
-    private void compactGrid(Grid grid) {
-        int i = 0;
-        while (i < grid.getLastRowIndex()) {
-            List<Integer> currentRow = grid.getRow(i).stream().map(Position::getX).toList();
-            List<Integer> nextRow = grid.getRow(i + 1).stream().map(Position::getX).toList();
-
-            boolean currentRowCanBeMovedBelow = true;
-            for (Integer shapeIndexInCurrentRow : currentRow) {
-                int index = shapeIndexInCurrentRow;
-                //we can move the current row below if each element have all adjacent cells free in the row below
-                if (nextRow.stream().anyMatch(s -> s == index || s == index + 1 || s == index - 1)) {
-                    currentRowCanBeMovedBelow = false;
-                    break;
-                }
-            }
-
-            if (currentRowCanBeMovedBelow) {
-                final int finalI = i + 1;
-                for (Position position : grid.getRow(i)) {
-                    grid.remove(position);
-                    grid.add(position.toBuilder().y(finalI).build());
-                }
-                grid.removeEmptyRow(i);
-            } else {
-                i++;
-            }
+    private Grid compactGrid(Grid grid, Diagram diagram) {
+        if (grid.getPositions().isEmpty()) {
+            return grid;
         }
+        Grid compactedGrid = GridCompactor.compactRows(grid);
+        return compactColumns ? GridCompactor.compactColumns(compactedGrid, diagram) : compactedGrid;
     }
 
     private Position addStartShape(Grid grid, Shape shape) {
         return position(shape, 0, grid.getLastRowIndex() + 1);
     }
 
-    private Position addSplit(Grid grid, Shape shape, String previousShapeID, List<Edge> outgoingEdgesOfPreviousShape) {
-        Position previousShapePosition = grid.getPosition(previousShapeID);
-        int numberOfShapesInTheSplit = outgoingEdgesOfPreviousShape.size();
-        int indexOfCurrentShape = outgoingEdgesOfPreviousShape.stream().map(Edge::getTo).toList().indexOf(shape.getId());
+    private Position addSplit(DiagramGraph graph, Grid grid, int shape, int previousShape) {
+        Position previousShapePosition = grid.getPosition(graph.id(previousShape));
+        int numberOfShapesInTheSplit = graph.outDegree(previousShape);
+        int indexOfCurrentShape = 0;
+        while (graph.to(graph.outEdge(previousShape, indexOfCurrentShape)) != shape) {
+            indexOfCurrentShape++;
+        }
         //put element right to the split vertically distributed according to the index
         int relativeYPosition;
         if (numberOfShapesInTheSplit % 2 == 0 && indexOfCurrentShape >= numberOfShapesInTheSplit / 2) {
@@ -118,16 +110,21 @@ public class ShapeLayouter {
         } else {
             relativeYPosition = indexOfCurrentShape - numberOfShapesInTheSplit / 2;
         }
-        return position(shape, previousShapePosition.getX() + 1, previousShapePosition.getY() + relativeYPosition);
+        return position(graph.shape(shape), previousShapePosition.getX() + 1, previousShapePosition.getY() + relativeYPosition);
     }
 
-    private Position addJoin(Grid grid, Shape shape, List<Edge> incomingEdges) {
+    private Position addJoin(DiagramGraph graph, Grid grid, int shape) {
         //first implementation: middle of elements it joins
         // later we should also try yo find the split to align it to that if possible
-        List<Position> positions = incomingEdges.stream().map(Edge::getFrom).map(grid::getPosition).toList();
-        int xMax = positions.stream().map(Position::getX).reduce(0, Math::max);
-        int yMax = positions.stream().map(Position::getY).reduce(0, Math::max);
-        int yMin = positions.stream().map(Position::getY).reduce(Integer.MAX_VALUE, Math::min);
+        int xMax = 0;
+        int yMax = 0;
+        int yMin = Integer.MAX_VALUE;
+        for (int i = 0; i < graph.inDegree(shape); i++) {
+            Position position = grid.getPosition(graph.id(graph.from(graph.inEdge(shape, i))));
+            xMax = Math.max(xMax, position.getX());
+            yMax = Math.max(yMax, position.getY());
+            yMin = Math.min(yMin, position.getY());
+        }
 
         int xElement = xMax + 1;
         int yElement = (yMin + yMax) / 2;
@@ -135,7 +132,7 @@ public class ShapeLayouter {
             grid.addRowAfter(yElement);
             yElement++;
         }
-        return position(shape, xElement, yElement);
+        return position(graph.shape(shape), xElement, yElement);
     }
 
     private Position addDirectlyNextTo(Grid grid, Shape shapeToAdd, String rightTo) {
@@ -15,26 +15,51 @@
  */
 package io.process.analytics.tools.bpmn.generator.algo;
 
-import static io.process.analytics.tools.bpmn.generator.model.Edge.revertedEdge;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.NoSuchElementException;
 
-import java.util.*;
-import java.util.stream.Collectors;
-
-import io.process.analytics.tools.bpmn.generator.model.Edge;
-import io.process.analytics.tools.bpmn.generator.model.Shape;
 import io.process.analytics.tools.bpmn.generator.model.Diagram;
-import lombok.Builder;
-import lombok.Data;
-import lombok.Singular;
 
 /**
  * Sort nodes of a diagram in topological order.
  *
  * The algorithm also handles cycle.
  *
+ * Shapes are sorted by rounds: a round sorts, in the diagram order, all shapes without remaining incoming edges.
+ * Incoming edges are counted per shape so each shape and edge is only visited once per sort.
+ *
+ * How cycles are removed is defined by the {@link CycleBreaking} strategy.
+ *
  */
 public class ShapeSorter {
 
+    public enum CycleBreaking {
+        /**
+         * When no shape can be sorted, revert the edges of a join that has been entered, then revert the other edges
+         * of the cycles. Gives the best looking layouts for process models but can fail on highly cyclic graphs.
+         */
+        JOINS,
+        /**
+         * Revert the edges found by the Eades–Lin–Smyth feedback arc set heuristic, run on each strongly connected
+         * component. Runs in O(V+E) and never fails, so it is better suited to graphs mined from event logs where
+         * almost every shape is part of a cycle.
+         */
+        FEEDBACK_ARC_SET
+    }
+
+    private final CycleBreaking cycleBreaking;
+
+    public ShapeSorter() {
+        this(CycleBreaking.JOINS);
+    }
+
+    public ShapeSorter(CycleBreaking cycleBreaking) {
+        this.cycleBreaking = cycleBreaking;
+    }
+
     /**
      * sort nodes of a diagram in topological order
      *
@@ -42,141 +67,302 @@ public class ShapeSorter {
      * @return a diagram with same nodes but sorted
      */
     public Diagram sort(Diagram diagram) {
-        Diagram sorted = doSort(diagram);
-        Diagram sortedDiagramWithRevertedCycles = revertOtherEdgesOfCycles(sorted);
-        return doSort(sortedDiagramWithRevertedCycles);
-    }
-
-    private Diagram revertOtherEdgesOfCycles(Diagram diagram) {
-        List<Edge> edgesToRevert = new ArrayList<>();
-        diagram.getEdges().stream().filter(Edge::isReverted).forEach(e->{
-            Shape currentElement = diagram.getShape(e.getTo());
-            while (!isAJoinInOriginalDiagram(diagram, currentElement) && !isASplitInOriginalDiagram(diagram, currentElement)) {
-                List<Edge> incomingEdges = diagram.getOriginalIncomingEdges(currentElement.getId());
-                Edge currentEdge = incomingEdges.get(0);
-                edgesToRevert.add(currentEdge);
-                currentElement = diagram.getShape(currentEdge.getFrom());
-            }
-        });
-        return Diagram.builder().shapes(diagram.getShapes())
-                .edges(diagram.getEdges().stream().map(e -> {
-                    if (edgesToRevert.contains(e)) {
-                        return revertedEdge(e);
-                    } else {
-                        return e;
-                    }
-                }).collect(Collectors.toList())).build();
-    }
-
-    private boolean isASplitInOriginalDiagram(Diagram diagram, Shape currentElement) {
-        return diagram.getOriginalOutgoingEdges(currentElement.getId()).size() > 1;
+        DiagramGraph graph = DiagramGraph.of(diagram);
+        if (cycleBreaking == CycleBreaking.FEEDBACK_ARC_SET) {
+            return sortWithoutFeedbackArcs(graph).toDiagram();
+        }
+        DiagramGraph sorted = doSort(graph);
+        if (!sorted.hasRevertedEdges()) {
+            // no cycle: sorting again the sorted diagram would not change it
+            return sorted.toDiagram();
+        }
+        DiagramGraph sortedDiagramWithRevertedCycles = revertOtherEdgesOfCycles(sorted);
+        return doSort(sortedDiagramWithRevertedCycles).toDiagram();
     }
 
-    private boolean isAJoinInOriginalDiagram(Diagram diagram, Shape currentElement) {
-        return diagram.getOriginalIncomingEdges(currentElement.getId()).size() > 1;
+    private DiagramGraph sortWithoutFeedbackArcs(DiagramGraph graph) {
+        int[] from = graph.fromCopy();
+        int[] to = graph.toCopy();
+        BitSet reverted = graph.revertedCopy();
+        FeedbackArcSet.of(graph).stream().forEach(e -> revert(e, from, to, reverted));
+        DiagramGraph acyclic = graph.with(graph.shapeOrder(), from, to, reverted);
+        // the remaining cycles are self loops, and edges from unknown shapes can't be sorted: they don't constrain the order
+        BitSet ignoredEdges = new BitSet(graph.edgeCount());
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            if (from[e] == to[e] || !graph.isShape(from[e])) {
+                ignoredEdges.set(e);
+            }
+        }
+        return new Sort(acyclic, ignoredEdges).sort();
     }
 
-    private Diagram doSort(Diagram diagram) {
-        List<Shape> shapeToSort = new ArrayList<>(diagram.getShapes());
-        List<Edge> remainingEdges = new ArrayList<>(diagram.getEdges());
-        List<Edge> finalEdges = new ArrayList<>(diagram.getEdges());
-        List<Join> joins = findAllJoins(shapeToSort, remainingEdges);
-
-        Diagram.DiagramBuilder sortedDiagram = Diagram.builder();
-
-        while (!shapeToSort.isEmpty()) {
-            List<Shape> startShapes = getStartNodes(shapeToSort, remainingEdges);
-            if (!startShapes.isEmpty()) {
-                for (Shape startShape : startShapes) {
-                    shapeToSort.remove(startShape);
-                    sortedDiagram.shape(startShape);
-                    remainingEdges = removeEdgesStartingWithNode(remainingEdges, startShape);
-                    joins.stream().filter(j -> j.isJoining(startShape)).forEach(j -> j.markProcessed(startShape));
-                }
-            } else {
-                //retrieve a join that we "entered", i.e. we processed an element that has an edge going to this join.
-                Join join = getAJoinThatWasProcessed(joins, shapeToSort);
-                //revert all edges from this join to remove the cycle
-                remainingEdges = revertNonProcessedEdgeOfTheJoin(remainingEdges, join);
-                finalEdges = revertNonProcessedEdgeOfTheJoin(finalEdges, join);
-                if (getStartNodes(shapeToSort, remainingEdges).isEmpty()) {
-                    throw new IllegalStateException("Unable to remove cycle from the Diagram: " + diagram);
+    private DiagramGraph revertOtherEdgesOfCycles(DiagramGraph graph) {
+        BitSet edgesToRevert = new BitSet(graph.edgeCount());
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            if (!graph.isReverted(e)) {
+                continue;
+            }
+            int currentElement = checkIsAShape(graph, graph.to(e));
+            while (!isAJoinInOriginalDiagram(graph, currentElement) && !isASplitInOriginalDiagram(graph, currentElement)) {
+                int currentEdge = graph.firstOriginalInEdge(currentElement);
+                edgesToRevert.set(currentEdge);
+                int previousElement = checkIsAShape(graph, graph.from(currentEdge));
+                if (previousElement == currentElement) {
+                    // the edge is already reverted, walking back would never leave this shape
+                    throw new IllegalStateException("Unable to remove cycle from the Diagram: " + graph.toDiagram());
                 }
+                currentElement = previousElement;
             }
         }
-        return sortedDiagram.edges(finalEdges).build();
+        int[] from = graph.fromCopy();
+        int[] to = graph.toCopy();
+        BitSet reverted = graph.revertedCopy();
+        edgesToRevert.stream().forEach(e -> revert(e, from, to, reverted));
+        return graph.with(graph.shapeOrder(), from, to, reverted);
     }
 
-    private List<Edge> revertNonProcessedEdgeOfTheJoin(List<Edge> edges, Join join) {
-        return edges.stream().map(edge -> {
-            if (join.contains(edge) && !join.wasProcessed(edge.getFrom())) {
-                //revert the edge
-                return revertedEdge(edge);
-            } else {
-                return edge;
-            }
-        }).collect(Collectors.toList());
+    private static int checkIsAShape(DiagramGraph graph, int vertex) {
+        if (!graph.isShape(vertex)) {
+            throw new NoSuchElementException("Unknown shape: " + graph.id(vertex));
+        }
+        return vertex;
     }
 
-    private Join getAJoinThatWasProcessed(List<Join> joins, List<Shape> shapeToSort) {
-        // we should always have a join that was processed at least once when we don't have a start node
-        return joins.stream().filter(j -> !j.getProcessedEdges().isEmpty())
-                .filter(j -> shapeToSort.contains(j.to))
-                .findFirst().get();
+    private boolean isASplitInOriginalDiagram(DiagramGraph graph, int shape) {
+        return graph.originalOutDegree(shape) > 1;
     }
 
-    private List<Edge> removeEdgesStartingWithNode(List<Edge> edges, Shape startShape) {
-        return edges.stream().filter(e -> !e.getFrom().equals(startShape.getId())).collect(Collectors.toList());
+    private boolean isAJoinInOriginalDiagram(DiagramGraph graph, int shape) {
+        return graph.originalInDegree(shape) > 1;
     }
 
-    private List<Shape> getStartNodes(List<Shape> nodesToSort, List<Edge> edges) {
-        return nodesToSort.stream()
-                .filter(n -> hasNoIncomingLink(n, edges))
-                .collect(Collectors.toList());
+    private DiagramGraph doSort(DiagramGraph graph) {
+        return new Sort(graph, new BitSet()).sort();
     }
 
-    private List<Join> findAllJoins(List<Shape> shapes, List<Edge> edges) {
+    private static List<Join> findAllJoins(DiagramGraph graph) {
         //get the nodes that are "join"
-        return shapes.stream().map(n -> Join.builder().to(n))
-                .map(j -> j.incomings(edges.stream().filter(e -> e.getTo().equals(j.to.getId())).map(Edge::getFrom).collect(Collectors.toList())))
-                .map(Join.JoinBuilder::build)
-                //keep only join if there is more than 1 edge incoming
-                .filter(j -> j.incomings.size() > 1)
-                .collect(Collectors.toList());
+        List<Join> joins = new ArrayList<>();
+        for (int rank = 0; rank < graph.shapeCount(); rank++) {
+            int shape = graph.shapeAt(rank);
+            int[] incomings = new int[graph.inDegree(shape)];
+            for (int i = 0; i < incomings.length; i++) {
+                incomings[i] = graph.from(graph.inEdge(shape, i));
+            }
+            incomings = Arrays.stream(incomings).sorted().distinct().toArray();
+            //keep only join if there is more than 1 edge incoming
+            if (incomings.length > 1) {
+                joins.add(new Join(shape, incomings));
+            }
+        }
+        return joins;
+    }
 
+    private static void revert(int e, int[] from, int[] to, BitSet reverted) {
+        int source = from[e];
+        from[e] = to[e];
+        to[e] = source;
+        reverted.set(e);
     }
 
+    // state of a sort: the edges are reverted in place and removed once their source is sorted
+    private static final class Sort {
 
-    private boolean hasNoIncomingLink(Shape m, List<Edge> edges) {
-        return edges.stream().noneMatch(e -> e.getTo().equals(m.getId()));
-    }
+        private final DiagramGraph graph;
+        private final int[] from;
+        private final int[] to;
+        private final BitSet reverted;
+        // edges reverted during this sort, by their new source and target
+        private final EdgeLists revertedOutgoing;
+        private final EdgeLists revertedIncoming;
+        private final BitSet removedEdges;
+        // number of remaining edges going to each vertex
+        private final int[] remainingIncoming;
+        private final BitSet sortedShapes;
+
+        private final int[] shapeOrder;
+        private final int[] rankOfShape;
 
-    @Data
-    @Builder
-    private static class Join {
-        @Singular
-        private Set<String> incomings;
-        private final Shape to;
-        @Builder.Default
-        private Set<String> processedEdges = new HashSet<>();
+        private final List<Join> joins;
+        private final int[] joinIndexOfShape;
+        // joins not sorted yet with at least one sorted incoming shape, by index in joins
+        private final BitSet processedJoins;
 
-        boolean isJoining(Shape shape) {
-            return incomings.contains(shape.getId());
+        private Sort(DiagramGraph graph, BitSet ignoredEdges) {
+            this.graph = graph;
+            from = graph.fromCopy();
+            to = graph.toCopy();
+            reverted = graph.revertedCopy();
+            revertedOutgoing = new EdgeLists(graph.vertexCount());
+            revertedIncoming = new EdgeLists(graph.vertexCount());
+            removedEdges = (BitSet) ignoredEdges.clone();
+            remainingIncoming = new int[graph.vertexCount()];
+            for (int e = 0; e < graph.edgeCount(); e++) {
+                if (!removedEdges.get(e)) {
+                    remainingIncoming[to[e]]++;
+                }
+            }
+            sortedShapes = new BitSet(graph.vertexCount());
+
+            shapeOrder = graph.shapeOrder();
+            rankOfShape = new int[graph.vertexCount()];
+            for (int rank = 0; rank < shapeOrder.length; rank++) {
+                rankOfShape[shapeOrder[rank]] = rank;
+            }
+
+            joins = findAllJoins(graph);
+            joinIndexOfShape = new int[graph.vertexCount()];
+            Arrays.fill(joinIndexOfShape, -1);
+            for (int i = 0; i < joins.size(); i++) {
+                joinIndexOfShape[joins.get(i).to] = i;
+            }
+            processedJoins = new BitSet(joins.size());
         }
 
-        void markProcessed(Shape shape) {
-            processedEdges.add(shape.getId());
+        private DiagramGraph sort() {
+            int[] sortedOrder = new int[shapeOrder.length];
+            int sortedCount = 0;
+            // ranks of the start shapes of the current and of the next round
+            int[] startShapes = new int[shapeOrder.length];
+            int startShapeCount = 0;
+            int[] nextStartShapes = new int[shapeOrder.length];
+            for (int rank = 0; rank < shapeOrder.length; rank++) {
+                if (remainingIncoming[shapeOrder[rank]] == 0) {
+                    startShapes[startShapeCount++] = rank;
+                }
+            }
+
+            while (sortedCount < shapeOrder.length) {
+                if (startShapeCount > 0) {
+                    int nextStartShapeCount = 0;
+                    for (int i = 0; i < startShapeCount; i++) {
+                        int startShape = shapeOrder[startShapes[i]];
+                        sortedShapes.set(startShape);
+                        sortedOrder[sortedCount++] = startShape;
+                        markJoinsProcessed(startShape);
+                        nextStartShapeCount = removeEdgesStartingWithNode(startShape, nextStartShapes, nextStartShapeCount);
+                    }
+                    // shapes of a round are sorted in the diagram order
+                    Arrays.sort(nextStartShapes, 0, nextStartShapeCount);
+                    int[] swap = startShapes;
+                    startShapes = nextStartShapes;
+                    nextStartShapes = swap;
+                    startShapeCount = nextStartShapeCount;
+                } else {
+                    //retrieve a join that we "entered", i.e. we processed an element that has an edge going to this join.
+                    Join join = getAJoinThatWasProcessed();
+                    //revert all edges from this join to remove the cycle
+                    revertNonProcessedEdgesOfTheJoin(join);
+                    // the join is the only shape whose incoming edges changed
+                    if (remainingIncoming[join.to] > 0) {
+                        throw new IllegalStateException("Unable to remove cycle from the Diagram: " + graph.toDiagram());
+                    }
+                    startShapes[startShapeCount++] = rankOfShape[join.to];
+                }
+            }
+            return graph.with(sortedOrder, from, to, reverted);
         }
 
-        boolean wasProcessed(String shapeId) {
-            return processedEdges.contains(shapeId);
+        private void markJoinsProcessed(int sortedShape) {
+            int joinIndex = joinIndexOfShape[sortedShape];
+            if (joinIndex >= 0) {
+                processedJoins.clear(joinIndex);
+            }
+            // the incomings of a join are the sources of the edges going to it when the sort started
+            for (int i = 0; i < graph.outDegree(sortedShape); i++) {
+                int target = graph.to(graph.outEdge(sortedShape, i));
+                if (joinIndexOfShape[target] >= 0 && !sortedShapes.get(target)) {
+                    processedJoins.set(joinIndexOfShape[target]);
+                }
+            }
         }
 
-        boolean contains(Edge edge) {
-            return to.getId().equals(edge.getTo()) && incomings.contains(edge.getFrom());
+        private void revertNonProcessedEdgesOfTheJoin(Join join) {
+            List<Integer> edges = new ArrayList<>();
+            for (int i = 0; i < graph.inDegree(join.to); i++) {
+                edges.add(graph.inEdge(join.to, i));
+            }
+            edges.addAll(revertedIncoming.get(join.to));
+            for (int e : edges) {
+                // the source of a remaining edge is not sorted yet, i.e. the edge was not processed
+                if (to[e] == join.to && join.isJoining(from[e]) && !sortedShapes.get(from[e])) {
+                    int previousSource = from[e];
+                    revert(e, from, to, reverted);
+                    if (previousSource != join.to) {
+                        remainingIncoming[join.to]--;
+                        remainingIncoming[previousSource]++;
+                        revertedOutgoing.add(join.to, e);
+                        revertedIncoming.add(previousSource, e);
+                    }
+                }
+            }
+        }
+
+        private Join getAJoinThatWasProcessed() {
+            // we should always have a join that was processed at least once when we don't have a start node
+            return joins.get(processedJoins.stream().findFirst().getAsInt());
+        }
+
+        private int removeEdgesStartingWithNode(int startShape, int[] startShapes, int startShapeCount) {
+            for (int i = 0; i < graph.outDegree(startShape); i++) {
+                startShapeCount = removeEdgeStartingWithNode(graph.outEdge(startShape, i), startShape, startShapes, startShapeCount);
+            }
+            for (int e : revertedOutgoing.get(startShape)) {
+                startShapeCount = removeEdgeStartingWithNode(e, startShape, startShapes, startShapeCount);
+            }
+            return startShapeCount;
+        }
+
+        private int removeEdgeStartingWithNode(int e, int startShape, int[] startShapes, int startShapeCount) {
+            // the edge may have been reverted since the graph was built
+            if (from[e] == startShape && !removedEdges.get(e)) {
+                removedEdges.set(e);
+                int target = to[e];
+                if (--remainingIncoming[target] == 0 && graph.isShape(target)) {
+                    startShapes[startShapeCount++] = rankOfShape[target];
+                }
+            }
+            return startShapeCount;
+        }
+    }
+
+    private static final class Join {
+
+        private final int to;
+        // distinct sources of the edges going to the join, sorted
+        private final int[] incomings;
+
+        private Join(int to, int[] incomings) {
+            this.to = to;
+            this.incomings = incomings;
+        }
+
+        boolean isJoining(int shape) {
+            return Arrays.binarySearch(incomings, shape) >= 0;
         }
 
     }
 
+    // edges by vertex, only allocated for the vertices that have some
+    private static final class EdgeLists {
+
+        private final List<Integer>[] edgesByVertex;
+
+        @SuppressWarnings("unchecked")
+        private EdgeLists(int vertexCount) {
+            edgesByVertex = new List[vertexCount];
+        }
+
+        void add(int vertex, int edge) {
+            if (edgesByVertex[vertex] == null) {
+                edgesByVertex[vertex] = new ArrayList<>(2);
+            }
+            edgesByVertex[vertex].add(edge);
+        }
+
+        List<Integer> get(int vertex) {
+            return edgesByVertex[vertex] == null ? List.of() : edgesByVertex[vertex];
+        }
+    }
 
 }
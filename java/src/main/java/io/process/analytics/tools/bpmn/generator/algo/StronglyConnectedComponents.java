@@ -0,0 +1,132 @@
+/*
+ * Copyright 2026 Bonitasoft S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.process.analytics.tools.bpmn.generator.algo;
+
+import java.util.Arrays;
+
+/**
+ * Strongly connected components of a {@link DiagramGraph}, following the current direction of the edges.
+ *
+ * Computed with the Tarjan algorithm, using explicit stacks instead of recursion so deep graphs don't overflow the
+ * thread stack. Components are numbered in reverse topological order: an edge between two components always goes
+ * to a component with a lower number.
+ */
+final class StronglyConnectedComponents {
+
+    private final int[] componentOfVertex;
+    // vertices grouped by component
+    private final int[] offsets;
+    private final int[] vertices;
+
+    static StronglyConnectedComponents of(DiagramGraph graph) {
+        int vertexCount = graph.vertexCount();
+        int[] componentOfVertex = new int[vertexCount];
+        int componentCount = 0;
+
+        int[] index = new int[vertexCount];
+        Arrays.fill(index, -1);
+        int[] lowLink = new int[vertexCount];
+        int nextIndex = 0;
+        int[] stack = new int[vertexCount];
+        boolean[] onStack = new boolean[vertexCount];
+        int stackSize = 0;
+        // vertices being explored, with the rank of their next outgoing edge to explore
+        int[] callVertices = new int[vertexCount];
+        int[] callNextEdges = new int[vertexCount];
+        int callDepth = 0;
+
+        for (int root = 0; root < vertexCount; root++) {
+            if (index[root] >= 0) {
+                continue;
+            }
+            index[root] = lowLink[root] = nextIndex++;
+            stack[stackSize++] = root;
+            onStack[root] = true;
+            callVertices[callDepth] = root;
+            callNextEdges[callDepth++] = 0;
+
+            while (callDepth > 0) {
+                int vertex = callVertices[callDepth - 1];
+                int edgeRank = callNextEdges[callDepth - 1];
+                if (edgeRank < graph.outDegree(vertex)) {
+                    callNextEdges[callDepth - 1]++;
+                    int target = graph.to(graph.outEdge(vertex, edgeRank));
+                    if (index[target] < 0) {
+                        index[target] = lowLink[target] = nextIndex++;
+                        stack[stackSize++] = target;
+                        onStack[target] = true;
+                        callVertices[callDepth] = target;
+                        callNextEdges[callDepth++] = 0;
+                    } else if (onStack[target]) {
+                        lowLink[vertex] = Math.min(lowLink[vertex], index[target]);
+                    }
+                } else {
+                    if (lowLink[vertex] == index[vertex]) {
+                        int member;
+                        do {
+                            member = stack[--stackSize];
+                            onStack[member] = false;
+                            componentOfVertex[member] = componentCount;
+                        } while (member != vertex);
+                        componentCount++;
+                    }
+                    callDepth--;
+                    if (callDepth > 0) {
+                        int caller = callVertices[callDepth - 1];
+                        lowLink[caller] = Math.min(lowLink[caller], lowLink[vertex]);
+                    }
+                }
+            }
+        }
+        return new StronglyConnectedComponents(componentOfVertex, componentCount);
+    }
+
+    private StronglyConnectedComponents(int[] componentOfVertex, int componentCount) {
+        this.componentOfVertex = componentOfVertex;
+        offsets = new int[componentCount + 1];
+        vertices = new int[componentOfVertex.length];
+        for (int component : componentOfVertex) {
+            offsets[component + 1]++;
+        }
+        for (int c = 0; c < componentCount; c++) {
+            offsets[c + 1] += offsets[c];
+        }
+        int[] next = Arrays.copyOf(offsets, componentCount);
+        for (int vertex = 0; vertex < componentOfVertex.length; vertex++) {
+            vertices[next[componentOfVertex[vertex]]++] = vertex;
+        }
+    }
+
+    int count() {
+        return offsets.length - 1;
+    }
+
+    int componentOf(int vertex) {
+        return componentOfVertex[vertex];
+    }
+
+    int size(int component) {
+        return offsets[component + 1] - offsets[component];
+    }
+
+    /**
+     * @return the vertices of the component, in increasing order
+     */
+    int[] vertices(int component) {
+        return Arrays.copyOfRange(vertices, offsets[component], offsets[component + 1]);
+    }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2026 Bonitasoft S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.process.analytics.tools.bpmn.generator.algo;
+
+import java.util.Arrays;
+
+/**
+ * Weakly connected components of a {@link DiagramGraph}, i.e. the groups of vertices linked by edges whatever their
+ * direction.
+ *
+ * Computed with a union-find. Components are numbered by their lowest vertex, so in the order of their first shape in
+ * the diagram.
+ */
+final class WeaklyConnectedComponents {
+
+    private final int[] componentOfVertex;
+    // vertices grouped by component
+    private final int[] offsets;
+    private final int[] vertices;
+
+    static WeaklyConnectedComponents of(DiagramGraph graph) {
+        int vertexCount = graph.vertexCount();
+        int[] parent = new int[vertexCount];
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            parent[vertex] = vertex;
+        }
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            int fromRoot = root(parent, graph.from(e));
+            int toRoot = root(parent, graph.to(e));
+            // the lowest vertex stays the root
+            parent[Math.max(fromRoot, toRoot)] = Math.min(fromRoot, toRoot);
+        }
+
+        int[] componentOfVertex = new int[vertexCount];
+        int componentCount = 0;
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            int root = root(parent, vertex);
+            componentOfVertex[vertex] = root == vertex ? componentCount++ : componentOfVertex[root];
+        }
+        return new WeaklyConnectedComponents(componentOfVertex, componentCount);
+    }
+
+    private static int root(int[] parent, int vertex) {
+        while (parent[vertex] != vertex) {
+            // path halving
+            parent[vertex] = parent[parent[vertex]];
+            vertex = parent[vertex];
+        }
+        return vertex;
+    }
+
+    private WeaklyConnectedComponents(int[] componentOfVertex, int componentCount) {
+        this.componentOfVertex = componentOfVertex;
+        offsets = new int[componentCount + 1];
+        vertices = new int[componentOfVertex.length];
+        for (int component : componentOfVertex) {
+            offsets[component + 1]++;
+        }
+        for (int c = 0; c < componentCount; c++) {
+            offsets[c + 1] += offsets[c];
+        }
+        int[] next = Arrays.copyOf(offsets, componentCount);
+        for (int vertex = 0; vertex < componentOfVertex.length; vertex++) {
+            vertices[next[componentOfVertex[vertex]]++] = vertex;
+        }
+    }
+
+    int count() {
+        return offsets.length - 1;
+    }
+
+    int componentOf(int vertex) {
+        return componentOfVertex[vertex];
+    }
+
+    int size(int component) {
+        return offsets[component + 1] - offsets[component];
+    }
+
+    /**
+     * @return the vertices of the component, in increasing order
+     */
+    int[] vertices(int component) {
+        return Arrays.copyOfRange(vertices, offsets[component], offsets[component + 1]);
+    }
+
+}
@@ -17,86 +17,167 @@ package io.process.analytics.tools.bpmn.generator.converter;
 
 import static io.process.analytics.tools.bpmn.generator.converter.Configuration.CELL_HEIGHT;
 import static io.process.analytics.tools.bpmn.generator.converter.Configuration.CELL_WIDTH;
+import static io.process.analytics.tools.bpmn.generator.model.display.PackedDisplayModel.BOUNDS_SIZE;
 
-import java.util.Collection;
-import java.util.stream.Collectors;
+import java.util.Arrays;
+import java.util.List;
 
 import io.process.analytics.tools.bpmn.generator.converter.waypoint.WayPointsComputer;
+import io.process.analytics.tools.bpmn.generator.converter.waypoint.WayPointsConverter;
 import io.process.analytics.tools.bpmn.generator.model.*;
 import io.process.analytics.tools.bpmn.generator.model.display.*;
 
 public class AlgoToDisplayModelConverter {
 
     public DisplayModel convert(Grid grid, Diagram diagram) {
-        DisplayModel.DisplayModelBuilder model = DisplayModel.builder();
+        return convertToPackedModel(grid, diagram).toDisplayModel();
+    }
+
+    /**
+     * Same as {@link #convert(Grid, Diagram)}, without creating objects for each flow node and waypoint.
+     */
+    public PackedDisplayModel convertToPackedModel(Grid grid, Diagram diagram) {
+        PackedDisplayModel.PackedDisplayModelBuilder model = PackedDisplayModel.builder();
         // dimensions must be increased when generating alternate path to avoid edge overlapping on shapes
         // mainly impact on svg exporter. If the dimensions are not updated, the alternate paths are not fully displayed
         // as they are out of the viewport of the svg
         // increase to display edges with extra paths to avoid shape overlapping
         model.width(grid.width() * CELL_WIDTH).height((grid.height() + 1) * CELL_HEIGHT);
 
-        Collection<DisplayFlowNode> flowNodes = grid.getPositions().stream()
-                .map(position -> toDisplayFlowNode(position, diagram))
-                .collect(Collectors.toList());
-        model.flowNodes(flowNodes);
-
-        WayPointsComputer wayPointsComputer = new WayPointsComputer(grid, flowNodes);
-        diagram.getEdges()
-                .stream()
-                .map(edge -> new DisplayEdge(edge.getId(), wayPointsComputer.compute(edge)))
-                .forEach(model::edge);
+        List<Position> positions = grid.getPositions();
+        FlowNodes flowNodes = new FlowNodes(positions.size());
+        for (int node = 0; node < positions.size(); node++) {
+            flowNodes.set(node, positions.get(node), diagram);
+        }
+        model.flowNodeIds(flowNodes.ids)
+                .flowNodeTypes(flowNodes.types)
+                .flowNodeBounds(flowNodes.bounds)
+                .flowNodeRx(flowNodes.rx)
+                .flowNodeStrokeWidths(flowNodes.strokeWidths)
+                .labelTexts(flowNodes.labelTexts)
+                .labelFontSizes(flowNodes.labelFontSizes)
+                .labelBounds(flowNodes.labelBounds);
+
+        WayPointsComputer wayPointsComputer = new WayPointsComputer(grid, flowNodes.ids, flowNodes.bounds);
+        int edgeCount = diagram.getEdges().size();
+        String[] edgeIds = new String[edgeCount];
+        int[] wayPointOffsets = new int[edgeCount + 1];
+        PackedWayPoints wayPoints = new PackedWayPoints(edgeCount);
+        int e = 0;
+        for (Edge edge : diagram.getEdges()) {
+            edgeIds[e] = edge.getId();
+            wayPointsComputer.compute(edge, wayPoints);
+            wayPointOffsets[++e] = wayPoints.count();
+        }
+        model.edgeIds(edgeIds).wayPointOffsets(wayPointOffsets).wayPoints(wayPoints.toArray());
 
         return model.build();
     }
 
-    private DisplayFlowNode toDisplayFlowNode(Position position, Diagram diagram) {
-        int xOffset = position.getX() * CELL_WIDTH;
-        int yOffset = position.getY() * CELL_HEIGHT;
-        int nodeWidth = x(60);
-        int nodeHeight = y(60);
-
-        // TODO manage when not found (should not occur)
-        Shape shape = diagram.getShapes().stream()
-                .filter(s -> s.getId().equals(position.getShape()))
-                .findFirst().get();
-        String name = shape.getName();
-
-        // ensure to have a square shape (i.e. same width and height) for non activity elements
-        ShapeType shapeType = shape.getType();
-        if (shapeType == ShapeType.EVENT || shapeType == ShapeType.GATEWAY) {
-            int nodeDimension = Math.min(nodeWidth, nodeHeight);
-            if (shapeType == ShapeType.EVENT) {
-                nodeDimension /= 2;
+    // flow nodes, stored by column as in PackedDisplayModel
+    private static final class FlowNodes {
+
+        private final String[] ids;
+        private final ShapeType[] types;
+        private final int[] bounds;
+        private final int[] rx;
+        private final int[] strokeWidths;
+        private final String[] labelTexts;
+        private final int[] labelFontSizes;
+        private final int[] labelBounds;
+
+        private FlowNodes(int count) {
+            ids = new String[count];
+            types = new ShapeType[count];
+            bounds = new int[BOUNDS_SIZE * count];
+            rx = new int[count];
+            strokeWidths = new int[count];
+            labelTexts = new String[count];
+            labelFontSizes = new int[count];
+            labelBounds = new int[BOUNDS_SIZE * count];
+        }
+
+        private void set(int node, Position position, Diagram diagram) {
+            int xOffset = position.getX() * CELL_WIDTH;
+            int yOffset = position.getY() * CELL_HEIGHT;
+            int nodeWidth = x(60);
+            int nodeHeight = y(60);
+
+            // TODO manage when not found (should not occur)
+            Shape shape = diagram.getShape(position.getShape());
+            String name = shape.getName();
+
+            // ensure to have a square shape (i.e. same width and height) for non activity elements
+            ShapeType shapeType = shape.getType();
+            if (shapeType == ShapeType.EVENT || shapeType == ShapeType.GATEWAY) {
+                int nodeDimension = Math.min(nodeWidth, nodeHeight);
+                if (shapeType == ShapeType.EVENT) {
+                    nodeDimension /= 2;
+                }
+                nodeWidth = nodeDimension;
+                nodeHeight = nodeDimension;
             }
-            nodeWidth = nodeDimension;
-            nodeHeight = nodeDimension;
+
+            int x = xOffset + (CELL_WIDTH - nodeWidth) / 2;
+            int y = yOffset + (CELL_HEIGHT - nodeHeight) / 2;
+            setBounds(bounds, node, x, y, nodeWidth, nodeHeight);
+
+            // Labels positions better work with the SVG export
+            // BPMN label positions are adjusted in BPMNDiagramRichBuilder
+            int labelX = xOffset + x(50);
+            int labelY = yOffset + y(50);
+            if (shapeType == ShapeType.EVENT) { // put the label under the shape
+                labelY = (int) (y + nodeHeight * 1.5);
+            } else if (shapeType == ShapeType.GATEWAY) { // put the label on the top left of the shape
+                labelX = (int) (x - nodeWidth * 0.5);
+                labelY = (int) (y - nodeHeight * 0.5);
+            }
+            setBounds(labelBounds, node, labelX, labelY, nodeWidth, nodeHeight);
+            labelTexts[node] = name;
+            labelFontSizes[node] = y(16);
+
+            ids[node] = shape.getId();
+            types[node] = shapeType;
+            rx[node] = y(10);
+            strokeWidths[node] = y(5);
         }
 
-        int x = xOffset + (CELL_WIDTH - nodeWidth) / 2;
-        int y = yOffset + (CELL_HEIGHT - nodeHeight) / 2;
-        DisplayDimension flowNodeDimension = new DisplayDimension(x, y, nodeWidth, nodeHeight);
-
-        // Labels positions better work with the SVG export
-        // BPMN label positions are adjusted in BPMNDiagramRichBuilder
-        int labelX = xOffset + x(50);
-        int labelY = yOffset + y(50);
-        if (shapeType == ShapeType.EVENT) { // put the label under the shape
-            labelY = (int) (y + nodeHeight * 1.5);
-        } else if (shapeType == ShapeType.GATEWAY) { // put the label on the top left of the shape
-            labelX = (int) (x - nodeWidth * 0.5);
-            labelY = (int) (y - nodeHeight * 0.5);
+        private static void setBounds(int[] bounds, int node, int x, int y, int width, int height) {
+            int offset = BOUNDS_SIZE * node;
+            bounds[offset] = x;
+            bounds[offset + 1] = y;
+            bounds[offset + 2] = width;
+            bounds[offset + 3] = height;
         }
+    }
 
-        DisplayDimension labelDimension = new DisplayDimension(labelX, labelY, nodeWidth, nodeHeight);
-        DisplayLabel label = new DisplayLabel(name, y(16), labelDimension);
+    // waypoints of all the edges, as x, y pairs
+    private static final class PackedWayPoints implements WayPointsConverter.WayPoints {
 
-        return DisplayFlowNode.builder().bpmnElementId(shape.getId())
-                .dimension(flowNodeDimension)
-                .label(label)
-                .type(shapeType)
-                .rx(y(10))
-                .strokeWidth(y(5))
-                .build();
+        private int[] coordinates;
+        private int size;
+
+        private PackedWayPoints(int edgeCount) {
+            // most edges only have 2 waypoints
+            coordinates = new int[Math.max(4, 4 * edgeCount)];
+        }
+
+        @Override
+        public void add(int x, int y) {
+            if (size + 2 > coordinates.length) {
+                coordinates = Arrays.copyOf(coordinates, 2 * coordinates.length);
+            }
+            coordinates[size++] = x;
+            coordinates[size++] = y;
+        }
+
+        private int count() {
+            return size / 2;
+        }
+
+        private int[] toArray() {
+            return Arrays.copyOf(coordinates, size);
+        }
     }
 
     private static int x(int percentage) {
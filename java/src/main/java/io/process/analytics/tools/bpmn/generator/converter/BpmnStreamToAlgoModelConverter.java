@@ -0,0 +1,194 @@
+/*
+ * Copyright 2026 Bonitasoft S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.process.analytics.tools.bpmn.generator.converter;
+
+import static io.process.analytics.tools.bpmn.generator.model.ShapeType.*;
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.bind.annotation.adapters.CollapsedStringAdapter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import io.process.analytics.tools.bpmn.generator.input.InvalidInputException;
+import io.process.analytics.tools.bpmn.generator.model.Diagram;
+import io.process.analytics.tools.bpmn.generator.model.Edge;
+import io.process.analytics.tools.bpmn.generator.model.Shape;
+import io.process.analytics.tools.bpmn.generator.model.ShapeType;
+
+/**
+ * Same conversion as {@link BpmnToAlgoModelConverter}, done while parsing the BPMN instead of on the JAXB model.
+ *
+ * Only the flow nodes and sequence flows of the processes are read, in a single pass. Everything else (collaboration,
+ * diagram interchange, extension elements, documentation, content of the sub-processes...) is skipped without being
+ * kept in memory, so large files can be read with a memory proportional to the size of the resulting diagrams.
+ */
+public class BpmnStreamToAlgoModelConverter {
+
+    private static final String BPMN_MODEL_NAMESPACE = "http://www.omg.org/spec/BPMN/20100524/MODEL";
+    private static final XMLInputFactory inputFactory = initInputFactory();
+    // ids are collapsed, as done by JAXB
+    private static final CollapsedStringAdapter idAdapter = new CollapsedStringAdapter();
+
+    // elements of the flowElement substitution group that are flow nodes
+    private static final Map<String, ShapeType> flowNodeTypes = new HashMap<>() {{
+        for (String activity : List.of("task", "userTask", "serviceTask", "sendTask", "receiveTask", "manualTask",
+                "businessRuleTask", "scriptTask", "subProcess", "adHocSubProcess", "transaction", "callActivity",
+                "callChoreography", "choreographyTask", "subChoreography")) {
+            put(activity, ACTIVITY);
+        }
+        for (String event : List.of("event", "startEvent", "endEvent", "intermediateCatchEvent",
+                "intermediateThrowEvent", "boundaryEvent", "implicitThrowEvent")) {
+            put(event, EVENT);
+        }
+        for (String gateway : List.of("exclusiveGateway", "inclusiveGateway", "parallelGateway", "complexGateway",
+                "eventBasedGateway")) {
+            put(gateway, GATEWAY);
+        }
+    }};
+
+    private static XMLInputFactory initInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    public List<Diagram> toAlgoModelByProcess(String bpmn) {
+        return toAlgoModelByProcess(new StringReader(bpmn));
+    }
+
+    /**
+     * @param bpmn read as XML, the encoding is detected from its content. The stream is not closed.
+     */
+    public List<Diagram> toAlgoModelByProcess(InputStream bpmn) {
+        try {
+            return toAlgoModelByProcess(inputFactory.createXMLStreamReader(bpmn));
+        } catch (XMLStreamException e) {
+            throw new InvalidInputException("Unable to read the BPMN", e);
+        }
+    }
+
+    /**
+     * @param bpmn the reader is not closed
+     * @return a diagram for each process, in the order of the processes in the definitions
+     */
+    public List<Diagram> toAlgoModelByProcess(Reader bpmn) {
+        try {
+            return toAlgoModelByProcess(inputFactory.createXMLStreamReader(bpmn));
+        } catch (XMLStreamException e) {
+            throw new InvalidInputException("Unable to read the BPMN", e);
+        }
+    }
+
+    private static List<Diagram> toAlgoModelByProcess(XMLStreamReader reader) throws XMLStreamException {
+        try {
+            List<Diagram> diagrams = new ArrayList<>();
+            // move to the definitions
+            reader.nextTag();
+            while (nextChild(reader)) {
+                if (isBpmnElement(reader, "process")) {
+                    diagrams.add(readProcess(reader));
+                } else {
+                    skipElement(reader);
+                }
+            }
+            return diagrams;
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static Diagram readProcess(XMLStreamReader reader) throws XMLStreamException {
+        Diagram.DiagramBuilder diagram = Diagram.builder();
+        while (nextChild(reader)) {
+            ShapeType shapeType = flowNodeTypes.get(reader.getLocalName());
+            if (!BPMN_MODEL_NAMESPACE.equals(reader.getNamespaceURI())) {
+                skipElement(reader);
+            } else if (shapeType != null) {
+                diagram.shape(readFlowNode(reader, shapeType));
+            } else if (reader.getLocalName().equals("sequenceFlow")) {
+                diagram.edge(Edge.edge(id(reader, "id"), id(reader, "sourceRef"), id(reader, "targetRef")));
+                skipElement(reader);
+            } else {
+                skipElement(reader);
+            }
+        }
+        return diagram.build();
+    }
+
+    private static Shape readFlowNode(XMLStreamReader reader, ShapeType shapeType) throws XMLStreamException {
+        String id = id(reader, "id");
+        String name = reader.getAttributeValue(null, "name");
+        int outgoingCount = 0;
+        while (nextChild(reader)) {
+            if (isBpmnElement(reader, "outgoing")) {
+                outgoingCount++;
+            }
+            skipElement(reader);
+        }
+        return new Shape(id, name, shapeType, shapeType == GATEWAY && outgoingCount > 1);
+    }
+
+    private static String id(XMLStreamReader reader, String attribute) {
+        return idAdapter.unmarshal(reader.getAttributeValue(null, attribute));
+    }
+
+    private static boolean isBpmnElement(XMLStreamReader reader, String localName) {
+        return localName.equals(reader.getLocalName()) && BPMN_MODEL_NAMESPACE.equals(reader.getNamespaceURI());
+    }
+
+    /**
+     * Move to the start of the next child of the current element.
+     *
+     * @return false when the end of the current element is reached instead
+     */
+    private static boolean nextChild(XMLStreamReader reader) throws XMLStreamException {
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == START_ELEMENT) {
+                return true;
+            }
+            if (event == END_ELEMENT) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    // move to the end of the current element
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == START_ELEMENT) {
+                depth++;
+            } else if (event == END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+}
@@ -18,6 +18,7 @@ package io.process.analytics.tools.bpmn.generator.converter;
 import static io.process.analytics.tools.bpmn.generator.internal.Semantic.getId;
 import static io.process.analytics.tools.bpmn.generator.model.ShapeType.*;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import io.process.analytics.tools.bpmn.generator.internal.Semantic;
@@ -31,12 +32,25 @@ import io.process.analytics.tools.bpmn.generator.model.ShapeType;
 public class BpmnToAlgoModelConverter {
 
     public Diagram toAlgoModel(TDefinitions definitions) {
-        Semantic semantic = new Semantic(definitions);
         Diagram.DiagramBuilder diagram = Diagram.builder();
+        for (Diagram processDiagram : toAlgoModelByProcess(definitions)) {
+            diagram.shapes(processDiagram.getShapes());
+            diagram.edges(processDiagram.getEdges());
+        }
+        return diagram.build();
+    }
+
+    /**
+     * @return a diagram for each process, in the order of the processes in the definitions
+     */
+    public List<Diagram> toAlgoModelByProcess(TDefinitions definitions) {
+        Semantic semantic = new Semantic(definitions);
+        List<Diagram> diagrams = new ArrayList<>();
 
         List<TProcess> processes = semantic.getProcesses();
         for (TProcess process : processes) {
             BpmnElements bpmnElements = semantic.getBpmnElements(process);
+            Diagram.DiagramBuilder diagram = Diagram.builder();
 
             bpmnElements.getFlowNodes()
                     .stream()
@@ -47,9 +61,11 @@ public class BpmnToAlgoModelConverter {
                     .stream()
                     .map(seqFlow -> Edge.edge(seqFlow.getId(), getId(seqFlow.getSourceRef()), getId(seqFlow.getTargetRef())))
                     .forEach(diagram::edge);
+
+            diagrams.add(diagram.build());
         }
 
-        return diagram.build();
+        return diagrams;
     }
 
     // visible for testing
@@ -12,28 +12,37 @@
  */
 package io.process.analytics.tools.bpmn.generator.converter.waypoint;
 
-import io.process.analytics.tools.bpmn.generator.model.display.DisplayDimension;
-import io.process.analytics.tools.bpmn.generator.model.display.DisplayPoint;
+import static io.process.analytics.tools.bpmn.generator.model.display.PackedDisplayModel.BOUNDS_SIZE;
 
 /**
  * Compute coordinates of the terminal points (source or target) of an Edge.
+ *
+ * The flow nodes are given by their bounds, packed as in {@link io.process.analytics.tools.bpmn.generator.model.display.PackedDisplayModel}.
  */
 public class EdgeTerminalPoints {
 
-    public DisplayPoint rightMiddle(DisplayDimension dimension) {
-        return new DisplayPoint(dimension.x + dimension.width, dimension.y + dimension.height / 2);
+    public int left(int[] bounds, int node) {
+        return bounds[BOUNDS_SIZE * node];
     }
 
-    public DisplayPoint leftMiddle(DisplayDimension dimension) {
-        return new DisplayPoint(dimension.x, dimension.y + dimension.height / 2);
+    public int right(int[] bounds, int node) {
+        return bounds[BOUNDS_SIZE * node] + bounds[BOUNDS_SIZE * node + 2];
     }
 
-    public DisplayPoint centerBottom(DisplayDimension dimension) {
-        return new DisplayPoint(dimension.x + dimension.width / 2, dimension.y + dimension.height);
+    public int center(int[] bounds, int node) {
+        return bounds[BOUNDS_SIZE * node] + bounds[BOUNDS_SIZE * node + 2] / 2;
     }
 
-    public DisplayPoint centerTop(DisplayDimension dimension) {
-        return new DisplayPoint(dimension.x + dimension.width / 2, dimension.y);
+    public int top(int[] bounds, int node) {
+        return bounds[BOUNDS_SIZE * node + 1];
+    }
+
+    public int middle(int[] bounds, int node) {
+        return bounds[BOUNDS_SIZE * node + 1] + bounds[BOUNDS_SIZE * node + 3] / 2;
+    }
+
+    public int bottom(int[] bounds, int node) {
+        return bounds[BOUNDS_SIZE * node + 1] + bounds[BOUNDS_SIZE * node + 3];
     }
 
 }
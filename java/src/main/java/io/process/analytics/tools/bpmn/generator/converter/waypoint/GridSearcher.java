@@ -12,17 +12,33 @@
  */
 package io.process.analytics.tools.bpmn.generator.converter.waypoint;
 
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
 import io.process.analytics.tools.bpmn.generator.model.Edge;
 import io.process.analytics.tools.bpmn.generator.model.Grid;
 import io.process.analytics.tools.bpmn.generator.model.Position;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 
-@RequiredArgsConstructor
 @Log4j2
 public class GridSearcher {
 
-    private final Grid grid;
+    // indexes built once, as the grid doesn't change while computing way points
+    // for each row, the sorted columns of its shapes
+    private final int[][] columnsByRow;
+    private final Map<String, Position> positionsByShape = new HashMap<>();
+
+    public GridSearcher(Grid grid) {
+        columnsByRow = new int[grid.height()][];
+        for (int y = 0; y < columnsByRow.length; y++) {
+            columnsByRow[y] = grid.getRow(y).stream().mapToInt(Position::getX).sorted().toArray();
+        }
+        for (Position position : grid.getPositions()) {
+            positionsByShape.putIfAbsent(position.getShape(), position);
+        }
+    }
 
     public Position getPositionFrom(Edge edge) {
         return getPosition(edge, true);
@@ -38,32 +54,28 @@ public class GridSearcher {
     }
 
     private Position getPositionOfShape(String shapeId) {
-        return grid.getPositions()
-                .stream()
-                .filter(p -> shapeId.equals(p.getShape()))
-                .findFirst()
-                .get(); // always exist, otherwise error occur on flow node generation
+        Position position = positionsByShape.get(shapeId);
+        if (position == null) {
+            // always exist, otherwise error occur on flow node generation
+            throw new NoSuchElementException("No position for shape " + shapeId);
+        }
+        return position;
     }
 
     public boolean isShapeExistAtLeft(Position position) {
-        return grid.getPositions()
-                .stream()
-                .filter(p -> p.getY() == position.getY())
-                .anyMatch(p -> p.getX() == position.getX() - 1);
+        return isFilled(position.getX() - 1, position.getY());
     }
 
     public boolean isShapeExistAtRight(final Position position) {
-        return grid.getPositions()
-                .stream()
-                .filter(p -> p.getY() == position.getY())
-                .anyMatch(p -> p.getX() == position.getX() + 1);
+        return isFilled(position.getX() + 1, position.getY());
     }
 
     public boolean isShapeExistAbove(final Position positionFrom) {
-        return grid.getPositions()
-                .stream()
-                .filter(p -> p.getX() == positionFrom.getX())
-                .anyMatch(p -> p.getY() == positionFrom.getY() - 1);
+        return isFilled(positionFrom.getX(), positionFrom.getY() - 1);
+    }
+
+    private boolean isFilled(int x, int y) {
+        return y >= 0 && y < columnsByRow.length && Arrays.binarySearch(columnsByRow[y], x) >= 0;
     }
 
     public BendConfiguration computeConfigurationToPassByEmptyRow(Position positionFrom, Position positionTo,
@@ -73,6 +85,7 @@ public class GridSearcher {
         boolean isElementBetween = true;
 
         log.debug("Search empty rows in direction {}", searchDirection);
+        // rows outside the grid are empty, so there are at most as many rows to check as the grid height
         while (isElementBetween) {
             offset++;
             isElementBetween = this.hasElementsBetweenPositionsHorizontally(
@@ -85,11 +98,24 @@ public class GridSearcher {
 
     private boolean hasElementsBetweenPositionsHorizontally(final int y, final int x1, final int x2) {
         log.debug("Searching for elements horizontally between positions. y={} x1={} x2={}", y, x1, x2);
-        return grid.getPositions()
-                .stream()
-                .filter(p -> p.getY() == y)
-                .filter(p -> p.getX() > Math.min(x1, x2))
-                .anyMatch(p -> p.getX() < Math.max(x1, x2));
+        if (y < 0 || y >= columnsByRow.length) {
+            return false;
+        }
+        int[] columns = columnsByRow[y];
+        int firstColumnAfterMin = firstIndexGreaterThan(columns, Math.min(x1, x2));
+        return firstColumnAfterMin < columns.length && columns[firstColumnAfterMin] < Math.max(x1, x2);
+    }
+
+    private static int firstIndexGreaterThan(int[] sortedValues, int value) {
+        int index = Arrays.binarySearch(sortedValues, value);
+        if (index < 0) {
+            return -index - 1;
+        }
+        // skip the values equal to the searched one
+        while (index < sortedValues.length && sortedValues[index] == value) {
+            index++;
+        }
+        return index;
     }
 
 }
@@ -12,12 +12,19 @@
  */
 package io.process.analytics.tools.bpmn.generator.converter.waypoint;
 
+import static io.process.analytics.tools.bpmn.generator.model.display.PackedDisplayModel.BOUNDS_SIZE;
+
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 
 import io.process.analytics.tools.bpmn.generator.model.Edge;
 import io.process.analytics.tools.bpmn.generator.model.Grid;
 import io.process.analytics.tools.bpmn.generator.model.Position;
+import io.process.analytics.tools.bpmn.generator.model.display.DisplayDimension;
 import io.process.analytics.tools.bpmn.generator.model.display.DisplayFlowNode;
 import io.process.analytics.tools.bpmn.generator.model.display.DisplayPoint;
 import lombok.extern.log4j.Log4j2;
@@ -25,34 +32,67 @@ import lombok.extern.log4j.Log4j2;
 @Log4j2
 public class WayPointsComputer {
 
-    private final Collection<DisplayFlowNode> flowNodes;
+    private final Map<String, Integer> flowNodeIndexesById = new HashMap<>();
+    // packed as in PackedDisplayModel
+    private final int[] flowNodeBounds;
     private final GridSearcher gridSearcher;
     private final WayPointsConverter wayPointsConverter = new WayPointsConverter();
     private final WayPointsPositioner wayPointsPositioner;
 
     public WayPointsComputer(final Grid grid, final Collection<DisplayFlowNode> flowNodes) {
-        this.flowNodes = flowNodes;
+        this(grid, flowNodes.stream().map(flowNode -> flowNode.bpmnElementId).toArray(String[]::new), bounds(flowNodes));
+    }
+
+    /**
+     * @param flowNodeBounds bounds of the flow nodes, packed as in {@link io.process.analytics.tools.bpmn.generator.model.display.PackedDisplayModel}
+     */
+    public WayPointsComputer(final Grid grid, final String[] flowNodeIds, final int[] flowNodeBounds) {
+        for (int i = 0; i < flowNodeIds.length; i++) {
+            flowNodeIndexesById.putIfAbsent(flowNodeIds[i], i);
+        }
+        this.flowNodeBounds = flowNodeBounds;
         gridSearcher = new GridSearcher(grid);
         wayPointsPositioner = new WayPointsPositioner(gridSearcher);
     }
 
+    private static int[] bounds(Collection<DisplayFlowNode> flowNodes) {
+        int[] bounds = new int[BOUNDS_SIZE * flowNodes.size()];
+        int i = 0;
+        for (DisplayFlowNode flowNode : flowNodes) {
+            DisplayDimension dimension = flowNode.dimension;
+            bounds[i++] = dimension.x;
+            bounds[i++] = dimension.y;
+            bounds[i++] = dimension.width;
+            bounds[i++] = dimension.height;
+        }
+        return bounds;
+    }
+
     public List<DisplayPoint> compute(Edge edge) {
+        List<DisplayPoint> wayPoints = new ArrayList<>();
+        compute(edge, (x, y) -> wayPoints.add(new DisplayPoint(x, y)));
+        return wayPoints;
+    }
+
+    public void compute(Edge edge, WayPointsConverter.WayPoints wayPoints) {
         log.debug("Inferring waypoints of edge {}", edge);
         Position positionFrom = gridSearcher.getPositionFrom(edge);
         Position positionTo = gridSearcher.getPositionTo(edge);
 
         WayPointDescriptor wayPointDescriptor = wayPointsPositioner.computeWaypointDescriptor(positionFrom, positionTo);
-        DisplayFlowNode flowNodeFrom = getFlowNode(positionFrom.getShape());
-        DisplayFlowNode flowNodeTo = getFlowNode(positionTo.getShape());
+        int flowNodeFrom = getFlowNodeIndex(positionFrom.getShape());
+        int flowNodeTo = getFlowNodeIndex(positionTo.getShape());
 
-        return wayPointsConverter.toDisplayPoints(wayPointDescriptor, flowNodeFrom.dimension, flowNodeTo.dimension);
+        wayPointsConverter.toWayPoints(wayPointDescriptor, flowNodeBounds, flowNodeFrom, flowNodeTo, wayPoints);
     }
 
-    private DisplayFlowNode getFlowNode(String flowNodeId) {
-        return flowNodes.stream()
-                .filter(f -> flowNodeId.equals(f.bpmnElementId))
-                .findFirst()
-                .get(); // always exist, otherwise error occur on flow node generation
+    private int getFlowNodeIndex(String flowNodeId) {
+        Integer flowNode = flowNodeIndexesById.get(flowNodeId);
+        if (flowNode == null) {
+            // always exist, otherwise error occur on flow node generation
+            throw new NoSuchElementException("No flow node " + flowNodeId);
+        }
+        return flowNode;
     }
 
 }
@@ -18,6 +18,7 @@ package io.process.analytics.tools.bpmn.generator.converter.waypoint;
 import static io.process.analytics.tools.bpmn.generator.converter.Configuration.CELL_HEIGHT;
 import static io.process.analytics.tools.bpmn.generator.converter.Configuration.EDGE_OUTGOING_FIRST_HORIZONTAL_SEGMENT_LENGTH;
 import static io.process.analytics.tools.bpmn.generator.converter.waypoint.Orientation.*;
+import static io.process.analytics.tools.bpmn.generator.model.display.PackedDisplayModel.BOUNDS_SIZE;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -31,129 +32,146 @@ public class WayPointsConverter {
 
     private final EdgeTerminalPoints edgeTerminalPoints = new EdgeTerminalPoints();
 
+    /**
+     * Receive the coordinates of the waypoints, one at a time, so they can be stored without a {@link DisplayPoint} per
+     * waypoint.
+     */
+    @FunctionalInterface
+    public interface WayPoints {
+
+        void add(int x, int y);
+    }
+
     public List<DisplayPoint> toDisplayPoints(WayPointDescriptor wayPointDescriptor, DisplayDimension dimensionFrom,
                                               DisplayDimension dimensionTo) {
+        int[] bounds = {
+                dimensionFrom.x, dimensionFrom.y, dimensionFrom.width, dimensionFrom.height,
+                dimensionTo.x, dimensionTo.y, dimensionTo.width, dimensionTo.height};
         List<DisplayPoint> wayPoints = new ArrayList<>();
+        toWayPoints(wayPointDescriptor, bounds, 0, 1, (x, y) -> wayPoints.add(new DisplayPoint(x, y)));
+        return wayPoints;
+    }
 
+    /**
+     * @param bounds of the flow nodes, packed as in {@link io.process.analytics.tools.bpmn.generator.model.display.PackedDisplayModel}
+     * @param nodeFrom index of the source flow node in the bounds
+     * @param nodeTo index of the target flow node in the bounds
+     */
+    public void toWayPoints(WayPointDescriptor wayPointDescriptor, int[] bounds, int nodeFrom, int nodeTo,
+                            WayPoints wayPoints) {
+        EdgeTerminalPoints points = edgeTerminalPoints;
         Orientation orientation = wayPointDescriptor.orientation;
         switch (wayPointDescriptor.direction) {
             case LeftToRight:
                 if (orientation == Horizontal) {
-                    wayPoints.add(edgeTerminalPoints.rightMiddle(dimensionFrom));
-                    wayPoints.add(edgeTerminalPoints.leftMiddle(dimensionTo));
+                    wayPoints.add(points.right(bounds, nodeFrom), points.middle(bounds, nodeFrom));
+                    wayPoints.add(points.left(bounds, nodeTo), points.middle(bounds, nodeTo));
                 }
                 else if (orientation == VerticalHorizontalVertical) {
                     log.debug("Special case LeftToRight VerticalHorizontalVertical");
-                    wayPoints = computeWaypointsWithBendPoint(wayPointDescriptor.bendConfiguration, dimensionFrom, dimensionTo);
+                    addWaypointsWithBendPoint(wayPointDescriptor.bendConfiguration, bounds, nodeFrom, nodeTo, wayPoints);
                 }
                 break;
             case RightToLeft:
                 if (orientation == Horizontal) {
-                    wayPoints.add(edgeTerminalPoints.leftMiddle(dimensionFrom));
-                    wayPoints.add(edgeTerminalPoints.rightMiddle(dimensionTo));
+                    wayPoints.add(points.left(bounds, nodeFrom), points.middle(bounds, nodeFrom));
+                    wayPoints.add(points.right(bounds, nodeTo), points.middle(bounds, nodeTo));
                 }
                 else if (orientation == VerticalHorizontalVertical) {
                     log.debug("Special case RightToLeft VerticalHorizontalVertical");
-                    wayPoints = computeWaypointsWithBendPoint(wayPointDescriptor.bendConfiguration, dimensionFrom, dimensionTo);
+                    addWaypointsWithBendPoint(wayPointDescriptor.bendConfiguration, bounds, nodeFrom, nodeTo, wayPoints);
                 }
                 break;
             case BottomLeftToTopRight:
                 if (orientation == HorizontalVertical) {
-                    DisplayPoint from = edgeTerminalPoints.rightMiddle(dimensionFrom);
-                    DisplayPoint to = edgeTerminalPoints.centerBottom(dimensionTo);
-                    wayPoints.add(from);
-                    wayPoints.add(new DisplayPoint(to.x, from.y));
-                    wayPoints.add(to);
+                    addHorizontalThenVertical(points.right(bounds, nodeFrom), points.middle(bounds, nodeFrom),
+                            points.center(bounds, nodeTo), points.bottom(bounds, nodeTo), wayPoints);
                 } else if (orientation == VerticalHorizontal) {
-                    DisplayPoint from = edgeTerminalPoints.rightMiddle(dimensionFrom);
-                    DisplayPoint to = edgeTerminalPoints.leftMiddle(dimensionTo);
-                    wayPoints.add(from);
-                    wayPoints.add(new DisplayPoint(from.x + EDGE_OUTGOING_FIRST_HORIZONTAL_SEGMENT_LENGTH, from.y));
-                    wayPoints.add(new DisplayPoint(from.x + EDGE_OUTGOING_FIRST_HORIZONTAL_SEGMENT_LENGTH, to.y));
-                    wayPoints.add(to);
+                    addWithFirstHorizontalSegment(points.right(bounds, nodeFrom), points.middle(bounds, nodeFrom),
+                            points.left(bounds, nodeTo), points.middle(bounds, nodeTo), wayPoints);
                 }
                 break;
             case BottomRightToTopLeft:
                 if (orientation == HorizontalVertical) {
-                    DisplayPoint from = edgeTerminalPoints.leftMiddle(dimensionFrom);
-                    DisplayPoint to = edgeTerminalPoints.centerBottom(dimensionTo);
-                    wayPoints.add(from);
-                    wayPoints.add(new DisplayPoint(to.x, from.y));
-                    wayPoints.add(to);
+                    addHorizontalThenVertical(points.left(bounds, nodeFrom), points.middle(bounds, nodeFrom),
+                            points.center(bounds, nodeTo), points.bottom(bounds, nodeTo), wayPoints);
                 } else if (orientation == VerticalHorizontal) {
-                    DisplayPoint from = edgeTerminalPoints.centerTop(dimensionFrom);
-                    DisplayPoint to = edgeTerminalPoints.rightMiddle(dimensionTo);
-                    wayPoints.add(from);
-                    wayPoints.add(new DisplayPoint(from.x, to.y));
-                    wayPoints.add(to);
+                    addVerticalThenHorizontal(points.center(bounds, nodeFrom), points.top(bounds, nodeFrom),
+                            points.right(bounds, nodeTo), points.middle(bounds, nodeTo), wayPoints);
                 }
                 break;
             case TopLeftToBottomRight:
                 if (orientation == HorizontalVertical) {
-                    DisplayPoint from = edgeTerminalPoints.rightMiddle(dimensionFrom);
-                    DisplayPoint to = edgeTerminalPoints.centerTop(dimensionTo);
-                    wayPoints.add(from);
-                    wayPoints.add(new DisplayPoint(to.x, from.y));
-                    wayPoints.add(to);
+                    addHorizontalThenVertical(points.right(bounds, nodeFrom), points.middle(bounds, nodeFrom),
+                            points.center(bounds, nodeTo), points.top(bounds, nodeTo), wayPoints);
                 } else if (orientation == VerticalHorizontal) {
-                    DisplayPoint from = edgeTerminalPoints.rightMiddle(dimensionFrom);
-                    DisplayPoint to = edgeTerminalPoints.leftMiddle(dimensionTo);
-                    wayPoints.add(from);
-                    wayPoints.add(new DisplayPoint(from.x + EDGE_OUTGOING_FIRST_HORIZONTAL_SEGMENT_LENGTH, from.y));
-                    wayPoints.add(new DisplayPoint(from.x + EDGE_OUTGOING_FIRST_HORIZONTAL_SEGMENT_LENGTH, to.y));
-                    wayPoints.add(to);
+                    addWithFirstHorizontalSegment(points.right(bounds, nodeFrom), points.middle(bounds, nodeFrom),
+                            points.left(bounds, nodeTo), points.middle(bounds, nodeTo), wayPoints);
                 }
                 break;
             case TopRightToBottomLeft:
                 if (orientation == HorizontalVertical) {
-                    DisplayPoint from = edgeTerminalPoints.leftMiddle(dimensionFrom);
-                    DisplayPoint to = edgeTerminalPoints.centerTop(dimensionTo);
-                    wayPoints.add(from);
-                    wayPoints.add(new DisplayPoint(to.x, from.y));
-                    wayPoints.add(to);
+                    addHorizontalThenVertical(points.left(bounds, nodeFrom), points.middle(bounds, nodeFrom),
+                            points.center(bounds, nodeTo), points.top(bounds, nodeTo), wayPoints);
                 } else if (orientation == VerticalHorizontal) {
-                    DisplayPoint from = edgeTerminalPoints.centerBottom(dimensionFrom);
-                    DisplayPoint to = edgeTerminalPoints.rightMiddle(dimensionTo);
-                    wayPoints.add(from);
-                    wayPoints.add(new DisplayPoint(from.x, to.y));
-                    wayPoints.add(to);
+                    addVerticalThenHorizontal(points.center(bounds, nodeFrom), points.bottom(bounds, nodeFrom),
+                            points.right(bounds, nodeTo), points.middle(bounds, nodeTo), wayPoints);
                 }
                 break;
             case BottomToTop:
                 if (orientation == Vertical) {
-                    wayPoints.add(edgeTerminalPoints.centerTop(dimensionFrom));
-                    wayPoints.add(edgeTerminalPoints.centerBottom(dimensionTo));
+                    wayPoints.add(points.center(bounds, nodeFrom), points.top(bounds, nodeFrom));
+                    wayPoints.add(points.center(bounds, nodeTo), points.bottom(bounds, nodeTo));
                 }
                 break;
             case TopToBottom:
                 if (orientation == Vertical) {
-                    wayPoints.add(edgeTerminalPoints.centerBottom(dimensionFrom));
-                    wayPoints.add(edgeTerminalPoints.centerTop(dimensionTo));
+                    wayPoints.add(points.center(bounds, nodeFrom), points.bottom(bounds, nodeFrom));
+                    wayPoints.add(points.center(bounds, nodeTo), points.top(bounds, nodeTo));
                 }
                 break;
             default:
                 // do nothing
         }
-        return wayPoints;
+    }
+
+    private static void addHorizontalThenVertical(int fromX, int fromY, int toX, int toY, WayPoints wayPoints) {
+        wayPoints.add(fromX, fromY);
+        wayPoints.add(toX, fromY);
+        wayPoints.add(toX, toY);
+    }
+
+    private static void addVerticalThenHorizontal(int fromX, int fromY, int toX, int toY, WayPoints wayPoints) {
+        wayPoints.add(fromX, fromY);
+        wayPoints.add(fromX, toY);
+        wayPoints.add(toX, toY);
+    }
+
+    private static void addWithFirstHorizontalSegment(int fromX, int fromY, int toX, int toY, WayPoints wayPoints) {
+        wayPoints.add(fromX, fromY);
+        wayPoints.add(fromX + EDGE_OUTGOING_FIRST_HORIZONTAL_SEGMENT_LENGTH, fromY);
+        wayPoints.add(fromX + EDGE_OUTGOING_FIRST_HORIZONTAL_SEGMENT_LENGTH, toY);
+        wayPoints.add(toX, toY);
     }
 
     // Special case add bend points to avoid edge overlapping on shape
-    private List<DisplayPoint> computeWaypointsWithBendPoint(BendConfiguration bendConfiguration,
-                                                                    DisplayDimension dimensionFrom, DisplayDimension dimensionTo) {
+    private void addWaypointsWithBendPoint(BendConfiguration bendConfiguration, int[] bounds, int nodeFrom, int nodeTo,
+                                           WayPoints wayPoints) {
         log.debug("Bend configuration: {}", bendConfiguration);
 
-        DisplayPoint from = edgeTerminalPoints.rightMiddle(dimensionFrom);
-        DisplayPoint to = bendConfiguration.direction == BendDirection.BOTTOM ? edgeTerminalPoints.centerBottom(dimensionTo): edgeTerminalPoints.centerTop(dimensionTo);
-        int bendPointY = from.y + bendConfiguration.direction.numericFactor() * ( dimensionFrom.height / 2 + bendConfiguration.offset * CELL_HEIGHT);
+        int fromX = edgeTerminalPoints.right(bounds, nodeFrom);
+        int fromY = edgeTerminalPoints.middle(bounds, nodeFrom);
+        int toX = edgeTerminalPoints.center(bounds, nodeTo);
+        int toY = bendConfiguration.direction == BendDirection.BOTTOM ? edgeTerminalPoints.bottom(bounds, nodeTo) : edgeTerminalPoints.top(bounds, nodeTo);
+        int heightFrom = bounds[BOUNDS_SIZE * nodeFrom + 3];
+        int bendPointY = fromY + bendConfiguration.direction.numericFactor() * ( heightFrom / 2 + bendConfiguration.offset * CELL_HEIGHT);
 
-        List<DisplayPoint> wayPoints = new ArrayList<>();
-        wayPoints.add(from);
-        DisplayPoint intermediate = new DisplayPoint(from.x + EDGE_OUTGOING_FIRST_HORIZONTAL_SEGMENT_LENGTH, from.y);
-        wayPoints.add(intermediate);
-        wayPoints.add(new DisplayPoint(intermediate.x, bendPointY));
-        wayPoints.add(new DisplayPoint(to.x, bendPointY));
-        wayPoints.add(to);
-        return wayPoints;
+        wayPoints.add(fromX, fromY);
+        int intermediateX = fromX + EDGE_OUTGOING_FIRST_HORIZONTAL_SEGMENT_LENGTH;
+        wayPoints.add(intermediateX, fromY);
+        wayPoints.add(intermediateX, bendPointY);
+        wayPoints.add(toX, bendPointY);
+        wayPoints.add(toX, toY);
     }
 
 }
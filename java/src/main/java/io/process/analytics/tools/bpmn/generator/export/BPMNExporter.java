@@ -15,9 +15,14 @@
  */
 package io.process.analytics.tools.bpmn.generator.export;
 
+import java.io.IOException;
+import java.io.OutputStream;
+
 import io.process.analytics.tools.bpmn.generator.converter.AlgoToDisplayModelConverter;
-import io.process.analytics.tools.bpmn.generator.model.display.DisplayModel;
+import io.process.analytics.tools.bpmn.generator.model.display.PackedDisplayModel;
 import io.process.analytics.tools.bpmn.generator.internal.BPMNDiagramRichBuilder;
+import io.process.analytics.tools.bpmn.generator.internal.BPMNDiagramStreamWriter;
+import io.process.analytics.tools.bpmn.generator.internal.XmlParser;
 import io.process.analytics.tools.bpmn.generator.internal.generated.model.TDefinitions;
 import io.process.analytics.tools.bpmn.generator.model.Diagram;
 import io.process.analytics.tools.bpmn.generator.model.Grid;
@@ -34,10 +39,25 @@ public class BPMNExporter {
 
     public TDefinitions export(TDefinitions originalBpmnDefinitions, Grid grid, Diagram diagram) {
         BPMNDiagramRichBuilder builder = new BPMNDiagramRichBuilder(originalBpmnDefinitions);
-        DisplayModel displayModel = converter.convert(grid, diagram);
-        displayModel.flowNodes.forEach(builder::addFlowNode);
-        displayModel.edges.forEach(builder::addEdge);
+        PackedDisplayModel displayModel = converter.convertToPackedModel(grid, diagram);
+        for (int node = 0; node < displayModel.flowNodeCount(); node++) {
+            builder.addFlowNode(displayModel, node);
+        }
+        for (int edge = 0; edge < displayModel.edgeCount(); edge++) {
+            builder.addEdge(displayModel, edge);
+        }
         return builder.build();
     }
 
+    /**
+     * Write the definitions with the generated diagram as UTF-8 to the stream, which is flushed but not closed. The
+     * shapes and edges of the diagram are written as they are generated, without building their JAXB objects.
+     *
+     * @param formatted whether the XML is indented
+     */
+    public void export(TDefinitions originalBpmnDefinitions, Grid grid, Diagram diagram, boolean formatted, OutputStream output) throws IOException {
+        PackedDisplayModel displayModel = converter.convertToPackedModel(grid, diagram);
+        new BPMNDiagramStreamWriter(new XmlParser(formatted)).write(originalBpmnDefinitions, displayModel, output);
+    }
+
 }
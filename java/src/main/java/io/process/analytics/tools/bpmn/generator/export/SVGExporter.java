@@ -17,192 +17,499 @@ package io.process.analytics.tools.bpmn.generator.export;
 
 import static io.process.analytics.tools.bpmn.generator.internal.StringUtils.defaultIfNull;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import io.process.analytics.tools.bpmn.generator.converter.AlgoToDisplayModelConverter;
 import io.process.analytics.tools.bpmn.generator.converter.waypoint.Direction;
 import io.process.analytics.tools.bpmn.generator.model.Diagram;
 import io.process.analytics.tools.bpmn.generator.model.Grid;
 import io.process.analytics.tools.bpmn.generator.model.ShapeType;
-import io.process.analytics.tools.bpmn.generator.model.display.*;
+import io.process.analytics.tools.bpmn.generator.model.display.DisplayPoint;
+import io.process.analytics.tools.bpmn.generator.model.display.PackedDisplayModel;
 import lombok.extern.log4j.Log4j2;
 
 @Log4j2
 public class SVGExporter {
 
+    // TODO make colors configurable
+    private static final String COLOR_ACTIVITY_FILL = "#E3E3E3";
+    private static final String COLOR_ACTIVITY_STROKE = "#92ADC8";
+    private static final String COLOR_EVENT_FILL = "LightSalmon";
+    private static final String COLOR_EVENT_STROKE = "FireBrick";
+    private static final String COLOR_GATEWAY_FILL = "Gold";
+    private static final String COLOR_GATEWAY_STROKE = "GoldenRod";
+    private static final String COLOR_EDGE_STROKE = "Black";
+    private static final String COLOR_LABEL_FILL = "#374962";
+    private static final String LABEL_TEXT_ANCHOR = "middle";
+    private static final int EDGE_STROKE_WIDTH = 2;
+    private static final String EDGE_STROKE_OPACITY = "0.5";
+    private static final int EDGE_ARROW_HEIGHT = 10;
+    // number of flow nodes and edges rendered by each task of a parallel export
+    private static final int FRAGMENT_SIZE = 256;
+
     private final AlgoToDisplayModelConverter converter = new AlgoToDisplayModelConverter();
+    private final boolean compact;
+    private final ForkJoinPool pool;
+
+    public SVGExporter() {
+        this(false);
+    }
+
+    /**
+     * @param compact share the styles in CSS classes and draw the arrows with a marker, instead of repeating them on each
+     *                element. The output is about half the size.
+     */
+    public SVGExporter(boolean compact) {
+        this(compact, null);
+    }
+
+    /**
+     * @param pool to render the flow nodes and edges of large diagrams in parallel, or null to render them in the calling
+     *             thread. The output is the same in both cases.
+     */
+    public SVGExporter(boolean compact, ForkJoinPool pool) {
+        this.compact = compact;
+        this.pool = pool;
+    }
 
     public String export(Grid grid, Diagram diagram) {
-        DisplayModel model = converter.convert(grid, diagram);
+        PackedDisplayModel model = converter.convertToPackedModel(grid, diagram);
+        // the whole document is written in a single buffer, sized to avoid growing it
+        ChunkedOutput output = new ChunkedOutput(new StringBuilder(estimateSize(model)), null);
+        try {
+            export(model, output);
+        } catch (IOException e) {
+            // never thrown as there is no writer
+            throw new UncheckedIOException(e);
+        }
+        return output.content.toString();
+    }
 
+    /**
+     * Write the SVG as UTF-8 to the stream, which is flushed but not closed.
+     */
+    public void export(Grid grid, Diagram diagram, OutputStream outputStream) throws IOException {
+        Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+        export(grid, diagram, writer);
+        writer.flush();
+    }
+
+    /**
+     * Write the SVG as UTF-8 to the channel, which is not closed.
+     */
+    public void export(Grid grid, Diagram diagram, WritableByteChannel channel) throws IOException {
+        Writer writer = Channels.newWriter(channel, StandardCharsets.UTF_8);
+        export(grid, diagram, writer);
+        writer.flush();
+    }
+
+    /**
+     * Write the SVG element by element, so the whole document is never held in memory. The writer is not flushed.
+     */
+    public void export(Grid grid, Diagram diagram, Writer writer) throws IOException {
+        PackedDisplayModel model = converter.convertToPackedModel(grid, diagram);
+        export(model, new ChunkedOutput(new StringBuilder(2 * ChunkedOutput.CHUNK_SIZE), writer));
+    }
+
+    private void export(PackedDisplayModel model, ChunkedOutput output) throws IOException {
+        if (compact) {
+            appendCompactHeader(output.content, model);
+        } else {
+            appendHeader(output.content, model);
+        }
+        int elementCount = model.flowNodeCount() + model.edgeCount();
+        if (pool == null || elementCount <= FRAGMENT_SIZE) {
+            for (int element = 0; element < elementCount; element++) {
+                appendElement(output.content, model, element);
+                output.flushWhenFull();
+            }
+        } else {
+            exportInParallel(model, elementCount, output);
+        }
+        output.content.append("</svg>");
+        output.flush();
+    }
+
+    // fragments are rendered on the pool, and written in their order as soon as the first ones are done
+    private void exportInParallel(PackedDisplayModel model, int elementCount, ChunkedOutput output) throws IOException {
+        // limit the fragments rendered ahead, so they don't all stay in memory when the output is slower than the rendering
+        int maxPendingFragments = 4 * pool.getParallelism();
+        Deque<ForkJoinTask<StringBuilder>> fragments = new ArrayDeque<>();
+        int nextElement = 0;
+        try {
+            while (nextElement < elementCount || !fragments.isEmpty()) {
+                while (nextElement < elementCount && fragments.size() < maxPendingFragments) {
+                    int start = nextElement;
+                    int end = Math.min(start + FRAGMENT_SIZE, elementCount);
+                    fragments.add(pool.submit(() -> renderFragment(model, start, end)));
+                    nextElement = end;
+                }
+                output.write(join(fragments.poll()));
+            }
+        } finally {
+            fragments.forEach(fragment -> fragment.cancel(false));
+        }
+    }
+
+    private StringBuilder renderFragment(PackedDisplayModel model, int start, int end) {
+        StringBuilder fragment = new StringBuilder((end - start) * (compact ? 160 : 320));
+        for (int element = start; element < end; element++) {
+            appendElement(fragment, model, element);
+        }
+        return fragment;
+    }
+
+    // rethrow the exception of a failed fragment as is, join would wrap it in a copy
+    private static StringBuilder join(ForkJoinTask<StringBuilder> fragment) {
+        try {
+            return fragment.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while exporting to SVG", e);
+        }
+    }
+
+    // the elements are the flow nodes, then the edges
+    private void appendElement(StringBuilder content, PackedDisplayModel model, int element) {
+        int flowNodeCount = model.flowNodeCount();
+        if (element < flowNodeCount) {
+            if (compact) {
+                appendCompactFlowNode(content, model, element);
+            } else {
+                appendFlowNode(content, model, element);
+            }
+        } else if (compact) {
+            appendCompactEdge(content, model, element - flowNodeCount);
+        } else {
+            appendEdge(content, model, element - flowNodeCount);
+        }
+    }
+
+    private static void appendHeader(StringBuilder content, PackedDisplayModel model) {
         // TODO introduce a method to generate escaped double quote and avoid double quote escaping when writing xml
-        StringBuilder content = new StringBuilder();
         content.append("<svg xmlns=\"http://www.w3.org/2000/svg\" version=\"1.1\" width=\"")
                 .append(model.width)
                 .append("\" height=\"")
                 .append(model.height).append("\">\n");
+    }
 
-        // TODO extract colors to constant or configurable field
-        final String colorActivityFill = "#E3E3E3";
-        final String colorActivityStroke = "#92ADC8";
-        final String colorEventFill = "LightSalmon";
-        final String colorEventStroke = "FireBrick";
-        final String colorGatewayFill = "Gold";
-        final String colorGatewayStroke = "GoldenRod";
-        final String colorEgeStroke = "Black";
-        final int edgeStrokeWidth = 2;
-        final double edgeStrokeOpacity = 0.5;
-        final int edgeArrowHeight = 10;
-
-        for (DisplayFlowNode flowNode : model.flowNodes) {
-            DisplayDimension flowNodeDimension = flowNode.dimension;
-            DisplayLabel label = flowNode.label;
-            DisplayDimension labelDimension = label.dimension;
-
-            final int strokeWidth = flowNode.strokeWidth;
-
-            if (flowNode.type == ShapeType.ACTIVITY) {
-                log.debug("Exporting activity {}", flowNode.bpmnElementId);
-                content.append("<rect")
-                        .append(" x=\"").append(flowNodeDimension.x).append("\"")
-                        .append(" y=\"").append(flowNodeDimension.y).append("\"")
-                        .append(" width=\"").append(flowNodeDimension.width).append("\"")
-                        .append(" height=\"").append(flowNodeDimension.height).append("\"")
-                        .append(" rx=\"").append(flowNode.rx).append("\"")
-                        .append(" fill=\"").append(colorActivityFill).append("\"")
-                        .append(" stroke=\"").append(colorActivityStroke).append("\"")
-                        .append(" stroke-width=\"").append(strokeWidth).append("\"")
-                        .append(" />\n");
-            }
-            // draw circle (with an eclipse to eventually detect if shape is not squared)
-            else if (flowNode.type == ShapeType.EVENT) {
-                log.debug("Exporting event {}", flowNode.bpmnElementId);
-                int rx = flowNodeDimension.width / 2;
-                int ry = flowNodeDimension.height / 2;
-                int cx = flowNodeDimension.x + rx;
-                int cy = flowNodeDimension.y + ry;
-                content.append("<ellipse")
-                        .append(" cx=\"").append(cx).append("\"")
-                        .append(" cy=\"").append(cy).append("\"")
-                        .append(" rx=\"").append(rx).append("\"")
-                        .append(" ry=\"").append(ry).append("\"")
-                        .append(" fill=\"").append(colorEventFill).append("\"")
-                        .append(" stroke=\"").append(colorEventStroke).append("\"")
-                        .append(" stroke-width=\"").append(strokeWidth).append("\"")
-                        .append(" pointer-events=\"all\"")
-                        .append(" />\n");
-            }
-            // draw rhombus/diamond
-            else if (flowNode.type == ShapeType.GATEWAY) {
-                log.debug("Exporting gateway {}", flowNode.bpmnElementId);
-                int x = flowNodeDimension.x;
-                int y = flowNodeDimension.y;
-                int width = flowNodeDimension.width;
-                int height = flowNodeDimension.height;
-
-                int midWidth = width / 2;
-                int midHeight = height / 2;
-
-                content.append("<polygon")
-                        .append(" points=\"")
-                        .append(x + midWidth).append(",").append(y)
-                        .append(" ").append(x + width).append(",").append(y + midHeight)
-                        .append(" ").append(x + midWidth).append(",").append(y + height)
-                        .append(" ").append(x).append(",").append(y + midHeight)
-                        .append("\"")
-                        .append(" style=\"")
-                        .append("fill:").append(colorGatewayFill)
-                        .append(";stroke:").append(colorGatewayStroke)
-                        .append(";stroke-width:").append(strokeWidth)
-                        .append("\"")
-                        .append(" />\n");
+    private static void appendFlowNode(StringBuilder content, PackedDisplayModel model, int node) {
+        final int strokeWidth = model.flowNodeStrokeWidth(node);
+        ShapeType type = model.flowNodeType(node);
+
+        if (type == ShapeType.ACTIVITY) {
+            log.debug("Exporting activity {}", model.flowNodeId(node));
+            content.append("<rect")
+                    .append(" x=\"").append(model.flowNodeX(node)).append("\"")
+                    .append(" y=\"").append(model.flowNodeY(node)).append("\"")
+                    .append(" width=\"").append(model.flowNodeWidth(node)).append("\"")
+                    .append(" height=\"").append(model.flowNodeHeight(node)).append("\"")
+                    .append(" rx=\"").append(model.flowNodeRx(node)).append("\"")
+                    .append(" fill=\"").append(COLOR_ACTIVITY_FILL).append("\"")
+                    .append(" stroke=\"").append(COLOR_ACTIVITY_STROKE).append("\"")
+                    .append(" stroke-width=\"").append(strokeWidth).append("\"")
+                    .append(" />\n");
+        }
+        // draw circle (with an eclipse to eventually detect if shape is not squared)
+        else if (type == ShapeType.EVENT) {
+            log.debug("Exporting event {}", model.flowNodeId(node));
+            int rx = model.flowNodeWidth(node) / 2;
+            int ry = model.flowNodeHeight(node) / 2;
+            int cx = model.flowNodeX(node) + rx;
+            int cy = model.flowNodeY(node) + ry;
+            content.append("<ellipse")
+                    .append(" cx=\"").append(cx).append("\"")
+                    .append(" cy=\"").append(cy).append("\"")
+                    .append(" rx=\"").append(rx).append("\"")
+                    .append(" ry=\"").append(ry).append("\"")
+                    .append(" fill=\"").append(COLOR_EVENT_FILL).append("\"")
+                    .append(" stroke=\"").append(COLOR_EVENT_STROKE).append("\"")
+                    .append(" stroke-width=\"").append(strokeWidth).append("\"")
+                    .append(" pointer-events=\"all\"")
+                    .append(" />\n");
+        }
+        // draw rhombus/diamond
+        else if (type == ShapeType.GATEWAY) {
+            log.debug("Exporting gateway {}", model.flowNodeId(node));
+            int x = model.flowNodeX(node);
+            int y = model.flowNodeY(node);
+            int width = model.flowNodeWidth(node);
+            int height = model.flowNodeHeight(node);
+
+            int midWidth = width / 2;
+            int midHeight = height / 2;
+
+            content.append("<polygon")
+                    .append(" points=\"")
+                    .append(x + midWidth).append(",").append(y)
+                    .append(" ").append(x + width).append(",").append(y + midHeight)
+                    .append(" ").append(x + midWidth).append(",").append(y + height)
+                    .append(" ").append(x).append(",").append(y + midHeight)
+                    .append("\"")
+                    .append(" style=\"")
+                    .append("fill:").append(COLOR_GATEWAY_FILL)
+                    .append(";stroke:").append(COLOR_GATEWAY_STROKE)
+                    .append(";stroke-width:").append(strokeWidth)
+                    .append("\"")
+                    .append(" />\n");
+        }
+
+        String labelText = defaultIfNull(model.labelText(node));
+        int labelX = model.labelX(node);
+        if (!labelText.isEmpty()) {
+            content.append("<text")
+                    .append(" x=\"").append(labelX).append("\"")
+                    .append(" y=\"").append(model.labelY(node)).append("\"")
+                    .append(" text-anchor=\"").append(LABEL_TEXT_ANCHOR).append("\"")
+                    .append(" font-size=\"").append(model.labelFontSize(node)).append("\"")
+                    .append(" fill=\"").append(COLOR_LABEL_FILL).append("\"")
+                    .append(">\n");
+            // handle multi-lines label text
+            int labelTextEnd = labelTextEnd(labelText);
+            for (int lineStart = 0; lineStart < labelTextEnd; ) {
+                int lineEnd = lineEnd(labelText, lineStart, labelTextEnd);
+                content.append("  <tspan")
+                        .append(" x=\"").append(labelX).append("\"");
+                if (lineStart > 0) {
+                    content.append(" dy=\"1.2em\"");
+                }
+                content.append(">")
+                        .append(labelText, lineStart, lineEnd)
+                        .append("</tspan>\n");
+                lineStart = lineEnd + 1;
             }
+            content.append("</text>\n");
+        }
+    }
+
+    private static void appendEdge(StringBuilder content, PackedDisplayModel model, int edge) {
+        int wayPointCount = model.wayPointCount(edge);
+        if (wayPointCount < 2) {
+            return;
+        }
+        content.append("<polyline")
+                .append(" points=\"");
+        appendWayPoints(content, model, edge);
+        content.append("\"")
+                .append(" stroke=\"").append(COLOR_EDGE_STROKE).append("\"")
+                .append(" stroke-width=\"").append(EDGE_STROKE_WIDTH).append("\"")
+                .append(" stroke-opacity=\"").append(EDGE_STROKE_OPACITY).append("\"")
+                .append(" fill=\"none\"")
+                .append(" />\n");
+
+        // edge arrow
+        int lastX = model.wayPointX(edge, wayPointCount - 1);
+        int lastY = model.wayPointY(edge, wayPointCount - 1);
+        Direction lastSegmentDirection = detectLastSegmentDirection(
+                model.wayPointX(edge, wayPointCount - 2), model.wayPointY(edge, wayPointCount - 2), lastX, lastY);
+
+        content.append("<polygon")
+                .append(" stroke=\"").append(COLOR_EDGE_STROKE).append("\"")
+                .append(" stroke-width=\"").append(EDGE_STROKE_WIDTH).append("\"")
+                .append(" stroke-opacity=\"").append(EDGE_STROKE_OPACITY).append("\"")
+                .append(" fill=\"").append(COLOR_EDGE_STROKE).append("\"")
+                .append(" points=\"");
+        // top of the arrow
+        content.append(lastX).append(',').append(lastY);
+        if (lastSegmentDirection == Direction.LeftToRight) {
+            appendArrowBase(content, lastX - EDGE_ARROW_HEIGHT, lastY + EDGE_ARROW_HEIGHT / 2,
+                    lastX - EDGE_ARROW_HEIGHT, lastY - EDGE_ARROW_HEIGHT / 2);
+        } else if (lastSegmentDirection == Direction.RightToLeft) {
+            appendArrowBase(content, lastX + EDGE_ARROW_HEIGHT, lastY + EDGE_ARROW_HEIGHT / 2,
+                    lastX + EDGE_ARROW_HEIGHT, lastY - EDGE_ARROW_HEIGHT / 2);
+        } else if (lastSegmentDirection == Direction.TopToBottom) {
+            appendArrowBase(content, lastX - EDGE_ARROW_HEIGHT / 2, lastY - EDGE_ARROW_HEIGHT,
+                    lastX + EDGE_ARROW_HEIGHT / 2, lastY - EDGE_ARROW_HEIGHT);
+        } else if (lastSegmentDirection == Direction.BottomToTop) {
+            appendArrowBase(content, lastX - EDGE_ARROW_HEIGHT / 2, lastY + EDGE_ARROW_HEIGHT,
+                    lastX + EDGE_ARROW_HEIGHT / 2, lastY + EDGE_ARROW_HEIGHT);
+        }
+        content.append("\"")
+                .append(" />\n");
+    }
 
-            String labelText = defaultIfNull(label.text);
-            if (!labelText.isEmpty()) {
-                String labelFillColor = "#374962";
-                String labelTextAnchor = "middle";
-                content.append("<text")
-                        .append(" x=\"").append(labelDimension.x).append("\"")
-                        .append(" y=\"").append(labelDimension.y).append("\"")
-                        .append(" text-anchor=\"").append(labelTextAnchor).append("\"")
-                        .append(" font-size=\"").append(label.fontSize).append("\"")
-                        .append(" fill=\"").append(labelFillColor).append("\"")
-                        .append(">\n");
+    private static void appendCompactHeader(StringBuilder content, PackedDisplayModel model) {
+        appendHeader(content, model);
+        content.append("<defs>\n")
+                .append("<style>\n")
+                .append(".activity{fill:").append(COLOR_ACTIVITY_FILL).append(";stroke:").append(COLOR_ACTIVITY_STROKE).append("}\n")
+                .append(".event{fill:").append(COLOR_EVENT_FILL).append(";stroke:").append(COLOR_EVENT_STROKE).append(";pointer-events:all}\n")
+                .append(".gateway{fill:").append(COLOR_GATEWAY_FILL).append(";stroke:").append(COLOR_GATEWAY_STROKE).append("}\n")
+                .append(".edge{fill:none;stroke:").append(COLOR_EDGE_STROKE)
+                .append(";stroke-width:").append(EDGE_STROKE_WIDTH)
+                .append(";stroke-opacity:").append(EDGE_STROKE_OPACITY)
+                .append(";marker-end:url(#arrow)}\n")
+                .append(".arrow{fill:").append(COLOR_EDGE_STROKE).append(";stroke:").append(COLOR_EDGE_STROKE)
+                .append(";stroke-width:").append(EDGE_STROKE_WIDTH)
+                .append(";stroke-opacity:").append(EDGE_STROKE_OPACITY).append("}\n")
+                .append("text{fill:").append(COLOR_LABEL_FILL).append(";text-anchor:").append(LABEL_TEXT_ANCHOR).append("}\n")
+                .append("</style>\n");
+        // the tip of the arrow is at the end of the edge, it follows the direction of the last segment
+        content.append("<marker id=\"arrow\" viewBox=\"0 0 ").append(EDGE_ARROW_HEIGHT).append(" ").append(EDGE_ARROW_HEIGHT).append("\"")
+                .append(" refX=\"").append(EDGE_ARROW_HEIGHT).append("\" refY=\"").append(EDGE_ARROW_HEIGHT / 2).append("\"")
+                .append(" markerWidth=\"").append(EDGE_ARROW_HEIGHT).append("\" markerHeight=\"").append(EDGE_ARROW_HEIGHT).append("\"")
+                .append(" markerUnits=\"userSpaceOnUse\" orient=\"auto\" overflow=\"visible\">")
+                .append("<path class=\"arrow\" d=\"M0,0L").append(EDGE_ARROW_HEIGHT).append(",").append(EDGE_ARROW_HEIGHT / 2)
+                .append("L0,").append(EDGE_ARROW_HEIGHT).append("z\"/>")
+                .append("</marker>\n")
+                .append("</defs>\n");
+    }
+
+    private static void appendCompactFlowNode(StringBuilder content, PackedDisplayModel model, int node) {
+        int x = model.flowNodeX(node);
+        int y = model.flowNodeY(node);
+        int width = model.flowNodeWidth(node);
+        int height = model.flowNodeHeight(node);
+        ShapeType type = model.flowNodeType(node);
+        if (type == ShapeType.ACTIVITY) {
+            content.append("<rect class=\"activity\" x=\"").append(x)
+                    .append("\" y=\"").append(y)
+                    .append("\" width=\"").append(width)
+                    .append("\" height=\"").append(height)
+                    .append("\" rx=\"").append(model.flowNodeRx(node));
+        } else if (type == ShapeType.EVENT) {
+            int rx = width / 2;
+            int ry = height / 2;
+            content.append("<ellipse class=\"event\" cx=\"").append(x + rx)
+                    .append("\" cy=\"").append(y + ry)
+                    .append("\" rx=\"").append(rx)
+                    .append("\" ry=\"").append(ry);
+        } else if (type == ShapeType.GATEWAY) {
+            int midWidth = width / 2;
+            int midHeight = height / 2;
+            content.append("<polygon class=\"gateway\" points=\"")
+                    .append(x + midWidth).append(",").append(y)
+                    .append(" ").append(x + width).append(",").append(y + midHeight)
+                    .append(" ").append(x + midWidth).append(",").append(y + height)
+                    .append(" ").append(x).append(",").append(y + midHeight);
+        }
+        if (type == ShapeType.ACTIVITY || type == ShapeType.EVENT || type == ShapeType.GATEWAY) {
+            content.append("\" stroke-width=\"").append(model.flowNodeStrokeWidth(node)).append("\"/>\n");
+        }
+
+        String labelText = defaultIfNull(model.labelText(node));
+        if (!labelText.isEmpty()) {
+            int labelX = model.labelX(node);
+            content.append("<text x=\"").append(labelX)
+                    .append("\" y=\"").append(model.labelY(node))
+                    .append("\" font-size=\"").append(model.labelFontSize(node))
+                    .append("\">");
+            if (labelText.indexOf('\n') < 0) {
+                content.append(labelText);
+            } else {
                 // handle multi-lines label text
-                boolean isFirstLabelTextLine = true;
-                for (String labelTextLine : labelText.split("\n")) {
-                    content.append("  <tspan")
-                            .append(" x=\"").append(labelDimension.x).append("\"");
-                    if (!isFirstLabelTextLine) {
+                int labelTextEnd = labelTextEnd(labelText);
+                for (int lineStart = 0; lineStart < labelTextEnd; ) {
+                    int lineEnd = lineEnd(labelText, lineStart, labelTextEnd);
+                    content.append("<tspan x=\"").append(labelX).append("\"");
+                    if (lineStart > 0) {
                         content.append(" dy=\"1.2em\"");
                     }
-                    content.append(">")
-                            .append(labelTextLine)
-                            .append("</tspan>\n");
-                    isFirstLabelTextLine = false;
+                    content.append(">").append(labelText, lineStart, lineEnd).append("</tspan>");
+                    lineStart = lineEnd + 1;
                 }
-                content.append("</text>\n");
             }
+            content.append("</text>\n");
         }
+    }
 
-        for (DisplayEdge edge : model.edges) {
-            if (edge.wayPoints.size() >= 2) {
-                String points = edge.wayPoints.stream()
-                        .map(point -> point.x + "," + point.y)
-                        .collect(Collectors.joining(" "));
-
-                content.append("<polyline")
-                        .append(" points=\"").append(points).append("\"")
-                        .append(" stroke=\"").append(colorEgeStroke).append("\"")
-                        .append(" stroke-width=\"").append(edgeStrokeWidth).append("\"")
-                        .append(" stroke-opacity=\"").append(edgeStrokeOpacity).append("\"")
-                        .append(" fill=\"none\"")
-                        .append(" />\n");
-
-                // edge arrow
-                List<DisplayPoint> wayPoints = edge.wayPoints;
-                Direction lastSegmentDirection = detectLastSegmentDirection(wayPoints);
-                DisplayPoint last = wayPoints.get(wayPoints.size() - 1);
-
-                List<DisplayPoint> arrowPoints = new ArrayList<>();
-
-                if (lastSegmentDirection == Direction.LeftToRight) {
-                    arrowPoints.add(new DisplayPoint(last.x, last.y)); // top of the arrow
-                    arrowPoints.add(new DisplayPoint(last.x - edgeArrowHeight, last.y + edgeArrowHeight / 2));
-                    arrowPoints.add(new DisplayPoint(last.x - edgeArrowHeight, last.y - edgeArrowHeight / 2));
-                } else if (lastSegmentDirection == Direction.RightToLeft) {
-                    arrowPoints.add(new DisplayPoint(last.x, last.y)); // top of the arrow
-                    arrowPoints.add(new DisplayPoint(last.x + edgeArrowHeight, last.y + edgeArrowHeight / 2));
-                    arrowPoints.add(new DisplayPoint(last.x + edgeArrowHeight, last.y - edgeArrowHeight / 2));
-                } else if (lastSegmentDirection == Direction.TopToBottom) {
-                    arrowPoints.add(new DisplayPoint(last.x, last.y)); // top of the arrow
-                    arrowPoints.add(new DisplayPoint(last.x - edgeArrowHeight / 2, last.y - edgeArrowHeight));
-                    arrowPoints.add(new DisplayPoint(last.x + edgeArrowHeight / 2, last.y - edgeArrowHeight));
-                } else if (lastSegmentDirection == Direction.BottomToTop) {
-                    arrowPoints.add(new DisplayPoint(last.x, last.y)); // top of the arrow
-                    arrowPoints.add(new DisplayPoint(last.x - edgeArrowHeight / 2, last.y + edgeArrowHeight));
-                    arrowPoints.add(new DisplayPoint(last.x + edgeArrowHeight / 2, last.y + edgeArrowHeight));
-                }
+    private static void appendCompactEdge(StringBuilder content, PackedDisplayModel model, int edge) {
+        if (model.wayPointCount(edge) >= 2) {
+            content.append("<polyline class=\"edge\" points=\"");
+            appendWayPoints(content, model, edge);
+            content.append("\"/>\n");
+        }
+    }
+
+    // elements are appended to a buffer, which is written once it is big enough
+    private static final class ChunkedOutput {
+
+        private static final int CHUNK_SIZE = 8192;
+
+        private final StringBuilder content;
+        // null to keep the whole document in the content
+        private final Writer writer;
+        private char[] chunk = new char[0];
 
-                content.append("<polygon")
-                        .append(" stroke=\"").append(colorEgeStroke).append("\"")
-                        .append(" stroke-width=\"").append(edgeStrokeWidth).append("\"")
-                        .append(" stroke-opacity=\"").append(edgeStrokeOpacity).append("\"")
-                        .append(" fill=\"").append(colorEgeStroke).append("\"")
-                        .append(" points=\"")
-                        .append(arrowPoints.stream()
-                                .map(point -> point.x + "," + point.y)
-                                .collect(Collectors.joining(" ")))
-                        .append("\"")
-                        .append(" />\n");
+        private ChunkedOutput(StringBuilder content, Writer writer) {
+            this.content = content;
+            this.writer = writer;
+        }
+
+        void write(CharSequence fragment) throws IOException {
+            content.append(fragment);
+            flushWhenFull();
+        }
+
+        void flushWhenFull() throws IOException {
+            if (writer != null && content.length() >= CHUNK_SIZE) {
+                flush();
+            }
+        }
+
+        void flush() throws IOException {
+            if (writer == null) {
+                return;
+            }
+            int length = content.length();
+            if (length > chunk.length) {
+                chunk = new char[Math.max(length, 2 * CHUNK_SIZE)];
+            }
+            content.getChars(0, length, chunk, 0);
+            writer.write(chunk, 0, length);
+            content.setLength(0);
+        }
+    }
+
+    // visible for benchmarks
+    static void appendWayPoints(StringBuilder content, PackedDisplayModel model, int edge) {
+        for (int wayPoint = 0; wayPoint < model.wayPointCount(edge); wayPoint++) {
+            if (wayPoint > 0) {
+                content.append(' ');
             }
+            content.append(model.wayPointX(edge, wayPoint)).append(',').append(model.wayPointY(edge, wayPoint));
+        }
+    }
+
+    // the lines are the same as the ones of labelText.split("\n"), which ignores the trailing line breaks
+    private static int labelTextEnd(String labelText) {
+        int end = labelText.length();
+        while (end > 0 && labelText.charAt(end - 1) == '\n') {
+            end--;
         }
+        return end;
+    }
 
-        content.append("</svg>");
-        return content.toString();
+    private static int lineEnd(String labelText, int lineStart, int labelTextEnd) {
+        int lineEnd = labelText.indexOf('\n', lineStart);
+        return lineEnd < 0 || lineEnd > labelTextEnd ? labelTextEnd : lineEnd;
+    }
+
+    // about the size of the elements written for each flow node and edge
+    private int estimateSize(PackedDisplayModel model) {
+        long size = 1024L + (compact ? 160L : 300L) * model.flowNodeCount() + (compact ? 80L : 320L) * model.edgeCount();
+        return (int) Math.min(size, Integer.MAX_VALUE - 8);
     }
 
     // here we assume that we have only vertical and horizontal segments, and we have at least 2 points in the list
@@ -210,11 +517,20 @@ public class SVGExporter {
     static Direction detectLastSegmentDirection(List<DisplayPoint> wayPoints) {
         DisplayPoint last = wayPoints.get(wayPoints.size() - 1);
         DisplayPoint beforeLast = wayPoints.get(wayPoints.size() - 2);
+        return detectLastSegmentDirection(beforeLast.x, beforeLast.y, last.x, last.y);
+    }
+
+    private static Direction detectLastSegmentDirection(int beforeLastX, int beforeLastY, int lastX, int lastY) {
         // horizontal
-        if (last.x == beforeLast.x) {
-            return last.y > beforeLast.y ? Direction.TopToBottom : Direction.BottomToTop;
+        if (lastX == beforeLastX) {
+            return lastY > beforeLastY ? Direction.TopToBottom : Direction.BottomToTop;
         }
         // vertical
-        return last.x > beforeLast.x ? Direction.LeftToRight : Direction.RightToLeft;
+        return lastX > beforeLastX ? Direction.LeftToRight : Direction.RightToLeft;
+    }
+
+    private static void appendArrowBase(StringBuilder content, int x1, int y1, int x2, int y2) {
+        content.append(' ').append(x1).append(',').append(y1)
+                .append(' ').append(x2).append(',').append(y2);
     }
 }
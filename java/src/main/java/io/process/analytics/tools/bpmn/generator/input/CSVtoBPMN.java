@@ -60,7 +60,7 @@ public class CSVtoBPMN {
             if (line == null) {
                 continue;
             }
-            String[] node = line.split(",");
+            String[] node = columns(line, "nodes");
             TFlowNode flowNode = gettFlowNode(node);
             flowNode.setName(removeEnclosingDoubleQuote(node[2]));
 
@@ -106,6 +106,15 @@ public class CSVtoBPMN {
         // return new QName("http://www.omg.org/spec/BPMN/20100524/MODEL", bpmnElement, XMLConstants.DEFAULT_NS_PREFIX); // <semantic:incoming>semantic:sequenceFlow_1</semantic:incoming>
     }
 
+    // the id and the name or source are in the second and third columns, the type or target in the fourth one
+    private static String[] columns(String line, String csv) {
+        String[] columns = line.split(",");
+        if (columns.length < 4) {
+            throw new InvalidInputException("Expected at least 4 columns in the " + csv + " CSV, got: " + line);
+        }
+        return columns;
+    }
+
     private static String removeEnclosingDoubleQuote(String s) {
         return s.replaceAll("^\"|\"$", "");
     }
@@ -123,7 +132,7 @@ public class CSVtoBPMN {
             if(line == null){
                 continue;
             }
-            String[] edge = line.split(",");
+            String[] edge = columns(line, "edges");
             TSequenceFlow tSequenceFlow = new TSequenceFlow();
 
             TUserTask sourceRef = new TUserTask();
@@ -26,7 +26,7 @@ import javax.xml.namespace.QName;
 import io.process.analytics.tools.bpmn.generator.model.display.DisplayDimension;
 import io.process.analytics.tools.bpmn.generator.model.display.DisplayEdge;
 import io.process.analytics.tools.bpmn.generator.model.display.DisplayFlowNode;
-import io.process.analytics.tools.bpmn.generator.model.display.DisplayPoint;
+import io.process.analytics.tools.bpmn.generator.model.display.PackedDisplayModel;
 import io.process.analytics.tools.bpmn.generator.internal.generated.model.*;
 import io.process.analytics.tools.bpmn.generator.model.ShapeType;
 import lombok.NonNull;
@@ -58,25 +58,29 @@ public class BPMNDiagramRichBuilder {
     }
 
     public void addFlowNode(DisplayFlowNode flowNode) {
+        DisplayDimension dimension = flowNode.dimension;
+        DisplayDimension labelDimension = flowNode.label.dimension;
+        addFlowNode(flowNode.bpmnElementId, flowNode.type, dimension.x, dimension.y, dimension.width, dimension.height,
+                labelDimension.x, labelDimension.y, labelDimension.width, labelDimension.height);
+    }
+
+    public void addFlowNode(PackedDisplayModel model, int node) {
+        addFlowNode(model.flowNodeId(node), model.flowNodeType(node),
+                model.flowNodeX(node), model.flowNodeY(node), model.flowNodeWidth(node), model.flowNodeHeight(node),
+                model.labelX(node), model.labelY(node), model.labelWidth(node), model.labelHeight(node));
+    }
+
+    private void addFlowNode(String bpmnElementId, ShapeType shapeType, int x, int y, int width, int height,
+                             int labelX, int labelY, int labelWidth, int labelHeight) {
         BPMNShape bpmnShape = new BPMNShape();
-        String bpmnElementId = flowNode.bpmnElementId;
         bpmnShape.setId("BPMNShape_" + bpmnElementId);
         putBpmnElement(bpmnShape, bpmnElementId);
 
-        bpmnShape.setBounds(bounds(flowNode.dimension));
+        bpmnShape.setBounds(bounds(x, y, width, height));
 
-        // For activity, don't pass label position, BPMN vendor generally manage default positionning very well (centered on activity inside)
-        ShapeType shapeType = flowNode.type;
-        if (!ShapeType.ACTIVITY.equals(shapeType)) {
+        if (hasLabel(shapeType)) {
             BPMNLabel label = new BPMNLabel();
-            DisplayDimension labelDimension = flowNode.label.dimension;
-
-            // For event adjust positions
-            if(ShapeType.EVENT == shapeType) {
-                labelDimension = new DisplayDimension( flowNode.dimension.x, labelDimension.y, labelDimension.width, labelDimension.height);
-            }
-
-            label.setBounds(bounds(labelDimension));
+            label.setBounds(bounds(labelX(shapeType, x, labelX), labelY, labelWidth, labelHeight));
             // TODO add label style?
             bpmnShape.setBPMNLabel(label);
         }
@@ -84,33 +88,52 @@ public class BPMNDiagramRichBuilder {
         bpmnShapes.add(bpmnShape);
     }
 
-    public void addEdge(DisplayEdge edge) {
-        BPMNEdge bpmnEdge = new BPMNEdge();
-        String bpmnElementId = edge.bpmnElementId;
-        bpmnEdge.setId("BPMNEdge_" + bpmnElementId);
-        putBpmnElement(bpmnEdge, bpmnElementId);
+    // For activity, don't pass label position, BPMN vendor generally manage default positionning very well (centered on activity inside)
+    static boolean hasLabel(ShapeType shapeType) {
+        return !ShapeType.ACTIVITY.equals(shapeType);
+    }
 
+    // For event adjust positions
+    static int labelX(ShapeType shapeType, int x, int labelX) {
+        return ShapeType.EVENT == shapeType ? x : labelX;
+    }
+
+    public void addEdge(DisplayEdge edge) {
+        BPMNEdge bpmnEdge = newBpmnEdge(edge.bpmnElementId);
         List<Point> bpmnEdgeWaypoint = bpmnEdge.getWaypoint();
-        edge.wayPoints.stream()
-                .map(BPMNDiagramRichBuilder::toPoint)
-                .forEach(bpmnEdgeWaypoint::add);
+        edge.wayPoints.forEach(wayPoint -> bpmnEdgeWaypoint.add(toPoint(wayPoint.x, wayPoint.y)));
+        bpmnEdges.add(bpmnEdge);
+    }
 
+    public void addEdge(PackedDisplayModel model, int edge) {
+        BPMNEdge bpmnEdge = newBpmnEdge(model.edgeId(edge));
+        List<Point> bpmnEdgeWaypoint = bpmnEdge.getWaypoint();
+        for (int wayPoint = 0; wayPoint < model.wayPointCount(edge); wayPoint++) {
+            bpmnEdgeWaypoint.add(toPoint(model.wayPointX(edge, wayPoint), model.wayPointY(edge, wayPoint)));
+        }
         bpmnEdges.add(bpmnEdge);
     }
 
-    private static Point toPoint(DisplayPoint displayPoint) {
+    private static BPMNEdge newBpmnEdge(String bpmnElementId) {
+        BPMNEdge bpmnEdge = new BPMNEdge();
+        bpmnEdge.setId("BPMNEdge_" + bpmnElementId);
+        putBpmnElement(bpmnEdge, bpmnElementId);
+        return bpmnEdge;
+    }
+
+    private static Point toPoint(int x, int y) {
         Point point = new Point();
-        point.setX(displayPoint.x);
-        point.setY(displayPoint.y);
+        point.setX(x);
+        point.setY(y);
         return point;
     }
 
-    private static Bounds bounds(DisplayDimension dimension) {
+    private static Bounds bounds(int x, int y, int width, int height) {
         Bounds bounds = new Bounds();
-        bounds.setX(dimension.x);
-        bounds.setY(dimension.y);
-        bounds.setWidth(dimension.width);
-        bounds.setHeight(dimension.height);
+        bounds.setX(x);
+        bounds.setY(y);
+        bounds.setWidth(width);
+        bounds.setHeight(height);
         return bounds;
     }
 
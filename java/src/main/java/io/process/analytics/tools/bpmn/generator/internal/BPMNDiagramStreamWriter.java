@@ -0,0 +1,296 @@
+/*
+ * Copyright 2026 Bonitasoft S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.process.analytics.tools.bpmn.generator.internal;
+
+import static io.process.analytics.tools.bpmn.generator.internal.BPMNDiagramRichBuilder.hasLabel;
+import static io.process.analytics.tools.bpmn.generator.internal.BPMNDiagramRichBuilder.labelX;
+import static io.process.analytics.tools.bpmn.generator.internal.BpmnNamespacePrefixMapper.prefixOf;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import javax.xml.bind.JAXBElement;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import io.process.analytics.tools.bpmn.generator.internal.generated.model.BPMNDiagram;
+import io.process.analytics.tools.bpmn.generator.internal.generated.model.BPMNShape;
+import io.process.analytics.tools.bpmn.generator.internal.generated.model.TDefinitions;
+import io.process.analytics.tools.bpmn.generator.model.ShapeType;
+import io.process.analytics.tools.bpmn.generator.model.display.PackedDisplayModel;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Write BPMN definitions with a diagram generated from a display model, without building the BPMNShape, BPMNEdge,
+ * Bounds and Point objects of the diagram.
+ *
+ * The definitions are written by JAXB, with a placeholder shape as the only element of the plane, so the output is the
+ * one of {@link XmlParser#marshal(TDefinitions)}, escaping included. The serialization of the placeholder is pinned by
+ * the tests, in all the modes of {@link XmlParser}. The placeholder is replaced on the fly by the
+ * shapes and edges of the model, written as complete elements with an {@link XMLStreamWriter}, and indented as JAXB does
+ * when the parser is {@link XmlParser#isFormatted() formatted}.
+ */
+@RequiredArgsConstructor
+public class BPMNDiagramStreamWriter {
+
+    private static final String BPMNDI_NAMESPACE = "http://www.omg.org/spec/BPMN/20100524/DI";
+    private static final String DC_NAMESPACE = "http://www.omg.org/spec/DD/20100524/DC";
+    private static final String DI_NAMESPACE = "http://www.omg.org/spec/DD/20100524/DI";
+    private static final XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
+
+    private final XmlParser xmlParser;
+
+    /**
+     * Write the definitions as UTF-8 to the stream, which is flushed but not closed. Their existing diagrams are replaced
+     * by the one of the display model in the output, and restored in the definitions once written.
+     */
+    public void write(TDefinitions definitions, PackedDisplayModel model, OutputStream output) throws IOException {
+        List<BPMNDiagram> diagrams = new ArrayList<>(definitions.getBPMNDiagram());
+        try {
+            // a diagram and a plane with only the placeholder
+            new BPMNDiagramRichBuilder(definitions).build();
+            BPMNShape placeholder = placeholder();
+            definitions.getBPMNDiagram().get(0).getBPMNPlane().getDiagramElement()
+                    .add(new JAXBElement<>(new QName(BPMNDI_NAMESPACE, "BPMNShape"), BPMNShape.class, null, placeholder));
+
+            Writer out = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+            PlaceholderWriter placeholderWriter = new PlaceholderWriter(out, placeholderElement(placeholder),
+                    indentation -> new DiagramElementsWriter(out, model, xmlParser.isFormatted(), indentation).write());
+            xmlParser.marshal(definitions, placeholderWriter);
+            placeholderWriter.flushPending();
+            if (!placeholderWriter.isReplaced()) {
+                throw new IOException("Unable to write the BPMN diagram, its plane was not found in the XML");
+            }
+            out.flush();
+        } finally {
+            definitions.getBPMNDiagram().clear();
+            definitions.getBPMNDiagram().addAll(diagrams);
+        }
+    }
+
+    static BPMNShape placeholder() {
+        BPMNShape placeholder = new BPMNShape();
+        // unique, so it can't be found in the semantic part
+        placeholder.setId("BPMNDiagramStreamWriter_" + UUID.randomUUID());
+        return placeholder;
+    }
+
+    /**
+     * @return the placeholder as JAXB writes it, in all the modes of {@link XmlParser}
+     */
+    static String placeholderElement(BPMNShape placeholder) {
+        return "<" + prefixOf(BPMNDI_NAMESPACE) + ":BPMNShape id=\"" + placeholder.getId() + "\"/>";
+    }
+
+    @FunctionalInterface
+    private interface Replacement {
+
+        /**
+         * @param indentation the number of spaces before the placeholder on its line
+         */
+        void write(int indentation) throws IOException;
+    }
+
+    /**
+     * Pass the characters to a writer, except the first occurrence of a placeholder, replaced by other content.
+     */
+    private static final class PlaceholderWriter extends Writer {
+
+        private final Writer out;
+        private final String placeholder;
+        private final Replacement replacement;
+        // number of characters of the placeholder matched by the last characters written, and not passed yet
+        private int matched;
+        private boolean replaced;
+        // number of spaces since the start of the line, -1 when the line has other characters
+        private int indentation;
+
+        private PlaceholderWriter(Writer out, String placeholder, Replacement replacement) {
+            this.out = out;
+            this.placeholder = placeholder;
+            this.replacement = replacement;
+        }
+
+        boolean isReplaced() {
+            return replaced;
+        }
+
+        @Override
+        public void write(char[] chars, int offset, int length) throws IOException {
+            if (replaced) {
+                out.write(chars, offset, length);
+                return;
+            }
+            int passed = offset;
+            int end = offset + length;
+            for (int i = offset; i < end && !replaced; i++) {
+                char c = chars[i];
+                if (c == placeholder.charAt(matched)) {
+                    if (matched == 0) {
+                        out.write(chars, passed, i - passed);
+                    }
+                    matched++;
+                    passed = i + 1;
+                    if (matched == placeholder.length()) {
+                        replacement.write(Math.max(indentation, 0));
+                        matched = 0;
+                        replaced = true;
+                    }
+                    continue;
+                }
+                if (matched > 0) {
+                    // the placeholder has a single '<', its first character, so a new match can only start here
+                    flushPending();
+                    passed = i;
+                    if (c == placeholder.charAt(0)) {
+                        i--;
+                        continue;
+                    }
+                }
+                indentation = c == '\n' ? 0 : c == ' ' && indentation >= 0 ? indentation + 1 : -1;
+            }
+            out.write(chars, passed, end - passed);
+        }
+
+        // the characters matching the start of the placeholder are not the placeholder
+        void flushPending() throws IOException {
+            out.write(placeholder, 0, matched);
+            indentation = -1;
+            matched = 0;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    /**
+     * Write the shapes and edges of the model in place of the placeholder, whose indentation is already written.
+     */
+    private static final class DiagramElementsWriter {
+
+        private static final String INDENT = "    ";
+
+        private final Writer out;
+        private final PackedDisplayModel model;
+        private final boolean formatted;
+        private final String indentation;
+        private XMLStreamWriter writer;
+        private boolean first = true;
+
+        private DiagramElementsWriter(Writer out, PackedDisplayModel model, boolean formatted, int indentation) {
+            this.out = out;
+            this.model = model;
+            this.formatted = formatted;
+            this.indentation = " ".repeat(indentation);
+        }
+
+        void write() throws IOException {
+            try {
+                // only complete elements are written, the namespaces are declared by the root element
+                writer = outputFactory.createXMLStreamWriter(out);
+                writeDiagramElements();
+                writer.flush();
+            } catch (XMLStreamException e) {
+                throw new IOException("Unable to write the BPMN diagram", e);
+            }
+        }
+
+        private void writeDiagramElements() throws XMLStreamException {
+            for (int node = 0; node < model.flowNodeCount(); node++) {
+                String bpmnElement = model.flowNodeId(node);
+                ShapeType shapeType = model.flowNodeType(node);
+                int x = model.flowNodeX(node);
+                startDiagramElement("BPMNShape", bpmnElement);
+                writeBounds(1, x, model.flowNodeY(node), model.flowNodeWidth(node), model.flowNodeHeight(node));
+                if (hasLabel(shapeType)) {
+                    indent(1);
+                    writer.writeStartElement(prefixOf(BPMNDI_NAMESPACE), "BPMNLabel", BPMNDI_NAMESPACE);
+                    writeBounds(2, labelX(shapeType, x, model.labelX(node)), model.labelY(node),
+                            model.labelWidth(node), model.labelHeight(node));
+                    indent(1);
+                    writer.writeEndElement();
+                }
+                indent(0);
+                writer.writeEndElement();
+            }
+            for (int edge = 0; edge < model.edgeCount(); edge++) {
+                startDiagramElement("BPMNEdge", model.edgeId(edge));
+                for (int wayPoint = 0; wayPoint < model.wayPointCount(edge); wayPoint++) {
+                    indent(1);
+                    writer.writeEmptyElement(prefixOf(DI_NAMESPACE), "waypoint", DI_NAMESPACE);
+                    writer.writeAttribute("x", coordinate(model.wayPointX(edge, wayPoint)));
+                    writer.writeAttribute("y", coordinate(model.wayPointY(edge, wayPoint)));
+                }
+                indent(0);
+                writer.writeEndElement();
+            }
+        }
+
+        private void startDiagramElement(String localName, String bpmnElement) throws XMLStreamException {
+            // the indentation of the first element is the one of the placeholder
+            if (!first) {
+                indent(0);
+            }
+            first = false;
+            writer.writeStartElement(prefixOf(BPMNDI_NAMESPACE), localName, BPMNDI_NAMESPACE);
+            writer.writeAttribute("bpmnElement", bpmnElement);
+            writer.writeAttribute("id", localName + "_" + bpmnElement);
+        }
+
+        private void writeBounds(int level, int x, int y, int width, int height) throws XMLStreamException {
+            indent(level);
+            writer.writeEmptyElement(prefixOf(DC_NAMESPACE), "Bounds", DC_NAMESPACE);
+            writer.writeAttribute("x", coordinate(x));
+            writer.writeAttribute("y", coordinate(y));
+            writer.writeAttribute("width", coordinate(width));
+            writer.writeAttribute("height", coordinate(height));
+        }
+
+        // coordinates are doubles in the BPMN schema, written as JAXB does
+        private static String coordinate(int value) {
+            return String.valueOf((double) value);
+        }
+
+        // relative to the placeholder
+        private void indent(int level) throws XMLStreamException {
+            if (!formatted) {
+                return;
+            }
+            writer.writeCharacters("\n");
+            writer.writeCharacters(indentation);
+            for (int i = 0; i < level; i++) {
+                writer.writeCharacters(INDENT);
+            }
+        }
+    }
+
+}
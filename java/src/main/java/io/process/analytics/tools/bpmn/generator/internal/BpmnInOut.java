@@ -15,10 +15,14 @@
  */
 package io.process.analytics.tools.bpmn.generator.internal;
 
-import static io.process.analytics.tools.bpmn.generator.internal.FileUtils.fileContent;
+import static io.process.analytics.tools.bpmn.generator.internal.FileUtils.newInputStream;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
 
 import io.process.analytics.tools.bpmn.generator.internal.generated.model.TDefinitions;
 
@@ -30,6 +34,13 @@ public class BpmnInOut {
         return new BpmnInOut(new XmlParser());
     }
 
+    /**
+     * Write the BPMN without indentation.
+     */
+    public static BpmnInOut compactBpmnInOut() {
+        return new BpmnInOut(new XmlParser(false));
+    }
+
     public BpmnInOut(XmlParser xmlParser) {
         this.xmlParser = xmlParser;
     }
@@ -38,15 +49,41 @@ public class BpmnInOut {
         return xmlParser.unmarshall(xml);
     }
 
+    /**
+     * @param bpmn decompressed when its name ends with .gz
+     */
     public TDefinitions readFromBpmn(File bpmn) {
-        try {
-            String xml = fileContent(bpmn);
-            return readFromBpmn(xml);
+        return readFromBpmn(bpmn.toPath());
+    }
+
+    /**
+     * Parse the bytes of the file, without building its content as a String. Large files are memory-mapped.
+     *
+     * @param bpmn decompressed when its name ends with .gz
+     * @see FileUtils#newInputStream(Path)
+     */
+    public TDefinitions readFromBpmn(Path bpmn) {
+        try (InputStream input = newInputStream(bpmn)) {
+            return readFromBpmn(input);
         } catch (IOException e) {
-            throw new RuntimeException("Error while reading file " + bpmn.getName(), e);
+            throw new RuntimeException("Error while reading file " + bpmn.getFileName(), e);
         }
     }
 
+    /**
+     * @param bpmn read until its end, its encoding is detected from its content. The stream is not closed.
+     */
+    public TDefinitions readFromBpmn(InputStream bpmn) {
+        return xmlParser.unmarshall(bpmn);
+    }
+
+    /**
+     * @param bpmn read until its end, the channel is not closed
+     */
+    public TDefinitions readFromBpmn(ReadableByteChannel bpmn) {
+        return readFromBpmn(Channels.newInputStream(bpmn));
+    }
+
     public String writeToBpmn(TDefinitions definitions) {
         return xmlParser.marshal(definitions);
     }
@@ -31,6 +31,13 @@ public class BpmnNamespacePrefixMapper extends NamespacePrefixMapper {
         namespaces.put("http://www.omg.org/spec/DD/20100524/DI", "di");
     }
 
+    /**
+     * @return the prefix used for one of the BPMN namespaces
+     */
+    static String prefixOf(String namespaceUri) {
+        return namespaces.get(namespaceUri);
+    }
+
     @Override
     public String getPreferredPrefix(String namespaceUri, String suggestion, boolean requirePrefix) {
         return namespaces.getOrDefault(namespaceUri, suggestion);
@@ -15,20 +15,140 @@
  */
 package io.process.analytics.tools.bpmn.generator.internal;
 
+import static java.util.stream.Collectors.toList;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 public class FileUtils {
 
+    public static final int GZIP_BUFFER_SIZE = 8192;
+    // larger files are read from memory-mapped regions, without copying them in heap buffers
+    public static final long MAPPED_FILE_THRESHOLD = 32L * 1024 * 1024;
+
     // when switching to JDK11+, use Files#readString instead
     public static String fileContent(File file) throws IOException {
-        List<String> strings = Files.readAllLines(file.toPath());
+        List<String> strings;
+        if (isGzip(file)) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(newInputStream(file.toPath()),
+                    StandardCharsets.UTF_8))) {
+                strings = reader.lines().collect(toList());
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        } else {
+            strings = Files.readAllLines(file.toPath());
+        }
         // we do not care of having a OS related eol as the xml reader can handle whatever eol, so use an hardcoded eol
         return String.join("\n", strings);
     }
 
+    /**
+     * Open the file to read its bytes, e.g. to parse it without building its content as a String. The file is
+     * decompressed when it is {@link #isGzip(Path) compressed}, and memory-mapped when it is larger than
+     * {@link #MAPPED_FILE_THRESHOLD}.
+     */
+    public static InputStream newInputStream(Path file) throws IOException {
+        if (isGzip(file)) {
+            return new GZIPInputStream(Files.newInputStream(file), GZIP_BUFFER_SIZE);
+        }
+        if (Files.size(file) > MAPPED_FILE_THRESHOLD) {
+            return new MappedFileInputStream(FileChannel.open(file, StandardOpenOption.READ));
+        }
+        return new BufferedInputStream(Files.newInputStream(file));
+    }
+
+    /**
+     * Create or replace the file to write it through a buffer. The file is compressed when it is
+     * {@link #isGzip(Path) a gzip file}.
+     */
+    public static OutputStream newOutputStream(Path file) throws IOException {
+        OutputStream output = Files.newOutputStream(file);
+        if (isGzip(file)) {
+            output = new GZIPOutputStream(output, GZIP_BUFFER_SIZE);
+        }
+        return new BufferedOutputStream(output);
+    }
+
+    /**
+     * Write the file through a hidden temporary file of its directory, moved onto it once completely written. So the
+     * file is left untouched when the writing fails, and it can be an input read while writing it.
+     *
+     * @param compress whether to compress the bytes written with gzip
+     */
+    public static void writeAtomically(Path file, boolean compress, OutputWriter writer) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        // in the same directory, so the move doesn't copy it
+        Path temporaryFile = directory.resolve("." + file.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            OutputStream output = Files.newOutputStream(temporaryFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            if (compress) {
+                output = new GZIPOutputStream(output, GZIP_BUFFER_SIZE);
+            }
+            try (OutputStream bufferedOutput = new BufferedOutputStream(output)) {
+                writer.write(bufferedOutput);
+            }
+            try {
+                Files.move(temporaryFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    @FunctionalInterface
+    public interface OutputWriter {
+
+        /**
+         * @param output closed by the caller
+         */
+        void write(OutputStream output) throws IOException;
+    }
+
+    /**
+     * @return a stream reading the input, which is not closed when the stream is closed, e.g. by the XML parser
+     */
+    public static InputStream nonClosingInputStream(InputStream input) {
+        return new FilterInputStream(input) {
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    /**
+     * @return whether the file is compressed with gzip, according to its extension
+     */
+    public static boolean isGzip(File file) {
+        return isGzip(file.toPath());
+    }
+
+    public static boolean isGzip(Path file) {
+        return file.getFileName().toString().endsWith(".gz");
+    }
+
     public static void createParents(File file) {
         // TODO throw IOException if failure like commons-io
         file.getParentFile().mkdirs();
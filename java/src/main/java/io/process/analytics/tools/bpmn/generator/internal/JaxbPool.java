@@ -0,0 +1,86 @@
+/*
+ * Copyright 2026 Bonitasoft S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.process.analytics.tools.bpmn.generator.internal;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.xml.bind.JAXBException;
+
+import lombok.Value;
+
+/**
+ * Bounded pool of configured JAXB marshallers or unmarshallers, which are expensive to create but not thread-safe.
+ *
+ * An instance is used by a single thread between {@link #borrow()} and {@link #release(Object)}. The pool never blocks:
+ * when it is empty a new instance is created, and when it is full a released instance is dropped.
+ */
+public class JaxbPool<T> {
+
+    @FunctionalInterface
+    interface Factory<T> {
+        T create() throws JAXBException;
+    }
+
+    private final Factory<T> factory;
+    private final BlockingQueue<T> idle;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param capacity maximum number of idle instances kept
+     */
+    JaxbPool(Factory<T> factory, int capacity) {
+        this.factory = factory;
+        idle = new ArrayBlockingQueue<>(capacity);
+    }
+
+    T borrow() throws JAXBException {
+        T instance = idle.poll();
+        if (instance != null) {
+            hits.increment();
+            return instance;
+        }
+        misses.increment();
+        return factory.create();
+    }
+
+    /**
+     * Give back an instance that was used successfully. One that failed may be in an unexpected state, so it must not
+     * be released.
+     */
+    void release(T instance) {
+        idle.offer(instance);
+    }
+
+    Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), idle.size());
+    }
+
+    /**
+     * @see XmlParser#marshallerStats()
+     */
+    @Value
+    public static class Stats {
+        // borrows served by an idle instance
+        long hits;
+        // borrows that needed a new instance
+        long misses;
+        int idle;
+    }
+
+}
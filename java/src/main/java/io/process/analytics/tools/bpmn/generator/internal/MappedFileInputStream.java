@@ -0,0 +1,94 @@
+/*
+ * Copyright 2026 Bonitasoft S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.process.analytics.tools.bpmn.generator.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Read a file from memory-mapped regions, so its content is copied from the page cache straight to the buffer of the
+ * reader, e.g. the XML parser. The regions are mapped one after the other, so files larger than 2 GB can be read.
+ */
+class MappedFileInputStream extends InputStream {
+
+    static final long REGION_SIZE = 256L * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final long size;
+    private final long regionSize;
+    // position in the file of the end of the current region
+    private long position;
+    private MappedByteBuffer region;
+
+    MappedFileInputStream(FileChannel channel) throws IOException {
+        this(channel, REGION_SIZE);
+    }
+
+    MappedFileInputStream(FileChannel channel, long regionSize) throws IOException {
+        this.channel = channel;
+        this.size = channel.size();
+        this.regionSize = regionSize;
+    }
+
+    /**
+     * @return false when the end of the file is reached
+     */
+    private boolean hasRemaining() throws IOException {
+        if (region != null && region.hasRemaining()) {
+            return true;
+        }
+        if (position >= size) {
+            return false;
+        }
+        long length = Math.min(regionSize, size - position);
+        region = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+        position += length;
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return hasRemaining() ? region.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (!hasRemaining()) {
+            return -1;
+        }
+        int count = Math.min(length, region.remaining());
+        region.get(bytes, offset, count);
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return region == null ? 0 : region.remaining();
+    }
+
+    @Override
+    public void close() throws IOException {
+        // the mapped regions are released when they are garbage collected
+        region = null;
+        channel.close();
+    }
+
+}
@@ -15,18 +15,41 @@
  */
 package io.process.analytics.tools.bpmn.generator.internal;
 
+import java.io.InputStream;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.io.Writer;
 
 import javax.xml.bind.*;
 import javax.xml.transform.stream.StreamSource;
 
+import io.process.analytics.tools.bpmn.generator.input.InvalidInputException;
 import io.process.analytics.tools.bpmn.generator.internal.generated.model.ObjectFactory;
 import io.process.analytics.tools.bpmn.generator.internal.generated.model.TDefinitions;
+import lombok.Getter;
 
 public class XmlParser {
 
     private static final JAXBContext context = initContext();
+    // instances are only needed for the threads using the parser at the same time
+    private static final int POOL_CAPACITY = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+    private static final BpmnNamespacePrefixMapper namespacePrefixMapper = new BpmnNamespacePrefixMapper();
+    private static final JaxbPool<Marshaller> marshallers = new JaxbPool<>(XmlParser::createMarshaller, POOL_CAPACITY);
+    private static final JaxbPool<Unmarshaller> unmarshallers = new JaxbPool<>(context::createUnmarshaller, POOL_CAPACITY);
+
+    /**
+     * Whether the written XML is indented. Large diagrams are about a third smaller without indentation.
+     */
+    @Getter
+    private final boolean formatted;
+
+    public XmlParser() {
+        this(true);
+    }
+
+    public XmlParser(boolean formatted) {
+        this.formatted = formatted;
+    }
 
     private static JAXBContext initContext() {
         try {
@@ -36,22 +59,55 @@ public class XmlParser {
         }
     }
 
+    /**
+     * @return the use of the marshallers shared by all the parsers
+     */
+    public static JaxbPool.Stats marshallerStats() {
+        return marshallers.stats();
+    }
+
+    /**
+     * @return the use of the unmarshallers shared by all the parsers
+     */
+    public static JaxbPool.Stats unmarshallerStats() {
+        return unmarshallers.stats();
+    }
+
     public String marshal(TDefinitions definitions) {
         try {
             JAXBElement<TDefinitions> root = new ObjectFactory().createDefinitions(definitions);
             StringWriter stringWriter = new StringWriter();
-            createMarshaller().marshal(root, stringWriter);
+            Marshaller marshaller = marshallers.borrow();
+            // the pooled marshallers are shared by the formatted and not formatted parsers
+            marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, formatted);
+            marshaller.marshal(root, stringWriter);
+            marshallers.release(marshaller);
             return stringWriter.toString();
         } catch (JAXBException e) {
             throw new RuntimeException("Unable to marshal", e);
         }
     }
 
-    private Marshaller createMarshaller() throws JAXBException {
+    /**
+     * Write the definitions as a whole XML document, as {@link #marshal(TDefinitions)} does. The writer is neither
+     * flushed nor closed.
+     */
+    public void marshal(TDefinitions definitions, Writer writer) {
+        try {
+            JAXBElement<TDefinitions> root = new ObjectFactory().createDefinitions(definitions);
+            Marshaller marshaller = marshallers.borrow();
+            marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, formatted);
+            marshaller.marshal(root, writer);
+            marshallers.release(marshaller);
+        } catch (JAXBException e) {
+            throw new RuntimeException("Unable to marshal", e);
+        }
+    }
+
+    private static Marshaller createMarshaller() throws JAXBException {
         Marshaller marshaller = context.createMarshaller();
-        marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
         try {
-            marshaller.setProperty("com.sun.xml.bind.namespacePrefixMapper", new BpmnNamespacePrefixMapper());
+            marshaller.setProperty("com.sun.xml.bind.namespacePrefixMapper", namespacePrefixMapper);
         } catch(PropertyException e) {
             // In case another JAXB implementation is used
             // do not stop processing, namespace prefixes will be generated automatically in that case
@@ -62,12 +118,25 @@ public class XmlParser {
     }
 
     public TDefinitions unmarshall(String xml) {
+        return unmarshall(new StreamSource(new StringReader(xml)));
+    }
+
+    /**
+     * @param xml read until its end, its encoding is detected from its content. The stream is not closed.
+     */
+    public TDefinitions unmarshall(InputStream xml) {
+        // the parser closes the stream at the end of the document
+        return unmarshall(new StreamSource(FileUtils.nonClosingInputStream(xml)));
+    }
+
+    private TDefinitions unmarshall(StreamSource source) {
         try {
-            StreamSource source = new StreamSource(new StringReader(xml));
-            JAXBElement<TDefinitions> root = context.createUnmarshaller().unmarshal(source, TDefinitions.class);
+            Unmarshaller unmarshaller = unmarshallers.borrow();
+            JAXBElement<TDefinitions> root = unmarshaller.unmarshal(source, TDefinitions.class);
+            unmarshallers.release(unmarshaller);
             return root.getValue();
         } catch (JAXBException e) {
-            throw new RuntimeException("Unable to marshal", e);
+            throw new InvalidInputException("Unable to unmarshal", e);
         }
     }
 
@@ -1,41 +1,114 @@
 package io.process.analytics.tools.bpmn.generator.model;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
-import java.util.stream.Collectors;
 
+import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
 import lombok.Singular;
+import lombok.ToString;
 
 @Data
-@Builder
 public class Diagram {
 
-    @Singular
     private List<Shape> shapes;
-    @Singular
     private Set<Edge> edges;
 
+    // built on first query, so each query only costs the degree of the shape
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private Adjacency adjacency;
+
+    @Builder
+    Diagram(@Singular List<Shape> shapes, @Singular Set<Edge> edges) {
+        this.shapes = shapes;
+        this.edges = edges;
+    }
 
     public List<Edge> getIncomingEdges(String shapeId) {
-        return edges.stream().filter(e -> e.getTo().equals(shapeId)).collect(Collectors.toList());
+        return adjacency().incoming.getOrDefault(shapeId, List.of());
     }
 
     public List<Edge> getOutgoingEdges(String shapeId) {
-        return edges.stream().filter(e -> e.getFrom().equals(shapeId)).collect(Collectors.toList());
+        return adjacency().outgoing.getOrDefault(shapeId, List.of());
     }
 
     public List<Edge> getOriginalIncomingEdges(String shapeId) {
-        return edges.stream().filter(e -> (e.getTo().equals(shapeId) && !e.isReverted()) || (e.getFrom().equals(shapeId) && e.isReverted())).collect(Collectors.toList());
+        return adjacency().originalIncoming.getOrDefault(shapeId, List.of());
     }
 
     public List<Edge> getOriginalOutgoingEdges(String shapeId) {
-        return edges.stream().filter(e -> (e.getFrom().equals(shapeId) && !e.isReverted()) || (e.getTo().equals(shapeId) && e.isReverted())).collect(Collectors.toList());
+        return adjacency().originalOutgoing.getOrDefault(shapeId, List.of());
     }
 
     public Shape getShape(String shapeId) {
-        return shapes.stream().filter(s -> s.getId().equals(shapeId)).findFirst().get();
+        Shape shape = adjacency().shapes.get(shapeId);
+        if (shape == null) {
+            throw new NoSuchElementException("Unknown shape: " + shapeId);
+        }
+        return shape;
+    }
+
+    private Adjacency adjacency() {
+        Adjacency current = adjacency;
+        if (current == null || current.builtFromShapes != shapes || current.builtFromEdges != edges) {
+            current = new Adjacency(shapes, edges);
+            adjacency = current;
+        }
+        return current;
+    }
+
+    /**
+     * Shapes by id and edges by shape id, in both current (possibly reverted) and original direction.
+     * Edges are kept in the iteration order of the diagram edges.
+     */
+    private static final class Adjacency {
+
+        private final List<Shape> builtFromShapes;
+        private final Set<Edge> builtFromEdges;
+
+        private final Map<String, Shape> shapes = new HashMap<>();
+        private final Map<String, List<Edge>> incoming = new HashMap<>();
+        private final Map<String, List<Edge>> outgoing = new HashMap<>();
+        private final Map<String, List<Edge>> originalIncoming = new HashMap<>();
+        private final Map<String, List<Edge>> originalOutgoing = new HashMap<>();
+
+        private Adjacency(List<Shape> shapes, Set<Edge> edges) {
+            builtFromShapes = shapes;
+            builtFromEdges = edges;
+            for (Shape shape : shapes) {
+                this.shapes.putIfAbsent(shape.getId(), shape);
+            }
+            for (Edge edge : edges) {
+                add(incoming, edge.getTo(), edge);
+                add(outgoing, edge.getFrom(), edge);
+                add(originalIncoming, edge.isReverted() ? edge.getFrom() : edge.getTo(), edge);
+                add(originalOutgoing, edge.isReverted() ? edge.getTo() : edge.getFrom(), edge);
+            }
+            unmodifiable(incoming);
+            unmodifiable(outgoing);
+            unmodifiable(originalIncoming);
+            unmodifiable(originalOutgoing);
+        }
+
+        private static void add(Map<String, List<Edge>> edgesByShape, String shapeId, Edge edge) {
+            edgesByShape.computeIfAbsent(shapeId, id -> new ArrayList<>(2)).add(edge);
+        }
+
+        private static void unmodifiable(Map<String, List<Edge>> edgesByShape) {
+            edgesByShape.replaceAll((shapeId, edges) -> Collections.unmodifiableList(edges));
+        }
     }
 
 }
@@ -1,8 +1,13 @@
 package io.process.analytics.tools.bpmn.generator.model;
 
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
 /**
  *
@@ -13,11 +18,24 @@ import java.util.stream.Collectors;
  *  ↓
  *  y
  * </pre>
+ *
+ * Positions are indexed by shape, by row and by column, so lookups don't depend on the number of positions in the grid.
+ * A position is attached to its row rather than storing its y coordinate: adding or removing a row shifts the rows below
+ * it in O(log rows) and their positions are only updated when they are read. These positions are still put at the end
+ * of the order of {@link #getPositions()}, in one pass over them, as if they had been removed and added again: the
+ * exports list the elements in the same order as when the positions were stored in a list.
  */
 // TODO use lombok getter?
 public class Grid {
 
-    private final List<Position> positions = new ArrayList<>();
+    // keep the order in which the positions have been added, the positions moved to another row being added again
+    private final Set<Cell> cells = new LinkedHashSet<>();
+    private final Map<String, List<Cell>> cellsByShape = new HashMap<>();
+    private final GridRows rows = new GridRows();
+    private final TreeMap<Integer, Integer> columns = new TreeMap<>();
+
+    private List<Position> positions;
+    private long nextOrder;
 
     public static Grid of(Position... positions) {
         Grid grid = new Grid();
@@ -42,30 +60,66 @@ public class Grid {
     }
 
     public Integer getLastRowIndex() {
-        return positions.stream().map(Position::getY).reduce(-1, Math::max);
+        // the last row is never empty
+        return rows.size() - 1;
     }
 
     public Integer getLastColumnIndex() {
-        return positions.stream().map(Position::getX).reduce(-1, Math::max);
+        return columns.isEmpty() ? -1 : Math.max(-1, columns.lastKey());
     }
 
+    /**
+     * @return the positions, in the order they have been added to the grid. The returned list is not modifiable.
+     */
     public List<Position> getPositions() {
+        if (positions == null) {
+            positions = cells.stream().map(this::positionOf).toList();
+        }
         return positions;
     }
 
     public Position getPosition(String node) {
-        return positions.stream().filter(position -> position.getShape().equals(node)).findFirst().orElseThrow(() -> new IllegalStateException("Node not yet positionned in grid:" + node));
+        List<Cell> cellsOfShape = cellsByShape.get(node);
+        if (cellsOfShape == null) {
+            throw new IllegalStateException("Node not yet positionned in grid:" + node);
+        }
+        // the first one in the order of the positions
+        Cell first = cellsOfShape.get(0);
+        for (Cell cell : cellsOfShape) {
+            if (cell.order < first.order) {
+                first = cell;
+            }
+        }
+        return positionOf(first);
     }
 
     public List<Position> getRow(int index) {
-        return positions.stream().filter(p -> p.getY() == index).collect(Collectors.toList());
+        List<Position> row = new ArrayList<>();
+        if (index >= 0 && index < rows.size()) {
+            for (Cell cell : rows.get(index).cells) {
+                row.add(positionOf(cell, index));
+            }
+        }
+        return row;
     }
 
     public void remove(Position position) {
-        if (!positions.contains(position)) {
+        Cell cell = findCell(position);
+        if (cell == null) {
             throw new IllegalArgumentException("Position " + position + " is not in the grid");
         }
-        positions.remove(position);
+        cells.remove(cell);
+        List<Cell> cellsOfShape = cellsByShape.get(position.getShape());
+        cellsOfShape.remove(cell);
+        if (cellsOfShape.isEmpty()) {
+            cellsByShape.remove(position.getShape());
+        }
+        columns.computeIfPresent(position.getX(), (x, count) -> count == 1 ? null : count - 1);
+        cell.row.remove(cell);
+        while (rows.size() > 0 && rows.get(rows.size() - 1).cells.isEmpty()) {
+            rows.remove(rows.size() - 1);
+        }
+        positions = null;
     }
 
     /**
@@ -74,7 +128,20 @@ public class Grid {
      * @param position to add
      */
     public void add(Position position) {
-        positions.add(position);
+        int y = position.getY();
+        if (y < 0) {
+            throw new IllegalArgumentException("Position " + position + " is outside of the grid");
+        }
+        while (rows.size() <= y) {
+            rows.insert(rows.size(), new Row());
+        }
+        Cell cell = new Cell(position, rows.get(y));
+        cell.order = nextOrder++;
+        cells.add(cell);
+        cellsByShape.computeIfAbsent(position.getShape(), shape -> new ArrayList<>(1)).add(cell);
+        columns.merge(position.getX(), 1, Integer::sum);
+        cell.row.add(cell);
+        positions = null;
     }
 
     /**
@@ -84,32 +151,119 @@ public class Grid {
      * @param y add a row after that row
      */
     public void addRowAfter(int y) {
-        for (Position cellToMove : getAllPositionBelow(y)) {
-            positions.remove(cellToMove);
-            positions.add(cellToMove.toBuilder().y(cellToMove.getY() + 1).build());
+        int index = Math.max(y + 1, 0);
+        if (index < rows.size()) {
+            moveToEnd(index);
+            rows.insert(index, new Row());
+            positions = null;
         }
     }
 
-    private List<Position> getAllPositionBelow(int y) {
-        return positions.stream().filter(p -> p.getY() > y).collect(Collectors.toList());
-    }
-
     public void addRowBefore(int y) {
         addRowAfter(y - 1);
     }
 
     public void removeEmptyRow(int y) {
-        List<Position> row = getRow(y);
-        if (!row.isEmpty()) {
-            throw new IllegalArgumentException("Row " + y + " is not empty");
+        if (y < 0) {
+            throw new IllegalArgumentException("Row " + y + " is outside of the grid");
         }
-        for (Position cellToMove : getAllPositionBelow(y)) {
-            positions.remove(cellToMove);
-            positions.add(cellToMove.toBuilder().y(cellToMove.getY() - 1).build());
+        if (y < rows.size()) {
+            if (!rows.get(y).cells.isEmpty()) {
+                throw new IllegalArgumentException("Row " + y + " is not empty");
+            }
+            moveToEnd(y + 1);
+            rows.remove(y);
+            positions = null;
         }
     }
 
     public boolean isFilled(Position position) {
-        return positions.stream().anyMatch(p -> p.getX() == position.getX() && p.getY() == position.getY());
+        int y = position.getY();
+        return y >= 0 && y < rows.size() && rows.get(y).cellsByColumn.containsKey(position.getX());
+    }
+
+    /**
+     * Put the positions of the rows from the given index at the end of the order of the positions, keeping their
+     * relative order, as if they had been removed and added again with their new y coordinate.
+     */
+    private void moveToEnd(int fromRow) {
+        List<Cell> moved = new ArrayList<>();
+        rows.forEachFrom(fromRow, row -> moved.addAll(row.cells));
+        moved.sort(Comparator.comparingLong(cell -> cell.order));
+        for (Cell cell : moved) {
+            cells.remove(cell);
+            cell.order = nextOrder++;
+            cells.add(cell);
+        }
+    }
+
+    private Cell findCell(Position position) {
+        int y = position.getY();
+        if (y < 0 || y >= rows.size()) {
+            return null;
+        }
+        List<Cell> candidates = rows.get(y).cellsByColumn.get(position.getX());
+        if (candidates != null) {
+            for (Cell candidate : candidates) {
+                if (positionOf(candidate, y).equals(position)) {
+                    return candidate;
+                }
+            }
+        }
+        return null;
+    }
+
+    private Position positionOf(Cell cell) {
+        return positionOf(cell, rows.indexOf(cell.row));
+    }
+
+    // the y coordinate of a position is only updated when it is read after its row moved
+    private static Position positionOf(Cell cell, int y) {
+        if (cell.position.getY() != y) {
+            cell.position = cell.position.toBuilder().y(y).build();
+        }
+        return cell.position;
+    }
+
+    // a position in the grid, identified by reference as equal positions can be added several times
+    private static final class Cell {
+
+        private Position position;
+        private final Row row;
+        // rank in the order of the positions
+        private long order;
+
+        private Cell(Position position, Row row) {
+            this.position = position;
+            this.row = row;
+        }
+    }
+
+    // node of GridRows
+    static final class Row {
+
+        private final Set<Cell> cells = new LinkedHashSet<>();
+        private final Map<Integer, List<Cell>> cellsByColumn = new HashMap<>();
+
+        Row left;
+        Row right;
+        Row parent;
+        int size;
+        int priority;
+
+        private void add(Cell cell) {
+            cells.add(cell);
+            cellsByColumn.computeIfAbsent(cell.position.getX(), x -> new ArrayList<>(1)).add(cell);
+        }
+
+        private void remove(Cell cell) {
+            cells.remove(cell);
+            int x = cell.position.getX();
+            List<Cell> cellsOfColumn = cellsByColumn.get(x);
+            cellsOfColumn.remove(cell);
+            if (cellsOfColumn.isEmpty()) {
+                cellsByColumn.remove(x);
+            }
+        }
     }
 }
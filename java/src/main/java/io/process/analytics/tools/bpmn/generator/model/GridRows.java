@@ -0,0 +1,172 @@
+/*
+ * Copyright 2026 Bonitasoft S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.process.analytics.tools.bpmn.generator.model;
+
+import java.util.function.Consumer;
+
+import io.process.analytics.tools.bpmn.generator.model.Grid.Row;
+
+/**
+ * Ordered sequence of the rows of a {@link Grid}, stored as an implicit treap: the index of a row is its rank in the
+ * tree, so inserting or removing a row shifts all the rows below it in O(log rows) without touching their content.
+ */
+final class GridRows {
+
+    private Row root;
+    // xorshift state, fixed seed to keep the tree shape reproducible
+    private int seed = 0x2545F491;
+
+    int size() {
+        return size(root);
+    }
+
+    Row get(int index) {
+        Row row = root;
+        while (true) {
+            int leftSize = size(row.left);
+            if (index < leftSize) {
+                row = row.left;
+            } else if (index == leftSize) {
+                return row;
+            } else {
+                index -= leftSize + 1;
+                row = row.right;
+            }
+        }
+    }
+
+    int indexOf(Row row) {
+        int index = size(row.left);
+        for (Row current = row; current.parent != null; current = current.parent) {
+            if (current == current.parent.right) {
+                index += size(current.parent.left) + 1;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Apply the action to the rows from the index to the last one, in their order.
+     */
+    void forEachFrom(int index, Consumer<Row> action) {
+        forEachFrom(root, index, action);
+    }
+
+    private static void forEachFrom(Row row, int index, Consumer<Row> action) {
+        if (row == null) {
+            return;
+        }
+        int leftSize = size(row.left);
+        if (index < leftSize) {
+            forEachFrom(row.left, index, action);
+        }
+        if (index <= leftSize) {
+            action.accept(row);
+        }
+        forEachFrom(row.right, Math.max(index - leftSize - 1, 0), action);
+    }
+
+    void insert(int index, Row row) {
+        row.priority = nextPriority();
+        row.size = 1;
+        Row[] parts = split(root, index);
+        setRoot(merge(merge(parts[0], row), parts[1]));
+    }
+
+    Row remove(int index) {
+        Row[] parts = split(root, index);
+        Row[] removed = split(parts[1], 1);
+        setRoot(merge(parts[0], removed[1]));
+        Row row = removed[0];
+        row.left = null;
+        row.right = null;
+        row.parent = null;
+        return row;
+    }
+
+    private void setRoot(Row row) {
+        root = row;
+        if (root != null) {
+            root.parent = null;
+        }
+    }
+
+    // split the tree into the first 'count' rows and the remaining ones
+    private static Row[] split(Row row, int count) {
+        if (row == null) {
+            return new Row[2];
+        }
+        Row[] parts;
+        if (size(row.left) >= count) {
+            parts = split(row.left, count);
+            row.left = parts[1];
+            parts[1] = row;
+            detach(parts[0]);
+        } else {
+            parts = split(row.right, count - size(row.left) - 1);
+            row.right = parts[0];
+            parts[0] = row;
+            detach(parts[1]);
+        }
+        update(row);
+        return parts;
+    }
+
+    private static Row merge(Row left, Row right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+
+    private static void update(Row row) {
+        row.size = 1 + size(row.left) + size(row.right);
+        if (row.left != null) {
+            row.left.parent = row;
+        }
+        if (row.right != null) {
+            row.right.parent = row;
+        }
+    }
+
+    private static void detach(Row row) {
+        if (row != null) {
+            row.parent = null;
+        }
+    }
+
+    private static int size(Row row) {
+        return row == null ? 0 : row.size;
+    }
+
+    private int nextPriority() {
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        return seed;
+    }
+
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2026 Bonitasoft S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.process.analytics.tools.bpmn.generator.model.display;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.process.analytics.tools.bpmn.generator.model.ShapeType;
+import lombok.Builder;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Same content as a {@link DisplayModel}, stored by column instead of one object per flow node, label and waypoint.
+ *
+ * Bounds are packed 4 ints per flow node ({@code x, y, width, height}), so the bounds of node {@code n} start at
+ * {@code 4 * n}. The waypoints of all the edges are packed in a single array of {@code x, y} pairs: the waypoints of
+ * edge {@code e} are the pairs from {@code wayPointOffsets[e]} (included) to {@code wayPointOffsets[e + 1]} (excluded).
+ */
+@RequiredArgsConstructor
+@Builder
+public class PackedDisplayModel {
+
+    public static final int BOUNDS_SIZE = 4;
+
+    public final int width;
+    public final int height;
+
+    private final String[] flowNodeIds;
+    private final ShapeType[] flowNodeTypes;
+    private final int[] flowNodeBounds;
+    private final int[] flowNodeRx;
+    private final int[] flowNodeStrokeWidths;
+    private final String[] labelTexts;
+    private final int[] labelFontSizes;
+    private final int[] labelBounds;
+
+    private final String[] edgeIds;
+    private final int[] wayPointOffsets;
+    private final int[] wayPoints;
+
+    public int flowNodeCount() {
+        return flowNodeIds.length;
+    }
+
+    public String flowNodeId(int node) {
+        return flowNodeIds[node];
+    }
+
+    public ShapeType flowNodeType(int node) {
+        return flowNodeTypes[node];
+    }
+
+    public int flowNodeX(int node) {
+        return flowNodeBounds[BOUNDS_SIZE * node];
+    }
+
+    public int flowNodeY(int node) {
+        return flowNodeBounds[BOUNDS_SIZE * node + 1];
+    }
+
+    public int flowNodeWidth(int node) {
+        return flowNodeBounds[BOUNDS_SIZE * node + 2];
+    }
+
+    public int flowNodeHeight(int node) {
+        return flowNodeBounds[BOUNDS_SIZE * node + 3];
+    }
+
+    public int flowNodeRx(int node) {
+        return flowNodeRx[node];
+    }
+
+    public int flowNodeStrokeWidth(int node) {
+        return flowNodeStrokeWidths[node];
+    }
+
+    public String labelText(int node) {
+        return labelTexts[node];
+    }
+
+    public int labelFontSize(int node) {
+        return labelFontSizes[node];
+    }
+
+    public int labelX(int node) {
+        return labelBounds[BOUNDS_SIZE * node];
+    }
+
+    public int labelY(int node) {
+        return labelBounds[BOUNDS_SIZE * node + 1];
+    }
+
+    public int labelWidth(int node) {
+        return labelBounds[BOUNDS_SIZE * node + 2];
+    }
+
+    public int labelHeight(int node) {
+        return labelBounds[BOUNDS_SIZE * node + 3];
+    }
+
+    public int edgeCount() {
+        return edgeIds.length;
+    }
+
+    public String edgeId(int edge) {
+        return edgeIds[edge];
+    }
+
+    public int wayPointCount(int edge) {
+        return wayPointOffsets[edge + 1] - wayPointOffsets[edge];
+    }
+
+    public int wayPointX(int edge, int wayPoint) {
+        return wayPoints[2 * (wayPointOffsets[edge] + wayPoint)];
+    }
+
+    public int wayPointY(int edge, int wayPoint) {
+        return wayPoints[2 * (wayPointOffsets[edge] + wayPoint) + 1];
+    }
+
+    /**
+     * @return a model with one object per flow node, label and waypoint
+     */
+    public DisplayModel toDisplayModel() {
+        DisplayModel.DisplayModelBuilder model = DisplayModel.builder().width(width).height(height);
+        for (int node = 0; node < flowNodeCount(); node++) {
+            DisplayDimension dimension = new DisplayDimension(flowNodeX(node), flowNodeY(node),
+                    flowNodeWidth(node), flowNodeHeight(node));
+            DisplayDimension labelDimension = new DisplayDimension(labelX(node), labelY(node),
+                    labelWidth(node), labelHeight(node));
+            model.flowNode(DisplayFlowNode.builder().bpmnElementId(flowNodeId(node))
+                    .dimension(dimension)
+                    .label(new DisplayLabel(labelText(node), labelFontSize(node), labelDimension))
+                    .type(flowNodeType(node))
+                    .rx(flowNodeRx(node))
+                    .strokeWidth(flowNodeStrokeWidth(node))
+                    .build());
+        }
+        for (int edge = 0; edge < edgeCount(); edge++) {
+            List<DisplayPoint> points = new ArrayList<>(wayPointCount(edge));
+            for (int wayPoint = 0; wayPoint < wayPointCount(edge); wayPoint++) {
+                points.add(new DisplayPoint(wayPointX(edge, wayPoint), wayPointY(edge, wayPoint)));
+            }
+            model.edge(new DisplayEdge(edgeId(edge), points));
+        }
+        return model.build();
+    }
+
+}
@@ -19,6 +19,15 @@ import org.junit.jupiter.api.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import static io.process.analytics.tools.bpmn.generator.App.runApp;
 import static io.process.analytics.tools.bpmn.generator.AppTest.*;
@@ -47,6 +56,91 @@ public class AppFromBpmnTest {
         assertThat(fileContent(asciiFile)).contains("+---");
     }
 
+    @Test
+    public void main_generates_compact_svg_output_file() throws Exception {
+        String outputPath = outputPath("A.2.0.compact.svg");
+        runApp(input("bpmn/A.2.0.bpmn.xml"), "--output-type=SVG", "--compact-svg", "-o", outputPath);
+
+        assertSvgOutFile(outputPath);
+        assertThat(fileContent(new File(outputPath))).contains("<marker id=\"arrow\"").doesNotContain("stroke-opacity=");
+    }
+
+    @Test
+    public void main_generates_the_same_svg_output_file_when_streaming_the_bpmn_input() throws Exception {
+        String outputPath = outputPath("A.2.1.svg");
+        String streamedOutputPath = outputPath("A.2.1.streamed.svg");
+        runApp(input("bpmn/A.2.1.bpmn.xml"), "--output-type=SVG", "-o", outputPath);
+        runApp(input("bpmn/A.2.1.bpmn.xml"), "--output-type=SVG", "--stream-bpmn-input", "-o", streamedOutputPath);
+
+        assertSvgOutFile(streamedOutputPath);
+        assertThat(fileContent(new File(streamedOutputPath))).isEqualTo(fileContent(new File(outputPath)));
+    }
+
+    @Test
+    public void main_generates_bpmn_output_file_when_streaming_the_bpmn_output() throws Exception {
+        String outputPath = outputPath("A.2.1.streamed.bpmn.xml");
+        runApp(input("bpmn/A.2.1.bpmn.xml"), "--stream-bpmn-output", "-o", outputPath);
+
+        assertBpmnOutFile(outputPath);
+    }
+
+    @Test
+    public void main_generates_compact_bpmn_output_file() throws Exception {
+        String outputPath = outputPath("A.2.1.compact.bpmn.xml");
+        runApp(input("bpmn/A.2.1.bpmn.xml"), "--compact-bpmn", "-o", outputPath);
+
+        assertBpmnOutFile(outputPath);
+        assertThat(fileContent(new File(outputPath))).doesNotContain("\n    <");
+    }
+
+    @Test
+    public void main_reads_and_writes_gzip_files() throws Exception {
+        String gzipInputPath = outputPath("A.2.1.bpmn.xml.gz");
+        Files.createDirectories(Path.of(gzipInputPath).getParent());
+        try (OutputStream output = new GZIPOutputStream(Files.newOutputStream(Path.of(gzipInputPath)))) {
+            Files.copy(Path.of(input("bpmn/A.2.1.bpmn.xml")), output);
+        }
+        String outputPath = outputPath("A.2.1.from-gzip.bpmn.xml");
+        String gzipOutputPath = outputPath("A.2.1.from-gzip.bpmn.xml.gz");
+        runApp(gzipInputPath, "-o", outputPath);
+        runApp(gzipInputPath, "-o", gzipOutputPath);
+
+        assertBpmnOutFile(outputPath);
+        try (InputStream gzipOutput = new GZIPInputStream(Files.newInputStream(Path.of(gzipOutputPath)))) {
+            assertThat(new String(gzipOutput.readAllBytes(), StandardCharsets.UTF_8))
+                    .isEqualTo(Files.readString(Path.of(outputPath)));
+        }
+    }
+
+    @Test
+    public void main_keeps_the_existing_output_file_when_the_layout_fails() throws Exception {
+        Path invalidInputPath = Path.of(outputPath("invalid.bpmn.xml"));
+        Files.createDirectories(invalidInputPath.getParent());
+        Files.writeString(invalidInputPath, "<not-bpmn");
+        Path outputPath = Path.of(outputPath("existing.bpmn.xml"));
+        Files.writeString(outputPath, "existing");
+
+        int returnCode = runApp(invalidInputPath.toString(), "-o", outputPath.toString());
+
+        assertThat(returnCode).isEqualTo(1);
+        assertThat(outputPath).hasContent("existing");
+        try (Stream<Path> files = Files.list(outputPath.getParent())) {
+            assertThat(files).noneMatch(file -> file.getFileName().toString().endsWith(".tmp"));
+        }
+    }
+
+    @Test
+    public void main_rejects_the_input_file_as_output_file() throws Exception {
+        Path inputPath = Path.of(outputPath("A.2.0.input.bpmn.xml"));
+        Files.createDirectories(inputPath.getParent());
+        Files.copy(Path.of(input("bpmn/A.2.0.bpmn.xml")), inputPath, StandardCopyOption.REPLACE_EXISTING);
+
+        int returnCode = runApp(inputPath.toString(), "-o", inputPath.getParent().resolve(".").resolve(inputPath.getFileName()).toString());
+
+        assertThat(returnCode).isEqualTo(2);
+        assertThat(inputPath).hasSameBinaryContentAs(Path.of(input("bpmn/A.2.0.bpmn.xml")));
+    }
+
     @Test
     public void main_generates_output_files_for_waypoints_positions_for_gateways() throws Exception {
         runAndCheckBpmnAndSvgGeneration("waypoints-positions-gateways.bpmn.xml");
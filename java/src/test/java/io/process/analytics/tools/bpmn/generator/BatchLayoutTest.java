@@ -0,0 +1,125 @@
+/*
+ * Copyright 2026 Bonitasoft S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.process.analytics.tools.bpmn.generator;
+
+import static io.process.analytics.tools.bpmn.generator.App.runApp;
+import static io.process.analytics.tools.bpmn.generator.AppTest.assertBpmnOutFile;
+import static io.process.analytics.tools.bpmn.generator.AppTest.assertSvgOutFile;
+import static io.process.analytics.tools.bpmn.generator.AppTest.input;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.process.analytics.tools.bpmn.generator.BPMNLayoutGenerator.ExportType;
+
+class BatchLayoutTest {
+
+    @TempDir
+    Path inputDir;
+    @TempDir
+    Path outputDir;
+
+    @BeforeEach
+    void copyInputFiles() throws IOException {
+        Files.copy(Path.of(input("bpmn/A.2.0.bpmn.xml")), inputDir.resolve("A.2.0.bpmn.xml"));
+        Files.createDirectory(inputDir.resolve("sub"));
+        Files.copy(Path.of(input("bpmn/A.2.1.bpmn.xml")), inputDir.resolve("sub/A.2.1.bpmn.xml"));
+        Files.writeString(inputDir.resolve("invalid.bpmn.xml"), "<not-bpmn>");
+        Files.writeString(inputDir.resolve("README.txt"), "not matching the glob");
+    }
+
+    @Test
+    void lay_out_all_the_matching_files_and_continue_past_the_failures() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BatchLayout batchLayout = new BatchLayout(new BPMNLayoutGenerator(), ExportType.BPMN, 2,
+                new PrintStream(out, true, StandardCharsets.UTF_8));
+
+        int failures = batchLayout.run(inputDir, "**.bpmn.xml", outputDir);
+
+        assertThat(failures).isEqualTo(1);
+        assertBpmnOutFile(outputDir.resolve("A.2.0.bpmn.xml").toString());
+        assertBpmnOutFile(outputDir.resolve("sub/A.2.1.bpmn.xml").toString());
+        assertThat(outputDir.resolve("invalid.bpmn.xml")).doesNotExist();
+        assertThat(out.toString(StandardCharsets.UTF_8))
+                .contains("OK     A.2.0.bpmn.xml (")
+                .contains("OK     sub/A.2.1.bpmn.xml (")
+                .contains("FAILED invalid.bpmn.xml: ")
+                .doesNotContain("README.txt")
+                .containsPattern("Laid out 3 file\\(s\\), 1 failed, in [0-9.]+ s: [0-9.]+ files/s, latency p50 \\d+ ms, p99 \\d+ ms");
+    }
+
+    @Test
+    void main_lays_out_the_files_of_the_input_directory() throws IOException {
+        int returnCode = runApp("--input-dir", inputDir.toString(), "--output-dir", outputDir.toString(),
+                "--glob", "*.bpmn.xml", "--output-type", "SVG", "--workers", "1");
+
+        // the invalid file fails
+        assertThat(returnCode).isEqualTo(1);
+        assertSvgOutFile(outputDir.resolve("A.2.0.bpmn.xml.svg").toString());
+        // not matched by the glob
+        assertThat(outputDir.resolve("sub")).doesNotExist();
+    }
+
+    @Test
+    void main_fails_without_output_directory() {
+        int returnCode = runApp("--input-dir", inputDir.toString());
+
+        assertThat(returnCode).isEqualTo(2);
+    }
+
+    @Test
+    void keep_the_existing_output_of_a_file_that_fails() throws Exception {
+        Files.writeString(outputDir.resolve("invalid.bpmn.xml"), "existing");
+        BatchLayout batchLayout = new BatchLayout(new BPMNLayoutGenerator(), ExportType.BPMN, 1,
+                new PrintStream(new ByteArrayOutputStream(), true, StandardCharsets.UTF_8));
+
+        batchLayout.run(inputDir, "*.bpmn.xml", outputDir);
+
+        assertThat(outputDir.resolve("invalid.bpmn.xml")).hasContent("existing");
+        try (Stream<Path> files = Files.list(outputDir)) {
+            assertThat(files).noneMatch(file -> file.getFileName().toString().endsWith(".tmp"));
+        }
+    }
+
+    @Test
+    void main_fails_with_the_input_directory_as_output_directory_of_bpmn_files() throws IOException {
+        int returnCode = runApp("--input-dir", inputDir.toString(), "--output-dir", inputDir.resolve(".").toString());
+
+        assertThat(returnCode).isEqualTo(2);
+        assertThat(inputDir.resolve("A.2.0.bpmn.xml")).hasSameBinaryContentAs(Path.of(input("bpmn/A.2.0.bpmn.xml")));
+    }
+
+    @Test
+    void percentile_is_the_nearest_rank() {
+        long[] values = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10};
+
+        assertThat(BatchLayout.percentile(values, 50)).isEqualTo(5);
+        assertThat(BatchLayout.percentile(values, 99)).isEqualTo(10);
+        assertThat(BatchLayout.percentile(new long[]{42}, 1)).isEqualTo(42);
+        assertThat(BatchLayout.percentile(new long[0], 50)).isZero();
+    }
+
+}
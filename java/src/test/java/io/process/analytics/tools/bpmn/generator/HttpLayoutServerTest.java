@@ -0,0 +1,304 @@
+/*
+ * Copyright 2026 Bonitasoft S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.process.analytics.tools.bpmn.generator;
+
+import static io.process.analytics.tools.bpmn.generator.AppTest.input;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.process.analytics.tools.bpmn.generator.BPMNLayoutGenerator.ExportType;
+
+class HttpLayoutServerTest {
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private HttpLayoutServer server;
+    private int port;
+    private URI baseUri;
+
+    @AfterEach
+    void stopServer() {
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    private void startServer(BPMNLayoutGenerator generator, int maxConcurrentLayouts, int maxRequestSize,
+                             Duration requestTimeout) throws IOException {
+        server = new HttpLayoutServer(generator, maxConcurrentLayouts, maxRequestSize, requestTimeout);
+        port = server.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0)).getPort();
+        baseUri = URI.create("http://localhost:" + port);
+    }
+
+    private void startServer() throws IOException {
+        startServer(new BPMNLayoutGenerator(), 2, 1024 * 1024, Duration.ofSeconds(30));
+    }
+
+    private HttpResponse<String> post(String accept, String contentType, byte[] body) throws IOException, InterruptedException {
+        return client.send(layoutRequest(accept, contentType, body), BodyHandlers.ofString());
+    }
+
+    private HttpRequest layoutRequest(String accept, String contentType, byte[] body) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(baseUri.resolve(HttpLayoutServer.LAYOUT_PATH))
+                .POST(BodyPublishers.ofByteArray(body));
+        if (accept != null) {
+            request.header("Accept", accept);
+        }
+        if (contentType != null) {
+            request.header("Content-Type", contentType);
+        }
+        return request.build();
+    }
+
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(baseUri.resolve(path)).build(), BodyHandlers.ofString());
+    }
+
+    /**
+     * Send the request head and the start of the body over a raw connection, as a client can only send part of it.
+     */
+    private Socket sendPartially(String contentLength, String bodyStart) throws IOException {
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        socket.setSoTimeout(10_000);
+        String request = "POST " + HttpLayoutServer.LAYOUT_PATH + " HTTP/1.1\r\nHost: localhost\r\n"
+                + "Content-Length: " + contentLength + "\r\n\r\n" + bodyStart;
+        socket.getOutputStream().write(request.getBytes(StandardCharsets.US_ASCII));
+        socket.getOutputStream().flush();
+        return socket;
+    }
+
+    private static String statusLine(Socket socket) throws IOException {
+        return new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII)).readLine();
+    }
+
+    private static byte[] bpmn() throws IOException {
+        return Files.readAllBytes(Path.of(input("bpmn/A.2.0.bpmn.xml")));
+    }
+
+    @Test
+    void lay_out_the_bpmn_body_in_the_accepted_output_type() throws Exception {
+        startServer();
+
+        HttpResponse<String> bpmnResponse = post(null, "application/xml", bpmn());
+        assertThat(bpmnResponse.statusCode()).isEqualTo(200);
+        assertThat(bpmnResponse.headers().firstValue("Content-Type")).hasValue("application/xml; charset=UTF-8");
+        assertThat(bpmnResponse.body()).contains("BPMNShape");
+
+        HttpResponse<String> svgResponse = post("image/svg+xml", null, bpmn());
+        assertThat(svgResponse.statusCode()).isEqualTo(200);
+        assertThat(svgResponse.headers().firstValue("Content-Type")).hasValue("image/svg+xml; charset=UTF-8");
+        assertThat(svgResponse.body()).contains("<svg");
+
+        HttpResponse<String> asciiResponse = post("application/json, text/plain;q=0.5", null, bpmn());
+        assertThat(asciiResponse.statusCode()).isEqualTo(200);
+        assertThat(asciiResponse.headers().firstValue("Content-Type")).hasValue("text/plain; charset=UTF-8");
+        assertThat(asciiResponse.body()).contains("|");
+    }
+
+    @Test
+    void lay_out_the_csv_body() throws Exception {
+        startServer();
+        String nodes = Files.readString(Path.of(input("csv/PatientsProcess/nodeSimple.csv")));
+        String edges = Files.readString(Path.of(input("csv/PatientsProcess/edgeSimple.csv")));
+
+        HttpResponse<String> response = post("application/xml", "text/csv", (nodes + "\n\n" + edges).getBytes());
+        HttpResponse<String> missingEdges = post("application/xml", "text/csv", nodes.getBytes());
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.body()).contains("Blood test 237").contains("BPMNShape");
+        assertThat(missingEdges.statusCode()).isEqualTo(400);
+        assertThat(missingEdges.body()).isEqualTo("Expected the nodes CSV, an empty line then the edges CSV");
+    }
+
+    @Test
+    void reject_the_invalid_requests() throws Exception {
+        startServer(new BPMNLayoutGenerator(), 2, 100, Duration.ofSeconds(30));
+
+        assertThat(post("image/png", null, bpmn()).statusCode()).isEqualTo(406);
+        assertThat(post(null, null, bpmn()).statusCode()).isEqualTo(413);
+        HttpResponse<String> notBpmn = post(null, null, "<not-bpmn>".getBytes());
+        assertThat(notBpmn.statusCode()).isEqualTo(400);
+        assertThat(notBpmn.body()).startsWith("Unable to unmarshal: ");
+        HttpResponse<String> notXml = post(null, null, "not-xml".getBytes());
+        assertThat(notXml.statusCode()).isEqualTo(400);
+        HttpResponse<String> invalidCsv = post(null, "text/csv", "id,name\n1,a\n\nid,source\n".getBytes());
+        assertThat(invalidCsv.statusCode()).isEqualTo(400);
+        assertThat(invalidCsv.body()).isEqualTo("Expected at least 4 columns in the nodes CSV, got: 1,a");
+        assertThat(get(HttpLayoutServer.LAYOUT_PATH).statusCode()).isEqualTo(405);
+        assertThat(get("/unknown").statusCode()).isEqualTo(404);
+    }
+
+    private static BPMNLayoutGenerator blockingGenerator(CountDownLatch layoutStarted, CountDownLatch layoutReleased) {
+        return new BPMNLayoutGenerator() {
+            @Override
+            public void generateLayoutFromBPMNSemantic(InputStream bpmn, ExportType exportType, OutputStream output) throws IOException {
+                layoutStarted.countDown();
+                try {
+                    layoutReleased.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.generateLayoutFromBPMNSemantic(bpmn, exportType, output);
+            }
+        };
+    }
+
+    @Test
+    void answer_500_to_the_failures_of_the_layout() throws Exception {
+        BPMNLayoutGenerator failingGenerator = new BPMNLayoutGenerator() {
+            @Override
+            public void generateLayoutFromBPMNSemantic(InputStream bpmn, ExportType exportType, OutputStream output) {
+                throw new IllegalStateException("Layout failure");
+            }
+        };
+        startServer(failingGenerator, 2, 1024 * 1024, Duration.ofSeconds(30));
+
+        HttpResponse<String> response = post(null, null, bpmn());
+
+        assertThat(response.statusCode()).isEqualTo(500);
+        assertThat(response.body()).doesNotContain("Layout failure");
+    }
+
+    @Test
+    void reject_the_requests_over_the_limits_of_concurrency_and_duration() throws Exception {
+        CountDownLatch layoutStarted = new CountDownLatch(1);
+        CountDownLatch layoutReleased = new CountDownLatch(1);
+        startServer(blockingGenerator(layoutStarted, layoutReleased), 1, 1024 * 1024, Duration.ofMillis(200));
+
+        CompletableFuture<HttpResponse<String>> slowResponse = client.sendAsync(layoutRequest(null, null, bpmn()),
+                BodyHandlers.ofString());
+        assertThat(layoutStarted.await(10, TimeUnit.SECONDS)).isTrue();
+        HttpResponse<String> rejectedResponse = post(null, null, bpmn());
+
+        assertThat(rejectedResponse.statusCode()).isEqualTo(503);
+        assertThat(rejectedResponse.headers().firstValue("Retry-After")).hasValue("1");
+        assertThat(slowResponse.get(10, TimeUnit.SECONDS).statusCode()).isEqualTo(504);
+        // the timed out layout goes on until it is done
+        assertThat(get(HttpLayoutServer.METRICS_PATH).body()).contains("bpmn_layout_in_progress 1\n");
+        layoutReleased.countDown();
+    }
+
+    @Test
+    void reject_the_requests_over_the_limit_of_concurrency_before_reading_their_body() throws Exception {
+        CountDownLatch layoutReleased = new CountDownLatch(1);
+        startServer(blockingGenerator(new CountDownLatch(1), layoutReleased), 1, 1024 * 1024, Duration.ofSeconds(30));
+        // holds the only permit until its body is sent
+        try (Socket pending = sendPartially("1000", "<")) {
+            awaitInProgress(1);
+
+            try (Socket rejected = sendPartially("1000", "")) {
+                assertThat(statusLine(rejected)).isEqualTo("HTTP/1.1 503 Service Unavailable");
+            }
+        }
+        layoutReleased.countDown();
+    }
+
+    @Test
+    void disconnect_the_clients_not_sending_their_body_in_time() throws Exception {
+        startServer(new BPMNLayoutGenerator(), 1, 1024 * 1024, Duration.ofMillis(200));
+
+        try (Socket slow = sendPartially("1000", "<")) {
+            assertThat(slow.getInputStream().read()).isEqualTo(-1);
+        }
+
+        // the permit is released
+        awaitInProgress(0);
+        assertThat(get(HttpLayoutServer.METRICS_PATH).body()).contains("bpmn_layout_http_upload_timeouts_total 1\n");
+        assertThat(post(null, null, bpmn()).statusCode()).isEqualTo(200);
+    }
+
+    private void awaitInProgress(int layouts) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!get(HttpLayoutServer.METRICS_PATH).body().contains("bpmn_layout_in_progress " + layouts + "\n")) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void expose_the_metrics() throws Exception {
+        startServer();
+        post(null, null, bpmn());
+        post("image/png", null, bpmn());
+
+        HttpResponse<String> response = get(HttpLayoutServer.METRICS_PATH);
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.body())
+                .contains("bpmn_layout_http_responses_total{code=\"200\"} 1\n")
+                .contains("bpmn_layout_http_responses_total{code=\"406\"} 1\n")
+                .contains("bpmn_layout_http_request_bytes_total " + bpmn().length + "\n")
+                .contains("bpmn_layout_in_progress 0\n")
+                .contains("bpmn_layout_max_concurrent 2\n")
+                .contains("bpmn_layout_duration_seconds_count 1\n")
+                .containsPattern("bpmn_layout_jaxb_unmarshaller_pool_hits_total \\d+\n");
+    }
+
+    @Test
+    void reject_the_invalid_content_lengths() throws Exception {
+        startServer();
+
+        for (String contentLength : new String[] { "abc", "-5", "99999999999999999999" }) {
+            try (Socket socket = sendPartially(contentLength, "")) {
+                assertThat(statusLine(socket)).as(contentLength).isEqualTo("HTTP/1.1 400 Bad Request");
+            }
+        }
+    }
+
+    @Test
+    void read_the_declared_length() {
+        assertThat(HttpLayoutServer.declaredLength(null)).isEqualTo(-1);
+        assertThat(HttpLayoutServer.declaredLength(" 42 ")).isEqualTo(42);
+        assertThat(HttpLayoutServer.declaredLength("0")).isZero();
+        assertThat(HttpLayoutServer.declaredLength("-5")).isEqualTo(-2);
+        assertThat(HttpLayoutServer.declaredLength("4 2")).isEqualTo(-2);
+        assertThat(HttpLayoutServer.declaredLength("99999999999999999999")).isEqualTo(-2);
+    }
+
+    @Test
+    void choose_the_export_type_from_the_accept_header() {
+        assertThat(HttpLayoutServer.exportType(null)).isEqualTo(ExportType.BPMN);
+        assertThat(HttpLayoutServer.exportType("*/*")).isEqualTo(ExportType.BPMN);
+        assertThat(HttpLayoutServer.exportType("Image/SVG+XML")).isEqualTo(ExportType.SVG);
+        assertThat(HttpLayoutServer.exportType("text/plain;q=0.4, image/svg+xml;q=0.8")).isEqualTo(ExportType.SVG);
+        assertThat(HttpLayoutServer.exportType("text/plain, application/xml;q=0")).isEqualTo(ExportType.ASCII);
+        assertThat(HttpLayoutServer.exportType("application/json")).isNull();
+    }
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2026 Bonitasoft S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.process.analytics.tools.bpmn.generator;
+
+import static io.process.analytics.tools.bpmn.generator.AppTest.assertSvgOutFile;
+import static io.process.analytics.tools.bpmn.generator.AppTest.input;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.process.analytics.tools.bpmn.generator.internal.FlatJson;
+
+class StdioServerTest {
+
+    @TempDir
+    Path outputDir;
+
+    @Test
+    void write_a_result_line_for_each_job() throws Exception {
+        Path svgFile = outputDir.resolve("A.2.0.svg");
+        String bpmn = Files.readString(Path.of(input("bpmn/01-startEvent.bpmn.xml")));
+        String jobs = String.join("\n",
+                FlatJson.write(Map.of("id", 1, "input", input("bpmn/A.2.0.bpmn.xml"), "outputType", "SVG",
+                        "output", svgFile.toString())),
+                FlatJson.write(Map.of("id", "inline", "content", bpmn, "outputType", "ascii")),
+                "",
+                FlatJson.write(Map.of("id", 3, "inputType", "CSV", "nodes", input("csv/missing.csv"), "edges", "missing")),
+                "not json");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new StdioServer(new BPMNLayoutGenerator(), 2, new BufferedReader(new StringReader(jobs)),
+                new PrintStream(out, true, StandardCharsets.UTF_8)).serve();
+
+        // the results are in their order of completion
+        Map<Object, Map<String, Object>> results = out.toString(StandardCharsets.UTF_8).lines()
+                .map(FlatJson::parse)
+                .collect(Collectors.toMap(result -> String.valueOf(result.get("id")), result -> result));
+        assertThat(results).containsOnlyKeys("1", "inline", "3", "null");
+        assertThat(results.get("1")).containsEntry("status", "ok").containsEntry("output", svgFile.toString())
+                .containsKey("durationMs");
+        assertSvgOutFile(svgFile.toString());
+        assertThat(results.get("inline")).containsEntry("status", "ok");
+        assertThat((String) results.get("inline").get("result")).contains("|Start");
+        assertThat(results.get("3")).containsEntry("status", "error")
+                .containsEntry("error", "File not found: " + input("csv/missing.csv"));
+        assertThat(results.get("null")).containsEntry("status", "error");
+    }
+
+    @Test
+    void replace_the_output_file_only_when_the_job_succeeds() throws Exception {
+        Path bpmnFile = outputDir.resolve("A.2.0.bpmn.xml");
+        Files.copy(Path.of(input("bpmn/A.2.0.bpmn.xml")), bpmnFile);
+        Path existingFile = outputDir.resolve("existing.bpmn.xml");
+        Files.writeString(existingFile, "existing");
+        StdioServer server = new StdioServer(new BPMNLayoutGenerator(), 1, null, null);
+
+        Map<String, Object> inPlace = FlatJson.parse(server.process(
+                FlatJson.write(Map.of("id", 1, "input", bpmnFile.toString(), "output", bpmnFile.toString()))));
+        Map<String, Object> failed = FlatJson.parse(server.process(
+                FlatJson.write(Map.of("id", 2, "content", "<not-bpmn", "output", existingFile.toString()))));
+
+        assertThat(inPlace).containsEntry("status", "ok");
+        assertThat(Files.readString(bpmnFile)).contains("BPMNShape");
+        assertThat(failed).containsEntry("status", "error");
+        assertThat(existingFile).hasContent("existing");
+    }
+
+    @Test
+    void return_the_id_of_the_job_as_it_is() {
+        StdioServer server = new StdioServer(new BPMNLayoutGenerator(), 1, null, null);
+
+        Map<String, Object> result = FlatJson.parse(server.process("{\"id\": 42, \"outputType\": \"PNG\", \"content\": \"\"}"));
+
+        assertThat(result).containsEntry("id", new BigDecimal("42")).containsEntry("status", "error")
+                .containsEntry("error", "Unexpected output type: PNG");
+        assertThat(List.copyOf(result.keySet())).containsExactly("id", "status", "error", "durationMs");
+    }
+
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2026 Bonitasoft S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.process.analytics.tools.bpmn.generator.algo;
+
+import static io.process.analytics.tools.bpmn.generator.export.ASCIIExporter.toAscii;
+import static io.process.analytics.tools.bpmn.generator.model.Edge.edge;
+import static io.process.analytics.tools.bpmn.generator.model.Position.position;
+import static io.process.analytics.tools.bpmn.generator.model.Shape.shape;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+import io.process.analytics.tools.bpmn.generator.algo.ConnectedComponentsLayouter.SortedLayout;
+import io.process.analytics.tools.bpmn.generator.model.Diagram;
+import io.process.analytics.tools.bpmn.generator.model.Edge;
+import io.process.analytics.tools.bpmn.generator.model.Grid;
+import io.process.analytics.tools.bpmn.generator.model.Position;
+import io.process.analytics.tools.bpmn.generator.model.Shape;
+
+class ConnectedComponentsLayouterTest {
+
+    private final ConnectedComponentsLayouter layouter = new ConnectedComponentsLayouter();
+
+    private final Shape start1 = shape("start1");
+    private final Shape end1 = shape("end1");
+    private final Shape start2 = shape("start2");
+    private final Shape step2 = shape("step2");
+    private final Shape end2 = shape("end2");
+    private final Shape alone = shape("alone");
+
+    @Test
+    void should_stack_components_in_the_order_of_their_first_shape() {
+        Edge e1 = edge(start1, end1);
+        Edge e2 = edge(start2, step2);
+        Edge e3 = edge(step2, end2);
+        Diagram diagram = Diagram.builder()
+                .shape(end1).shape(alone).shape(end2).shape(step2).shape(start2).shape(start1)
+                .edge(e3).edge(e1).edge(e2)
+                .build();
+
+        SortedLayout layout = layouter.layout(diagram);
+
+        assertThat(layout.getDiagram().getShapes()).containsExactly(start1, end1, alone, start2, step2, end2);
+        assertThat(layout.getDiagram().getEdges()).containsExactly(e3, e1, e2);
+        assertThat(toAscii(layout.getGrid())).isEqualTo(toAscii(Grid.of(
+                position(start1, 0, 0), position(end1, 1, 0),
+                position(alone, 0, 1),
+                position(start2, 0, 2), position(step2, 1, 2), position(end2, 2, 2))));
+    }
+
+    @Test
+    void should_give_the_same_layout_whatever_the_pool() {
+        Diagram.DiagramBuilder builder = Diagram.builder();
+        for (int component = 0; component < 50; component++) {
+            for (int i = 0; i < component % 7 + 1; i++) {
+                builder.shape(shape("shape" + component + "_" + i));
+                if (i > 0) {
+                    builder.edge(edge("edge" + component + "_" + i, "shape" + component + "_" + (i - 1), "shape" + component + "_" + i));
+                }
+            }
+        }
+        Diagram diagram = builder.build();
+
+        SortedLayout sequential = new ConnectedComponentsLayouter(new ShapeSorter(), new ShapeLayouter(), new ForkJoinPool(1)).layout(diagram);
+        SortedLayout parallel = new ConnectedComponentsLayouter(new ShapeSorter(), new ShapeLayouter(), new ForkJoinPool(8)).layout(diagram);
+
+        assertThat(parallel.getDiagram()).isEqualTo(sequential.getDiagram());
+        assertThat(parallel.getGrid().getPositions()).containsExactlyElementsOf(sequential.getGrid().getPositions());
+        assertThat(parallel.getGrid().height()).isEqualTo(50);
+    }
+
+    @Test
+    void should_layout_a_single_component_as_a_whole() {
+        Diagram diagram = Diagram.builder()
+                .shape(end2).shape(step2).shape(start2)
+                .edge(edge(start2, step2)).edge(edge(step2, end2))
+                .build();
+
+        SortedLayout layout = layouter.layout(diagram);
+
+        Diagram sorted = new ShapeSorter().sort(diagram);
+        assertThat(layout.getDiagram()).isEqualTo(sorted);
+        assertThat(layout.getGrid().getPositions()).isEqualTo(new ShapeLayouter().layout(sorted).getPositions());
+    }
+
+    @Test
+    void should_layout_each_diagram_in_its_own_band() {
+        Diagram process1 = Diagram.builder()
+                .shape(end1).shape(start1)
+                .edge(edge(start1, end1))
+                .build();
+        Diagram process2 = Diagram.builder()
+                .shape(start2).shape(step2).shape(end2)
+                .edge(edge(start2, step2)).edge(edge(step2, end2))
+                .build();
+
+        SortedLayout layout = layouter.layoutInBands(List.of(process1, process2));
+
+        assertThat(layout.getDiagram().getShapes()).containsExactly(start1, end1, start2, step2, end2);
+        assertThat(layout.getDiagram().getEdges()).containsExactlyElementsOf(
+                Stream.concat(process1.getEdges().stream(), process2.getEdges().stream()).toList());
+        assertThat(toAscii(layout.getGrid())).isEqualTo(toAscii(Grid.of(
+                position(start1, 0, 0), position(end1, 1, 0),
+                position(start2, 0, 1), position(step2, 1, 1), position(end2, 2, 1))));
+    }
+
+    @Test
+    void should_not_layout_again_an_unchanged_diagram() {
+        AtomicInteger layoutCount = new AtomicInteger();
+        ShapeLayouter countingLayouter = new ShapeLayouter() {
+            @Override
+            public Grid layout(Diagram diagram) {
+                layoutCount.incrementAndGet();
+                return super.layout(diagram);
+            }
+        };
+        ConnectedComponentsLayouter cachingLayouter = new ConnectedComponentsLayouter(new ShapeSorter(), countingLayouter,
+                ForkJoinPool.commonPool(), 10);
+        Diagram process1 = Diagram.builder().shape(start1).shape(end1).edge(edge(start1, end1)).build();
+        Diagram process2 = Diagram.builder().shape(start2).shape(end2).edge(edge(start2, end2)).build();
+        Diagram changedProcess2 = Diagram.builder().shape(start2).shape(step2).shape(end2)
+                .edge(edge(start2, step2)).edge(edge(step2, end2)).build();
+
+        SortedLayout layout = cachingLayouter.layoutInBands(List.of(process1, process2));
+        SortedLayout changedLayout = cachingLayouter.layoutInBands(List.of(process1, changedProcess2));
+
+        assertThat(layoutCount).hasValue(3);
+        assertThat(changedLayout.getGrid().getPositions()).startsWith(layout.getGrid().getPositions().get(0),
+                layout.getGrid().getPositions().get(1));
+    }
+
+    @Test
+    void should_not_share_the_cached_layouts() {
+        AtomicInteger layoutCount = new AtomicInteger();
+        ConnectedComponentsLayouter cachingLayouter = countingLayouter(layoutCount, 10);
+        Diagram process = Diagram.builder().shape(start1).shape(end1).edge(edge(start1, end1)).build();
+
+        SortedLayout layout = cachingLayouter.layoutInBands(List.of(process));
+        List<Position> positions = layout.getGrid().getPositions();
+        layout.getGrid().add(position(alone, 5, 5));
+        layout.getGrid().addRowBefore(0);
+        SortedLayout cachedLayout = cachingLayouter.layoutInBands(List.of(process));
+
+        assertThat(layoutCount).hasValue(1);
+        assertThat(cachedLayout.getGrid()).isNotSameAs(layout.getGrid());
+        assertThat(cachedLayout.getGrid().getPositions()).isEqualTo(positions);
+        assertThat(cachedLayout.getDiagram()).isEqualTo(layout.getDiagram());
+    }
+
+    @Test
+    void should_layout_again_a_diagram_changed_after_its_layout() {
+        AtomicInteger layoutCount = new AtomicInteger();
+        ConnectedComponentsLayouter cachingLayouter = countingLayouter(layoutCount, 10);
+        Diagram process = Diagram.builder().shape(start2).shape(end2).edge(edge(start2, end2)).build();
+
+        cachingLayouter.layoutInBands(List.of(process));
+        process.setShapes(List.of(start2, step2, end2));
+        process.setEdges(Set.of(edge(start2, step2), edge(step2, end2)));
+        SortedLayout changedLayout = cachingLayouter.layoutInBands(List.of(process));
+
+        assertThat(layoutCount).hasValue(2);
+        assertThat(changedLayout.getGrid().getPositions()).hasSize(3);
+    }
+
+    @Test
+    void should_keep_the_cached_layouts_up_to_the_maximum_number_of_shapes() {
+        AtomicInteger layoutCount = new AtomicInteger();
+        ConnectedComponentsLayouter cachingLayouter = countingLayouter(layoutCount, 4);
+        Diagram process1 = Diagram.builder().shape(start1).shape(end1).edge(edge(start1, end1)).build();
+        Diagram process2 = Diagram.builder().shape(start2).shape(step2).shape(end2)
+                .edge(edge(start2, step2)).edge(edge(step2, end2)).build();
+
+        cachingLayouter.layoutInBands(List.of(process1));
+        cachingLayouter.layoutInBands(List.of(process1));
+        // 5 shapes, so the first layout is evicted
+        cachingLayouter.layoutInBands(List.of(process2));
+        cachingLayouter.layoutInBands(List.of(process1));
+
+        assertThat(layoutCount).hasValue(3);
+    }
+
+    private static ConnectedComponentsLayouter countingLayouter(AtomicInteger layoutCount, int maxCachedShapes) {
+        ShapeLayouter countingLayouter = new ShapeLayouter() {
+            @Override
+            public Grid layout(Diagram diagram) {
+                layoutCount.incrementAndGet();
+                return super.layout(diagram);
+            }
+        };
+        return new ConnectedComponentsLayouter(new ShapeSorter(), countingLayouter, ForkJoinPool.commonPool(),
+                maxCachedShapes);
+    }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2026 Bonitasoft S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.process.analytics.tools.bpmn.generator.algo;
+
+import static io.process.analytics.tools.bpmn.generator.model.Edge.edge;
+import static io.process.analytics.tools.bpmn.generator.model.Edge.revertedEdge;
+import static io.process.analytics.tools.bpmn.generator.model.Shape.shape;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.BitSet;
+
+import org.junit.jupiter.api.Test;
+
+import io.process.analytics.tools.bpmn.generator.model.Diagram;
+import io.process.analytics.tools.bpmn.generator.model.Edge;
+import io.process.analytics.tools.bpmn.generator.model.Shape;
+
+class DiagramGraphTest {
+
+    private final Shape start = shape("start");
+    private final Shape step1 = shape("step1");
+    private final Shape step2 = shape("step2");
+
+    @Test
+    void should_index_edges_by_vertex_in_both_directions() {
+        Diagram diagram = Diagram.builder()
+                .shape(start).shape(step1).shape(step2)
+                .edge(edge("e1", "start", "step1"))
+                .edge(edge("e2", "start", "step2"))
+                .edge(revertedEdge(edge("e3", "step1", "step2")))
+                .build();
+
+        DiagramGraph graph = DiagramGraph.of(diagram);
+
+        assertThat(graph.vertexCount()).isEqualTo(3);
+        assertThat(graph.outDegree(0)).isEqualTo(2);
+        assertThat(graph.to(graph.outEdge(0, 0))).isEqualTo(1);
+        assertThat(graph.to(graph.outEdge(0, 1))).isEqualTo(2);
+        assertThat(graph.inDegree(1)).isEqualTo(2);
+        assertThat(graph.from(graph.inEdge(1, 1))).isEqualTo(2);
+        assertThat(graph.originalInDegree(1)).isEqualTo(1);
+        assertThat(graph.originalOutDegree(1)).isEqualTo(1);
+        assertThat(graph.firstOriginalInEdge(2)).isEqualTo(1);
+    }
+
+    @Test
+    void should_add_a_vertex_for_edges_referencing_unknown_shapes() {
+        Diagram diagram = Diagram.builder()
+                .shape(step1)
+                .edge(edge("e1", "unknown", "step1"))
+                .build();
+
+        DiagramGraph graph = DiagramGraph.of(diagram);
+
+        assertThat(graph.vertexCount()).isEqualTo(2);
+        assertThat(graph.shapeCount()).isEqualTo(1);
+        assertThat(graph.isShape(graph.from(0))).isFalse();
+        assertThat(graph.id(graph.from(0))).isEqualTo("unknown");
+        assertThat(graph.toDiagram()).isEqualTo(diagram);
+    }
+
+    @Test
+    void should_convert_back_to_a_diagram_with_new_order_and_directions() {
+        Edge startToStep1 = edge("e1", "start", "step1");
+        Edge step1ToStep2 = edge("e2", "step1", "step2");
+        Diagram diagram = Diagram.builder()
+                .shape(step2).shape(step1).shape(start)
+                .edge(startToStep1).edge(step1ToStep2)
+                .build();
+        DiagramGraph graph = DiagramGraph.of(diagram);
+        int[] from = graph.fromCopy();
+        int[] to = graph.toCopy();
+        from[1] = graph.to(1);
+        to[1] = graph.from(1);
+        BitSet reverted = graph.revertedCopy();
+        reverted.set(1);
+
+        Diagram converted = graph.with(new int[]{2, 1, 0}, from, to, reverted).toDiagram();
+
+        assertThat(converted.getShapes()).containsExactly(start, step1, step2);
+        assertThat(converted.getEdges()).containsExactly(startToStep1, revertedEdge(step1ToStep2));
+        assertThat(converted.getEdges().iterator().next()).isSameAs(startToStep1);
+    }
+
+}
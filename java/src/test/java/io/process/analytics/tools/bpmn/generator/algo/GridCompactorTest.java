@@ -0,0 +1,106 @@
+/*
+ * Copyright 2026 Bonitasoft S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.process.analytics.tools.bpmn.generator.algo;
+
+import static io.process.analytics.tools.bpmn.generator.model.Edge.edge;
+import static io.process.analytics.tools.bpmn.generator.model.Position.position;
+import static io.process.analytics.tools.bpmn.generator.model.Shape.shape;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import io.process.analytics.tools.bpmn.generator.model.Diagram;
+import io.process.analytics.tools.bpmn.generator.model.Grid;
+import io.process.analytics.tools.bpmn.generator.model.Shape;
+
+class GridCompactorTest {
+
+    private final Shape step1 = shape("step1");
+    private final Shape step2 = shape("step2");
+    private final Shape step3 = shape("step3");
+    private final Shape step4 = shape("step4");
+
+    @Test
+    void should_move_rows_below_when_their_shapes_have_no_adjacent_shape_in_the_next_row() {
+        //  +-----------------+      +-----------------+
+        //  |step1            |      |step1            |
+        //  |      step2      |  ->  |                 |
+        //  |                 |      |      step2      |
+        //  |            step3|      |step4       step3|
+        //  |step4            |      +-----------------+
+        //  +-----------------+
+        Grid grid = Grid.of(position(step1, 0, 0), position(step2, 1, 1), position(step3, 2, 3), position(step4, 0, 4));
+
+        Grid compacted = GridCompactor.compactRows(grid);
+
+        // the positions below a moved row are put at the end, then the ones of the moved row
+        assertThat(compacted.getPositions()).containsExactly(
+                position(step1, 0, 0),
+                position(step2, 1, 1),
+                position(step4, 0, 2),
+                position(step3, 2, 2));
+    }
+
+    @Test
+    void should_keep_the_order_of_the_positions_below_a_moved_row() {
+        //  +-----------+      +-----------+
+        //  |step1      |      |step1      |
+        //  |           |  ->  |   step3   |
+        //  |   step3   |      |step2      |
+        //  |step2      |      +-----------+
+        //  +-----------+
+        Grid grid = Grid.of(position(step3, 1, 2), position(step2, 0, 3), position(step1, 0, 0));
+
+        Grid compacted = GridCompactor.compactRows(grid);
+
+        assertThat(compacted.getPositions()).containsExactly(
+                position(step3, 1, 1),
+                position(step2, 0, 2),
+                position(step1, 0, 0));
+    }
+
+    @Test
+    void should_detect_adjacent_shapes_across_bitset_words() {
+        Grid grid = Grid.of(position(step1, 63, 0), position(step2, 64, 1),
+                position(step3, 128, 2), position(step4, 200, 3));
+
+        Grid compacted = GridCompactor.compactRows(grid);
+
+        assertThat(compacted.getPositions()).containsExactly(
+                position(step1, 63, 0),
+                position(step4, 200, 1),
+                position(step3, 128, 1),
+                position(step2, 64, 1));
+    }
+
+    @Test
+    void should_merge_columns_only_when_their_shapes_are_not_linked() {
+        Diagram diagram = Diagram.builder()
+                .shape(step1).shape(step2).shape(step3).shape(step4)
+                .edge(edge(step2, step3))
+                .build();
+        Grid grid = Grid.of(position(step1, 0, 0), position(step2, 1, 2), position(step3, 2, 2), position(step4, 3, 0));
+
+        Grid compacted = GridCompactor.compactColumns(grid, diagram);
+
+        assertThat(compacted.getPositions()).containsExactly(
+                position(step1, 0, 0),
+                position(step2, 0, 2),
+                position(step3, 1, 2),
+                position(step4, 1, 0));
+    }
+
+}
@@ -110,6 +110,24 @@ class ShapeSorterTest {
         assertThat(sorted.getShapes()).endsWith(step4, step5);
     }
 
+    @Test
+    void should_sort_shapes_of_a_round_in_the_diagram_order() {
+        Diagram diagram = Diagram.builder()
+                .shape(step3)
+                .shape(step2)
+                .shape(step1)
+                .shape(start)
+                .edge(edge(start, step1))
+                .edge(edge(start, step2))
+                .edge(edge(step1, step3))
+                .build();
+
+        Diagram sorted = shapeSorter.sort(diagram);
+
+        assertThat(sorted.getShapes()).containsExactly(start, step2, step1, step3);
+        assertThat(sorted.getEdges()).containsExactlyElementsOf(diagram.getEdges());
+    }
+
     @Test
     void should_sort_shapes_with_cycle() {
         // loop between step2, step3, step4
@@ -221,4 +239,47 @@ class ShapeSorterTest {
                 t9);
     }
 
-}
\ No newline at end of file
+    @Test
+    void should_revert_edges_of_a_cycle_with_the_feedback_arc_set_strategy() {
+        Edge t1 = edge("t1", "start", "step1");
+        Edge t2 = edge("t2", "step1", "step2");
+        Edge t3 = edge("t3", "step2", "step3");
+        Edge t4 = edge("t4", "step3", "step1");
+        Edge t5 = edge("t5", "step2", "end");
+        Diagram diagram = Diagram.builder()
+                .shape(end).shape(step3).shape(step2).shape(step1).shape(start)
+                .edge(t1).edge(t2).edge(t3).edge(t4).edge(t5)
+                .build();
+
+        Diagram sorted = new ShapeSorter(ShapeSorter.CycleBreaking.FEEDBACK_ARC_SET).sort(diagram);
+
+        assertThat(sorted.getShapes()).containsExactly(start, step1, step2, end, step3);
+        assertThat(sorted.getEdges()).containsExactly(t1, t2, t3, revertedEdge(t4), t5);
+    }
+
+    @Test
+    void should_sort_a_graph_where_all_shapes_are_linked_with_the_feedback_arc_set_strategy() {
+        Diagram.DiagramBuilder builder = Diagram.builder();
+        int shapeCount = 30;
+        for (int i = 0; i < shapeCount; i++) {
+            builder.shape(shape("shape" + i));
+            for (int j = 0; j < shapeCount; j++) {
+                builder.edge(edge("edge" + i + "_" + j, "shape" + i, "shape" + j));
+            }
+        }
+        Diagram diagram = builder.build();
+
+        Diagram sorted = new ShapeSorter(ShapeSorter.CycleBreaking.FEEDBACK_ARC_SET).sort(diagram);
+
+        assertThat(sorted.getShapes()).containsExactlyInAnyOrderElementsOf(diagram.getShapes());
+        // each pair of shapes is linked in both directions, so one edge of each pair is reverted
+        assertThat(sorted.getEdges()).filteredOn(Edge::isReverted).hasSize(shapeCount * (shapeCount - 1) / 2);
+        for (Edge edge : sorted.getEdges()) {
+            if (!edge.getFrom().equals(edge.getTo())) {
+                assertThat(sorted.getShapes().indexOf(sorted.getShape(edge.getFrom())))
+                        .isLessThan(sorted.getShapes().indexOf(sorted.getShape(edge.getTo())));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2026 Bonitasoft S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.process.analytics.tools.bpmn.generator.algo;
+
+import static io.process.analytics.tools.bpmn.generator.model.Edge.edge;
+import static io.process.analytics.tools.bpmn.generator.model.Shape.shape;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import io.process.analytics.tools.bpmn.generator.model.Diagram;
+
+class StronglyConnectedComponentsTest {
+
+    @Test
+    void should_group_shapes_of_a_cycle_in_the_same_component() {
+        // start -> step1 -> step2 -> end
+        //            <- step3 <-
+        Diagram diagram = Diagram.builder()
+                .shape(shape("start")).shape(shape("step1")).shape(shape("step2")).shape(shape("step3")).shape(shape("end"))
+                .edge(edge("t1", "start", "step1"))
+                .edge(edge("t2", "step1", "step2"))
+                .edge(edge("t3", "step2", "step3"))
+                .edge(edge("t4", "step3", "step1"))
+                .edge(edge("t5", "step2", "end"))
+                .build();
+
+        StronglyConnectedComponents components = StronglyConnectedComponents.of(DiagramGraph.of(diagram));
+
+        assertThat(components.count()).isEqualTo(3);
+        int cycle = components.componentOf(1);
+        assertThat(components.vertices(cycle)).containsExactly(1, 2, 3);
+        // edges between components go to lower numbers
+        assertThat(components.componentOf(0)).isGreaterThan(cycle);
+        assertThat(components.componentOf(4)).isLessThan(cycle);
+    }
+
+    @Test
+    void should_not_overflow_the_stack_on_a_long_cycle() {
+        Diagram.DiagramBuilder builder = Diagram.builder();
+        int shapeCount = 100_000;
+        for (int i = 0; i < shapeCount; i++) {
+            builder.shape(shape("shape" + i));
+            builder.edge(edge("edge" + i, "shape" + i, "shape" + (i + 1) % shapeCount));
+        }
+
+        StronglyConnectedComponents components = StronglyConnectedComponents.of(DiagramGraph.of(builder.build()));
+
+        assertThat(components.count()).isEqualTo(1);
+        assertThat(components.size(0)).isEqualTo(shapeCount);
+    }
+
+}
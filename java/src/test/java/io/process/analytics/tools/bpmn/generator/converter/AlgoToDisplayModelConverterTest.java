@@ -0,0 +1,94 @@
+/*
+ * Copyright 2026 Bonitasoft S.A.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.process.analytics.tools.bpmn.generator.converter;
+
+import static io.process.analytics.tools.bpmn.generator.model.Edge.edge;
+import static io.process.analytics.tools.bpmn.generator.model.Position.position;
+import static io.process.analytics.tools.bpmn.generator.model.Shape.shape;
+import static io.process.analytics.tools.bpmn.generator.model.ShapeType.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import io.process.analytics.tools.bpmn.generator.model.Diagram;
+import io.process.analytics.tools.bpmn.generator.model.Grid;
+import io.process.analytics.tools.bpmn.generator.model.Shape;
+import io.process.analytics.tools.bpmn.generator.model.display.DisplayEdge;
+import io.process.analytics.tools.bpmn.generator.model.display.DisplayFlowNode;
+import io.process.analytics.tools.bpmn.generator.model.display.DisplayModel;
+import io.process.analytics.tools.bpmn.generator.model.display.PackedDisplayModel;
+
+class AlgoToDisplayModelConverterTest {
+
+    private final AlgoToDisplayModelConverter converter = new AlgoToDisplayModelConverter();
+
+    private final Shape start = shape("start", "Start", EVENT);
+    private final Shape split = shape("split", "Split", GATEWAY);
+    private final Shape task1 = shape("task1", "Task 1", ACTIVITY);
+    private final Shape task2 = shape("task2", "Task 2", ACTIVITY);
+
+    private final Diagram diagram = Diagram.builder()
+            .shape(start).shape(split).shape(task1).shape(task2)
+            .edge(edge("e1", "start", "split"))
+            .edge(edge("e2", "split", "task1"))
+            .edge(edge("e3", "split", "task2"))
+            .build();
+    private final Grid grid = Grid.of(position(start, 0, 1), position(split, 1, 1),
+            position(task1, 2, 0), position(task2, 2, 2));
+
+    @Test
+    void should_pack_the_waypoints_of_all_edges_in_a_single_array() {
+        PackedDisplayModel model = converter.convertToPackedModel(grid, diagram);
+
+        assertThat(model.flowNodeCount()).isEqualTo(4);
+        assertThat(model.edgeCount()).isEqualTo(3);
+        assertThat(model.edgeId(2)).isEqualTo("e3");
+        // a straight edge, then 2 edges going up and down from the split
+        assertThat(model.wayPointCount(0)).isEqualTo(2);
+        assertThat(model.wayPointCount(1)).isEqualTo(3);
+        assertThat(model.wayPointCount(2)).isEqualTo(3);
+        assertThat(model.wayPointX(0, 1)).isEqualTo(model.flowNodeX(1));
+        assertThat(model.wayPointY(2, 2)).isEqualTo(model.flowNodeY(3));
+    }
+
+    @Test
+    void should_convert_to_the_same_content_with_one_object_per_element() {
+        PackedDisplayModel packedModel = converter.convertToPackedModel(grid, diagram);
+
+        DisplayModel model = converter.convert(grid, diagram);
+
+        assertThat(model.width).isEqualTo(packedModel.width);
+        assertThat(model.height).isEqualTo(packedModel.height);
+        assertThat(model.flowNodes).hasSize(packedModel.flowNodeCount());
+        for (int node = 0; node < packedModel.flowNodeCount(); node++) {
+            DisplayFlowNode flowNode = model.flowNodes.get(node);
+            assertThat(flowNode.bpmnElementId).isEqualTo(packedModel.flowNodeId(node));
+            assertThat(flowNode.type).isEqualTo(packedModel.flowNodeType(node));
+            assertThat(flowNode.dimension.x).isEqualTo(packedModel.flowNodeX(node));
+            assertThat(flowNode.dimension.height).isEqualTo(packedModel.flowNodeHeight(node));
+            assertThat(flowNode.label.text).isEqualTo(packedModel.labelText(node));
+            assertThat(flowNode.label.dimension.y).isEqualTo(packedModel.labelY(node));
+        }
+        assertThat(model.edges).hasSize(packedModel.edgeCount());
+        for (int edge = 0; edge < packedModel.edgeCount(); edge++) {
+            DisplayEdge displayEdge = model.edges.get(edge);
+            assertThat(displayEdge.bpmnElementId).isEqualTo(packedModel.edgeId(edge));
+            assertThat(displayEdge.wayPoints).hasSize(packedModel.wayPointCount(edge));
+            for (int wayPoint = 0; wayPoint < packedModel.wayPointCount(edge); wayPoint++) {
+                assertThat(displayEdge.wayPoints.get(wayPoint).x).isEqualTo(packedModel.wayPointX(edge, wayPoint));
+                assertThat(displayEdge.wayPoints.get(wayPoint).y).isEqualTo(packedModel.wayPointY(edge, wayPoint));
+            }
+        }
+    }
+
+}
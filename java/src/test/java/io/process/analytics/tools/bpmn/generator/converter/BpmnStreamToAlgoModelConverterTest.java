@@ -0,0 +1,103 @@
+/*
+ * Copyright 2026 Bonitasoft S.A.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.process.analytics.tools.bpmn.generator.converter;
+
+import static io.process.analytics.tools.bpmn.generator.internal.SemanticTest.definitionsFromBpmnFile;
+import static io.process.analytics.tools.bpmn.generator.model.Edge.edge;
+import static io.process.analytics.tools.bpmn.generator.model.Shape.shape;
+import static io.process.analytics.tools.bpmn.generator.model.ShapeType.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import io.process.analytics.tools.bpmn.generator.model.Diagram;
+import io.process.analytics.tools.bpmn.generator.model.Shape;
+
+class BpmnStreamToAlgoModelConverterTest {
+
+    private final BpmnStreamToAlgoModelConverter converter = new BpmnStreamToAlgoModelConverter();
+
+    @ParameterizedTest
+    @MethodSource("bpmnFiles")
+    void read_the_same_diagrams_as_the_jaxb_conversion(Path bpmnFile) throws IOException {
+        List<Diagram> expectedDiagrams = new BpmnToAlgoModelConverter()
+                .toAlgoModelByProcess(definitionsFromBpmnFile(bpmnFile.toString()));
+
+        List<Diagram> diagrams;
+        try (InputStream bpmn = Files.newInputStream(bpmnFile)) {
+            diagrams = converter.toAlgoModelByProcess(bpmn);
+        }
+
+        assertThat(diagrams).hasSameSizeAs(expectedDiagrams);
+        for (int i = 0; i < diagrams.size(); i++) {
+            assertThat(diagrams.get(i).getShapes()).containsExactlyElementsOf(expectedDiagrams.get(i).getShapes());
+            assertThat(diagrams.get(i).getEdges()).containsExactlyElementsOf(expectedDiagrams.get(i).getEdges());
+        }
+    }
+
+    private static Stream<Path> bpmnFiles() throws IOException {
+        return Files.list(Path.of("src/test/resources/bpmn"))
+                .filter(path -> path.toString().endsWith(".bpmn.xml"))
+                .sorted();
+    }
+
+    @Test
+    void read_only_the_flow_nodes_and_sequence_flows_of_the_processes() {
+        String bpmn = """
+                <?xml version="1.0" encoding="UTF-8"?>
+                <definitions xmlns="http://www.omg.org/spec/BPMN/20100524/MODEL" xmlns:ext="http://example.org/ext" id="definitions_1">
+                  <collaboration id="collaboration_1"><participant id="participant_1" processRef="process_1"/></collaboration>
+                  <process id="process_1">
+                    <documentation>Not a <task id="not_a_task"/></documentation>
+                    <extensionElements><ext:task id="extension_task"/></extensionElements>
+                    <startEvent id=" start " name="Start"><outgoing>flow_1</outgoing></startEvent>
+                    <exclusiveGateway id="gateway"><incoming>flow_1</incoming><outgoing>flow_2</outgoing><outgoing>flow_3</outgoing></exclusiveGateway>
+                    <subProcess id="sub_process" name="Sub Process">
+                      <task id="task_in_sub_process"/>
+                      <sequenceFlow id="flow_in_sub_process" sourceRef="task_in_sub_process" targetRef="task_in_sub_process"/>
+                    </subProcess>
+                    <dataObject id="data_object"/>
+                    <ext:sequenceFlow id="extension_flow" sourceRef="start" targetRef="gateway"/>
+                    <sequenceFlow id="flow_1" sourceRef="start" targetRef="gateway"/>
+                    <sequenceFlow id="flow_2" sourceRef="gateway" targetRef="sub_process"/>
+                  </process>
+                  <process id="process_2">
+                    <endEvent id="end"/>
+                  </process>
+                </definitions>
+                """;
+
+        List<Diagram> diagrams = converter.toAlgoModelByProcess(bpmn);
+
+        assertThat(diagrams).hasSize(2);
+        assertThat(diagrams.get(0).getShapes()).containsExactly(
+                shape("start", "Start", EVENT),
+                new Shape("gateway", null, GATEWAY, true),
+                shape("sub_process", "Sub Process", ACTIVITY));
+        assertThat(diagrams.get(0).getEdges()).containsExactly(
+                edge("flow_1", "start", "gateway"),
+                edge("flow_2", "gateway", "sub_process"));
+        assertThat(diagrams.get(1).getShapes()).containsExactly(new Shape("end", null, EVENT, false));
+        assertThat(diagrams.get(1).getEdges()).isEmpty();
+    }
+
+}
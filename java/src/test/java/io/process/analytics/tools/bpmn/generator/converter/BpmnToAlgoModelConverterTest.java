@@ -18,6 +18,7 @@ import static io.process.analytics.tools.bpmn.generator.model.Shape.shape;
 import static io.process.analytics.tools.bpmn.generator.model.ShapeType.*;
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.util.List;
 import java.util.stream.Stream;
 
 import org.junit.jupiter.api.Test;
@@ -56,6 +57,21 @@ class BpmnToAlgoModelConverterTest {
                 edge("sequenceFlow_2", "task_1", "endEvent_1"));
     }
 
+    @Test
+    void should_convert_each_process_into_its_own_diagram() {
+        TDefinitions definitions = definitionsFromBpmnFile(
+                "src/test/resources/bpmn/03-two-processes-with-collaboration.bpmn.xml");
+
+        List<Diagram> diagrams = new BpmnToAlgoModelConverter().toAlgoModelByProcess(definitions);
+
+        assertThat(diagrams).hasSize(2);
+        assertThat(diagrams.get(0).getShapes()).extracting(Shape::getId).containsExactly("startEvent_1", "task_1", "endEvent_1");
+        assertThat(diagrams.get(0).getEdges()).hasSize(2);
+        assertThat(diagrams.get(1).getShapes()).extracting(Shape::getId)
+                .containsExactly("startEvent_2", "gateway_1", "task_2", "task_3", "endEvent_2");
+        assertThat(diagrams.get(1).getEdges()).hasSize(5);
+    }
+
     @Test
     void should_convert_activities_to_shape() {
         assertThat(toShape(new TUserTask(), new TSendTask(), new TSubProcess()))
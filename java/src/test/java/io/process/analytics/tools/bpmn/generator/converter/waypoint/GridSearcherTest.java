@@ -0,0 +1,86 @@
+/*
+ * Copyright 2026 Bonitasoft S.A.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.process.analytics.tools.bpmn.generator.converter.waypoint;
+
+import static io.process.analytics.tools.bpmn.generator.model.Edge.edge;
+import static io.process.analytics.tools.bpmn.generator.model.Edge.revertedEdge;
+import static io.process.analytics.tools.bpmn.generator.model.Position.position;
+import static io.process.analytics.tools.bpmn.generator.model.Shape.shape;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import io.process.analytics.tools.bpmn.generator.model.Edge;
+import io.process.analytics.tools.bpmn.generator.model.Grid;
+import io.process.analytics.tools.bpmn.generator.model.Position;
+
+class GridSearcherTest {
+
+    @Test
+    void should_find_the_first_row_without_elements_between_the_positions() {
+        //  +-------------------------+
+        //  |      a                  |
+        //  | from    b        to     |
+        //  |                c     d  |
+        //  |         e  f            |
+        //  +-------------------------+
+        Position from = position(shape("from"), 0, 1);
+        Position to = position(shape("to"), 4, 1);
+        Grid grid = Grid.of(position(shape("a"), 1, 0), from, position(shape("b"), 2, 1), to,
+                position(shape("c"), 3, 2), position(shape("d"), 5, 2),
+                position(shape("e"), 2, 3), position(shape("f"), 3, 3));
+        GridSearcher gridSearcher = new GridSearcher(grid);
+
+        assertThat(gridSearcher.computeConfigurationToPassByEmptyRow(from, to, BendDirection.BOTTOM).offset).isEqualTo(3);
+        assertThat(gridSearcher.computeConfigurationToPassByEmptyRow(from, to, BendDirection.TOP).offset).isEqualTo(2);
+    }
+
+    @Test
+    void should_ignore_elements_in_the_columns_of_the_positions() {
+        //  +-------------------+
+        //  | from          to  |
+        //  | a             b   |
+        //  +-------------------+
+        Position from = position(shape("from"), 0, 0);
+        Position to = position(shape("to"), 3, 0);
+        Grid grid = Grid.of(from, to, position(shape("a"), 0, 1), position(shape("b"), 3, 1));
+
+        BendConfiguration bendConfiguration = new GridSearcher(grid).computeConfigurationToPassByEmptyRow(from, to, BendDirection.BOTTOM);
+
+        assertThat(bendConfiguration.offset).isZero();
+    }
+
+    @Test
+    void should_find_neighbors_and_positions_of_edge_shapes() {
+        //  +--------------+
+        //  |      above   |
+        //  | left from    |
+        //  |         to   |
+        //  +--------------+
+        Position from = position(shape("from"), 1, 1);
+        Position to = position(shape("to"), 2, 2);
+        GridSearcher gridSearcher = new GridSearcher(Grid.of(position(shape("above"), 1, 0), position(shape("left"), 0, 1), from, to));
+
+        assertThat(gridSearcher.isShapeExistAtLeft(from)).isTrue();
+        assertThat(gridSearcher.isShapeExistAtRight(from)).isFalse();
+        assertThat(gridSearcher.isShapeExistAbove(from)).isTrue();
+        assertThat(gridSearcher.isShapeExistAbove(to)).isFalse();
+        assertThat(gridSearcher.isShapeExistAtLeft(to)).isFalse();
+
+        Edge edge = edge("edge", "from", "to");
+        assertThat(gridSearcher.getPositionFrom(edge)).isEqualTo(from);
+        assertThat(gridSearcher.getPositionTo(edge)).isEqualTo(to);
+        assertThat(gridSearcher.getPositionFrom(revertedEdge(edge))).isEqualTo(from);
+    }
+
+}
@@ -13,19 +13,117 @@
 
 package io.process.analytics.tools.bpmn.generator.export;
 
+import io.process.analytics.tools.bpmn.generator.algo.ShapeLayouter;
 import io.process.analytics.tools.bpmn.generator.converter.waypoint.Direction;
+import io.process.analytics.tools.bpmn.generator.model.Diagram;
+import io.process.analytics.tools.bpmn.generator.model.Grid;
+import io.process.analytics.tools.bpmn.generator.model.ShapeType;
 import io.process.analytics.tools.bpmn.generator.model.display.DisplayPoint;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Stream;
 
+import static io.process.analytics.tools.bpmn.generator.model.Edge.edge;
+import static io.process.analytics.tools.bpmn.generator.model.Shape.shape;
 import static org.assertj.core.api.Assertions.assertThat;
 
 class SVGExporterTest {
 
+    private final SVGExporter svgExporter = new SVGExporter();
+
+    @Test
+    void stream_the_same_content_as_the_string_export() throws IOException {
+        // large enough to be written in several chunks
+        Diagram.DiagramBuilder builder = Diagram.builder().shape(shape("task_0", "Tâche 0"));
+        for (int i = 1; i < 300; i++) {
+            builder.shape(shape("task_" + i, "Tâche " + i)).edge(edge("flow_" + i, "task_" + (i - 1), "task_" + i));
+        }
+        Diagram diagram = builder.build();
+        Grid grid = new ShapeLayouter().layout(diagram);
+        String svg = svgExporter.export(grid, diagram);
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        svgExporter.export(grid, diagram, outputStream);
+        ByteArrayOutputStream channelOutput = new ByteArrayOutputStream();
+        svgExporter.export(grid, diagram, Channels.newChannel(channelOutput));
+
+        assertThat(svg).hasSizeGreaterThan(20_000);
+        assertThat(outputStream.toString(StandardCharsets.UTF_8)).isEqualTo(svg);
+        assertThat(channelOutput.toString(StandardCharsets.UTF_8)).isEqualTo(svg);
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void parallel_export_has_the_same_content_as_the_sequential_one(boolean compact) throws IOException {
+        // several fragments, with bent edges
+        Diagram.DiagramBuilder builder = Diagram.builder().shape(shape("task_0", "Tâche 0"));
+        for (int i = 1; i < 1000; i++) {
+            builder.shape(shape("task_" + i, "Tâche\n" + i)).edge(edge("flow_" + i, "task_" + (i - 1), "task_" + i));
+            if (i % 10 == 0) {
+                builder.edge(edge("shortcut_" + i, "task_" + (i - 3), "task_" + i));
+            }
+        }
+        Diagram diagram = builder.build();
+        Grid grid = new ShapeLayouter().layout(diagram);
+        String svg = new SVGExporter(compact).export(grid, diagram);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            SVGExporter parallelExporter = new SVGExporter(compact, pool);
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            parallelExporter.export(grid, diagram, outputStream);
+
+            assertThat(parallelExporter.export(grid, diagram)).isEqualTo(svg);
+            assertThat(outputStream.toString(StandardCharsets.UTF_8)).isEqualTo(svg);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void compact_export_shares_styles_and_arrows() {
+        Diagram diagram = Diagram.builder()
+                .shape(shape("start", "Start", ShapeType.EVENT))
+                .shape(shape("task", "Line 1\nLine 2"))
+                .edge(edge("flow", "start", "task"))
+                .build();
+        Grid grid = new ShapeLayouter().layout(diagram);
+
+        String svg = new SVGExporter(true).export(grid, diagram);
+
+        assertThat(svg)
+                .contains("<marker id=\"arrow\"")
+                .contains("<ellipse class=\"event\" cx=\"100\" cy=\"50\" rx=\"15\" ry=\"15\" stroke-width=\"5\"/>")
+                .contains("<polyline class=\"edge\" points=\"115,50 240,50\"/>")
+                .contains("<tspan x=\"300\">Line 1</tspan><tspan x=\"300\" dy=\"1.2em\">Line 2</tspan>")
+                .doesNotContain("fill=\"")
+                .endsWith("</svg>");
+    }
+
+    @Test
+    void export_one_tspan_per_label_line_ignoring_trailing_line_breaks() {
+        Diagram diagram = Diagram.builder().shape(shape("task", "\nLine 2\n\nLine 4\n\n")).build();
+        Grid grid = new ShapeLayouter().layout(diagram);
+
+        String svg = svgExporter.export(grid, diagram);
+
+        assertThat(svg).contains("  <tspan x=\"100\"></tspan>\n"
+                + "  <tspan x=\"100\" dy=\"1.2em\">Line 2</tspan>\n"
+                + "  <tspan x=\"100\" dy=\"1.2em\"></tspan>\n"
+                + "  <tspan x=\"100\" dy=\"1.2em\">Line 4</tspan>\n"
+                + "</text>");
+    }
+
     @ParameterizedTest
     @MethodSource("provideWaypointsForDirectionDetection")
     void detect_last_segment_direction(List<DisplayPoint> waypoints, Direction expectedDirection) {
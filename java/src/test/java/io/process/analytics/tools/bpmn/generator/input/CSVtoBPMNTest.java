@@ -14,6 +14,7 @@ import java.util.stream.Collectors;
 import static io.process.analytics.tools.bpmn.generator.internal.FileUtils.fileContent;
 import static io.process.analytics.tools.bpmn.generator.internal.Semantic.getId;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class CSVtoBPMNTest {
     @Test
@@ -80,6 +81,15 @@ class CSVtoBPMNTest {
         assertThat(gateway1.getOutgoing()).extracting(QName::getLocalPart).containsExactlyInAnyOrder("sequenceFlow_2", "sequenceFlow_3");
     }
 
+    @Test
+    public void should_reject_lines_with_missing_columns() throws IOException {
+        String node = readCsvFile("src/test/resources/csv/PatientsProcess/gateway_node_simple.csv");
+
+        assertThatThrownBy(() -> new CSVtoBPMN().readFromCSV(node, "id,source,target\n1,2\n"))
+                .isInstanceOf(InvalidInputException.class)
+                .hasMessage("Expected at least 4 columns in the edges CSV, got: 1,2");
+    }
+
     // =================================================================================================================
     // UTILS
     // =================================================================================================================
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2026 Bonitasoft S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.process.analytics.tools.bpmn.generator.internal;
+
+import static io.process.analytics.tools.bpmn.generator.internal.SemanticTest.definitionsFromBpmnFile;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import javax.xml.bind.JAXBElement;
+import javax.xml.namespace.QName;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import io.process.analytics.tools.bpmn.generator.algo.ConnectedComponentsLayouter;
+import io.process.analytics.tools.bpmn.generator.algo.ConnectedComponentsLayouter.SortedLayout;
+import io.process.analytics.tools.bpmn.generator.converter.AlgoToDisplayModelConverter;
+import io.process.analytics.tools.bpmn.generator.converter.BpmnToAlgoModelConverter;
+import io.process.analytics.tools.bpmn.generator.internal.generated.model.BPMNDiagram;
+import io.process.analytics.tools.bpmn.generator.internal.generated.model.BPMNShape;
+import io.process.analytics.tools.bpmn.generator.internal.generated.model.TDefinitions;
+import io.process.analytics.tools.bpmn.generator.model.display.PackedDisplayModel;
+
+class BPMNDiagramStreamWriterTest {
+
+    private final XmlParser xmlParser = new XmlParser();
+
+    @ParameterizedTest
+    @ValueSource(strings = {"01-startEvent.bpmn.xml", "03-two-processes-with-collaboration.bpmn.xml", "A.2.0.bpmn.xml",
+            "waypoints-positions-gateways_split_join.bpmn.xml"})
+    void write_the_same_definitions_as_the_rich_builder(String bpmnFile) throws IOException {
+        TDefinitions definitions = definitionsFromBpmnFile("src/test/resources/bpmn/" + bpmnFile);
+
+        assertStreamedAsMarshalled(definitions, xmlParser);
+    }
+
+    @Test
+    void write_the_same_definitions_as_the_rich_builder_without_indentation() throws IOException {
+        TDefinitions definitions = definitionsFromBpmnFile("src/test/resources/bpmn/A.2.1.bpmn.xml");
+
+        String streamedBpmn = assertStreamedAsMarshalled(definitions, new XmlParser(false));
+
+        // the extension elements keep their whitespaces
+        assertThat(streamedBpmn).contains("><bpmndi:BPMNShape").doesNotContain("\n    <");
+    }
+
+    @Test
+    void escape_the_attributes_as_jaxb_does() throws IOException {
+        String bpmn = Files.readString(Path.of("src/test/resources/bpmn/A.2.0.bpmn.xml"))
+                .replace("name=\"Task 1\"", "name=\"Line 1&#10;Line &quot;2&quot;&#9;&amp; &lt;3&gt;&#13;\"");
+        TDefinitions definitions = xmlParser.unmarshall(bpmn);
+
+        String streamedBpmn = assertStreamedAsMarshalled(definitions, xmlParser);
+
+        // JAXB keeps the tabs
+        assertThat(streamedBpmn).contains("name=\"Line 1&#10;Line &quot;2&quot;\t&amp; &lt;3&gt;&#13;\"");
+        assertThat(xmlParser.marshal(xmlParser.unmarshall(streamedBpmn))).contains("Line 1&#10;Line");
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void find_the_placeholder_as_jaxb_writes_it(boolean formatted) {
+        TDefinitions definitions = new BPMNDiagramRichBuilder(
+                definitionsFromBpmnFile("src/test/resources/bpmn/A.2.0.bpmn.xml")).build();
+        BPMNShape placeholder = BPMNDiagramStreamWriter.placeholder();
+        definitions.getBPMNDiagram().get(0).getBPMNPlane().getDiagramElement().add(new JAXBElement<>(
+                new QName("http://www.omg.org/spec/BPMN/20100524/DI", "BPMNShape"), BPMNShape.class, null, placeholder));
+
+        String bpmn = new XmlParser(formatted).marshal(definitions);
+
+        assertThat(bpmn).containsOnlyOnce(BPMNDiagramStreamWriter.placeholderElement(placeholder));
+    }
+
+    @Test
+    void restore_the_diagrams_of_the_definitions() throws IOException {
+        TDefinitions definitions = definitionsFromBpmnFile("src/test/resources/bpmn/A.2.0.bpmn.xml");
+        List<BPMNDiagram> diagrams = List.copyOf(definitions.getBPMNDiagram());
+        String bpmn = xmlParser.marshal(definitions);
+
+        assertStreamedAsMarshalled(definitions, xmlParser);
+
+        assertThat(definitions.getBPMNDiagram()).containsExactlyElementsOf(diagrams);
+        assertThat(xmlParser.marshal(definitions)).isEqualTo(bpmn);
+    }
+
+    /**
+     * @return the streamed BPMN, the same as the one marshalled by JAXB from the definitions built by the rich builder
+     */
+    private static String assertStreamedAsMarshalled(TDefinitions definitions, XmlParser xmlParser) throws IOException {
+        SortedLayout layout = new ConnectedComponentsLayouter()
+                .layoutInBands(new BpmnToAlgoModelConverter().toAlgoModelByProcess(definitions));
+        PackedDisplayModel model = new AlgoToDisplayModelConverter()
+                .convertToPackedModel(layout.getGrid(), layout.getDiagram());
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new BPMNDiagramStreamWriter(xmlParser).write(definitions, model, output);
+        String streamedBpmn = output.toString(StandardCharsets.UTF_8);
+
+        // the rich builder replaces the diagrams of the definitions, like the stream writer did before restoring them
+        List<BPMNDiagram> diagrams = List.copyOf(definitions.getBPMNDiagram());
+        BPMNDiagramRichBuilder builder = new BPMNDiagramRichBuilder(definitions);
+        for (int node = 0; node < model.flowNodeCount(); node++) {
+            builder.addFlowNode(model, node);
+        }
+        for (int edge = 0; edge < model.edgeCount(); edge++) {
+            builder.addEdge(model, edge);
+        }
+        String expectedBpmn = xmlParser.marshal(builder.build());
+        definitions.getBPMNDiagram().clear();
+        definitions.getBPMNDiagram().addAll(diagrams);
+
+        assertThat(streamedBpmn)
+                .contains("<bpmndi:BPMNShape bpmnElement=\"")
+                .contains("<dc:Bounds x=\"")
+                .doesNotContain("BPMNDiagramStreamWriter_")
+                .isEqualTo(expectedBpmn);
+        return streamedBpmn;
+    }
+
+}
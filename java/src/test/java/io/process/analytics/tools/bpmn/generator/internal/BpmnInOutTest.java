@@ -0,0 +1,74 @@
+/*
+ * Copyright 2026 Bonitasoft S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.process.analytics.tools.bpmn.generator.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BpmnInOutTest {
+
+    private static final Path BPMN_FILE = Path.of("src/test/resources/bpmn/A.2.0.bpmn.xml");
+
+    private final XmlParser xmlParser = new XmlParser();
+    private final BpmnInOut bpmnInOut = new BpmnInOut(xmlParser);
+    private final String expectedXml = bpmnInOut.writeToBpmn(bpmnInOut.readFromBpmn(fileContent()));
+
+    private static String fileContent() {
+        try {
+            return Files.readString(BPMN_FILE);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Test
+    void read_from_a_stream_without_closing_it() throws IOException {
+        try (InputStream input = Files.newInputStream(BPMN_FILE)) {
+            assertThat(bpmnInOut.writeToBpmn(bpmnInOut.readFromBpmn(input))).isEqualTo(expectedXml);
+            // nothing left to read, but not closed
+            assertThat(input.read()).isEqualTo(-1);
+        }
+    }
+
+    @Test
+    void read_from_a_channel_without_closing_it() throws IOException {
+        try (ReadableByteChannel channel = Files.newByteChannel(BPMN_FILE)) {
+            assertThat(bpmnInOut.writeToBpmn(bpmnInOut.readFromBpmn(channel))).isEqualTo(expectedXml);
+            assertThat(channel.isOpen()).isTrue();
+        }
+    }
+
+    @Test
+    void read_from_a_gzip_file(@TempDir Path directory) throws IOException {
+        Path gzipFile = directory.resolve("A.2.0.bpmn.xml.gz");
+        try (OutputStream output = new GZIPOutputStream(Files.newOutputStream(gzipFile))) {
+            Files.copy(BPMN_FILE, output);
+        }
+
+        assertThat(bpmnInOut.writeToBpmn(bpmnInOut.readFromBpmn(gzipFile))).isEqualTo(expectedXml);
+    }
+
+}
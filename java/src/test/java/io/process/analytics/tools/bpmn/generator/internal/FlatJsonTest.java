@@ -0,0 +1,74 @@
+/*
+ * Copyright 2026 Bonitasoft S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.process.analytics.tools.bpmn.generator.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class FlatJsonTest {
+
+    @Test
+    void parse_the_values_of_a_flat_object() {
+        Map<String, Object> object = FlatJson.parse(
+                " { \"id\" : 12, \"name\": \"a \\\"quoted\\\" \\u00e9\\n\\\\ text\", \"ratio\": -1.5e2, \"ok\": true, \"no\": false, \"none\": null } ");
+
+        assertThat(object).containsExactly(
+                entry("id", new BigDecimal("12")),
+                entry("name", "a \"quoted\" é\n\\ text"),
+                entry("ratio", new BigDecimal("-1.5e2")),
+                entry("ok", true),
+                entry("no", false),
+                entry("none", null));
+        assertThat(FlatJson.parse("{}")).isEmpty();
+    }
+
+    @Test
+    void reject_what_is_not_a_flat_object() {
+        assertThatThrownBy(() -> FlatJson.parse("[1]")).isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Expected '{' at position 0 of the JSON");
+        assertThatThrownBy(() -> FlatJson.parse("{\"a\": {\"b\": 1}}")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> FlatJson.parse("{\"a\": 1,}")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> FlatJson.parse("{\"a\": \"unterminated}")).isInstanceOf(IllegalArgumentException.class)
+                .hasMessageStartingWith("Unexpected end");
+        assertThatThrownBy(() -> FlatJson.parse("{} {}")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void write_an_object_read_back_as_it_is() {
+        Map<String, Object> object = new LinkedHashMap<>();
+        object.put("id", 3);
+        object.put("text", "<a name=\"x\">\n\t\u0001</a>");
+        object.put("ok", true);
+        object.put("none", null);
+
+        String json = FlatJson.write(object);
+
+        assertThat(json).isEqualTo("{\"id\":3,\"text\":\"<a name=\\\"x\\\">\\n\\t\\u0001</a>\",\"ok\":true,\"none\":null}");
+        assertThat(FlatJson.parse(json)).containsExactly(
+                entry("id", new BigDecimal("3")),
+                entry("text", "<a name=\"x\">\n\t\u0001</a>"),
+                entry("ok", true),
+                entry("none", null));
+    }
+
+}
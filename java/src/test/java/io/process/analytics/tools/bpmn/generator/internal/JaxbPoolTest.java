@@ -0,0 +1,65 @@
+/*
+ * Copyright 2026 Bonitasoft S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.process.analytics.tools.bpmn.generator.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.bind.JAXBException;
+
+import org.junit.jupiter.api.Test;
+
+class JaxbPoolTest {
+
+    private final AtomicInteger created = new AtomicInteger();
+    private final JaxbPool<Integer> pool = new JaxbPool<>(created::incrementAndGet, 2);
+
+    @Test
+    void reuse_the_released_instances() throws JAXBException {
+        Integer first = pool.borrow();
+        pool.release(first);
+
+        assertThat(pool.borrow()).isSameAs(first);
+        assertThat(created).hasValue(1);
+        assertThat(pool.stats()).isEqualTo(new JaxbPool.Stats(1, 1, 0));
+    }
+
+    @Test
+    void create_an_instance_for_each_concurrent_borrow() throws JAXBException {
+        Integer first = pool.borrow();
+        Integer second = pool.borrow();
+
+        assertThat(first).isNotEqualTo(second);
+        assertThat(pool.stats()).isEqualTo(new JaxbPool.Stats(0, 2, 0));
+    }
+
+    @Test
+    void keep_at_most_capacity_idle_instances() throws JAXBException {
+        Integer first = pool.borrow();
+        Integer second = pool.borrow();
+        Integer third = pool.borrow();
+        pool.release(first);
+        pool.release(second);
+        pool.release(third);
+
+        assertThat(pool.stats().getIdle()).isEqualTo(2);
+        assertThat(pool.borrow()).isEqualTo(first);
+        assertThat(pool.borrow()).isEqualTo(second);
+        assertThat(pool.borrow()).isEqualTo(4);
+    }
+
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2026 Bonitasoft S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.process.analytics.tools.bpmn.generator.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.jupiter.api.Test;
+
+class MappedFileInputStreamTest {
+
+    private static final Path BPMN_FILE = Path.of("src/test/resources/bpmn/A.2.0.bpmn.xml");
+
+    private final XmlParser xmlParser = new XmlParser();
+
+    @Test
+    void read_the_file_across_several_regions() throws IOException {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        try (InputStream input = new MappedFileInputStream(FileChannel.open(BPMN_FILE, StandardOpenOption.READ), 1000)) {
+            content.write(input.read());
+            byte[] buffer = new byte[700];
+            int count;
+            while ((count = input.read(buffer, 0, buffer.length)) != -1) {
+                content.write(buffer, 0, count);
+            }
+            assertThat(input.read()).isEqualTo(-1);
+        }
+
+        assertThat(content.toByteArray()).isEqualTo(Files.readAllBytes(BPMN_FILE));
+    }
+
+    @Test
+    void parse_the_same_definitions_as_from_the_file_content() throws IOException {
+        String expectedXml = xmlParser.marshal(xmlParser.unmarshall(Files.readString(BPMN_FILE)));
+
+        try (InputStream input = new MappedFileInputStream(FileChannel.open(BPMN_FILE, StandardOpenOption.READ), 4096)) {
+            assertThat(xmlParser.marshal(xmlParser.unmarshall(input))).isEqualTo(expectedXml);
+        }
+    }
+
+}
@@ -20,7 +20,11 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.xml.bind.JAXBElement;
 
@@ -56,4 +60,37 @@ public class XmlParserTest {
         assertThat(plane.getId()).isEqualTo("BPMNPlane_1");
     }
 
-}
\ No newline at end of file
+    @Test
+    public void marshal_without_indentation() throws IOException {
+        String bpmnAsXml = fileContent(new File("src/test/resources/bpmn/A.2.0.bpmn.xml"));
+        TDefinitions definitions = xmlParser.unmarshall(bpmnAsXml);
+
+        String compactXml = new XmlParser(false).marshal(definitions);
+
+        assertThat(compactXml).doesNotContain("\n").hasSizeLessThan(xmlParser.marshal(definitions).length());
+        assertThat(xmlParser.marshal(xmlParser.unmarshall(compactXml))).isEqualTo(xmlParser.marshal(definitions));
+    }
+
+    @Test
+    public void marshal_and_unmarshall_from_several_threads() throws Exception {
+        String bpmnAsXml = fileContent(new File("src/test/resources/bpmn/A.2.0.bpmn.xml"));
+        String expectedXml = xmlParser.marshal(xmlParser.unmarshall(bpmnAsXml));
+        long marshallerMisses = XmlParser.marshallerStats().getMisses();
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                results.add(executor.submit(() -> xmlParser.marshal(xmlParser.unmarshall(bpmnAsXml))));
+            }
+            for (Future<String> result : results) {
+                assertThat(result.get()).isEqualTo(expectedXml);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        // the marshallers are reused instead of being created for each call
+        assertThat(XmlParser.marshallerStats().getMisses() - marshallerMisses).isLessThanOrEqualTo(4);
+    }
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2026 Bonitasoft S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.process.analytics.tools.bpmn.generator.model;
+
+import static io.process.analytics.tools.bpmn.generator.model.Edge.edge;
+import static io.process.analytics.tools.bpmn.generator.model.Edge.revertedEdge;
+import static io.process.analytics.tools.bpmn.generator.model.Shape.shape;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class DiagramTest {
+
+    private final Shape start = shape("start");
+    private final Shape step1 = shape("step1");
+    private final Shape step2 = shape("step2");
+
+    @Test
+    void should_return_edges_in_current_and_original_direction() {
+        Edge startToStep1 = edge("e1", "start", "step1");
+        Edge step1ToStep2 = edge("e2", "step1", "step2");
+        Edge step2ToStep1 = revertedEdge(edge("e3", "step1", "step2"));
+        Diagram diagram = Diagram.builder()
+                .shape(start).shape(step1).shape(step2)
+                .edge(startToStep1).edge(step1ToStep2).edge(step2ToStep1)
+                .build();
+
+        assertThat(diagram.getIncomingEdges("step1")).containsExactly(startToStep1, step2ToStep1);
+        assertThat(diagram.getOutgoingEdges("step1")).containsExactly(step1ToStep2);
+        assertThat(diagram.getOriginalIncomingEdges("step1")).containsExactly(startToStep1);
+        assertThat(diagram.getOriginalOutgoingEdges("step1")).containsExactly(step1ToStep2, step2ToStep1);
+        assertThat(diagram.getIncomingEdges("start")).isEmpty();
+    }
+
+    @Test
+    void should_find_shape_by_id() {
+        Diagram diagram = Diagram.builder().shape(start).shape(step1).build();
+
+        assertThat(diagram.getShape("step1")).isSameAs(step1);
+        assertThatThrownBy(() -> diagram.getShape("unknown")).isInstanceOf(NoSuchElementException.class);
+    }
+
+    @Test
+    void should_reflect_replaced_edges() {
+        Diagram diagram = Diagram.builder().shape(start).shape(step1).build();
+        assertThat(diagram.getOutgoingEdges("start")).isEmpty();
+
+        Edge startToStep1 = edge("e1", "start", "step1");
+        diagram.setEdges(Set.of(startToStep1));
+
+        assertThat(diagram.getOutgoingEdges("start")).containsExactly(startToStep1);
+    }
+
+}
@@ -18,6 +18,7 @@ package io.process.analytics.tools.bpmn.generator.model;
 import static io.process.analytics.tools.bpmn.generator.model.Position.position;
 import static io.process.analytics.tools.bpmn.generator.model.Shape.shape;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import org.junit.jupiter.api.Test;
 
@@ -75,4 +76,69 @@ class GridTest {
         );
     }
 
-}
\ No newline at end of file
+    @Test
+    public void should_find_positions_by_shape_cell_and_row() {
+        grid.add(position(nodeA, 0, 0));
+        grid.add(position(nodeB, 1, 2));
+        grid.add(position(nodeC, 3, 2));
+
+        assertThat(grid.getPosition("b")).isEqualTo(position(nodeB, 1, 2));
+        assertThat(grid.isFilled(position(nodeA, 3, 2))).isTrue();
+        assertThat(grid.isFilled(position(nodeA, 2, 2))).isFalse();
+        assertThat(grid.getRow(2)).containsExactly(position(nodeB, 1, 2), position(nodeC, 3, 2));
+        assertThat(grid.getRow(1)).isEmpty();
+        assertThat(grid.getLastRowIndex()).isEqualTo(2);
+        assertThat(grid.getLastColumnIndex()).isEqualTo(3);
+    }
+
+    @Test
+    public void should_update_indexes_when_removing_position() {
+        grid.add(position(nodeA, 0, 0));
+        grid.add(position(nodeB, 1, 2));
+        grid.add(position(nodeC, 3, 4));
+
+        grid.remove(position(nodeC, 3, 4));
+        grid.removeEmptyRow(1);
+
+        assertThat(grid.getPositions()).containsExactly(
+                position(nodeA, 0, 0),
+                position(nodeB, 1, 1)
+        );
+        assertThat(grid.isFilled(position(nodeC, 3, 4))).isFalse();
+        assertThat(grid.getLastRowIndex()).isEqualTo(1);
+        assertThat(grid.getLastColumnIndex()).isEqualTo(1);
+        assertThatThrownBy(() -> grid.getPosition("c")).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void should_not_remove_position_that_is_not_in_the_grid() {
+        grid.add(position(nodeA, 0, 0));
+
+        assertThatThrownBy(() -> grid.remove(position(nodeA, 0, 1))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void should_put_the_positions_below_at_the_end_when_adding_and_removing_rows() {
+        grid.add(position(nodeC, 1, 2));
+        grid.add(position(nodeA, 0, 0));
+        grid.add(position(nodeB, 0, 1));
+
+        grid.addRowBefore(0);
+        grid.addRowAfter(1);
+        grid.addRowAfter(1);
+        grid.removeEmptyRow(2);
+
+        // as if they had been removed and added again
+        assertThat(grid.getPositions()).containsExactly(
+                position(nodeA, 0, 1),
+                position(nodeC, 1, 4),
+                position(nodeB, 0, 3)
+        );
+        assertThat(grid.getPosition("c")).isEqualTo(position(nodeC, 1, 4));
+        assertThat(grid.isFilled(position(nodeA, 0, 3))).isTrue();
+        assertThat(grid.getRow(0)).isEmpty();
+        assertThat(grid.getLastRowIndex()).isEqualTo(4);
+        assertThatThrownBy(() -> grid.removeEmptyRow(1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+}